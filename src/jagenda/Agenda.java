@@ -8,8 +8,11 @@ package jagenda;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.Arrays;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.zip.CRC32C;
 
 import jagenda.util.Config;
 import jagenda.util.Fichier;
@@ -40,26 +43,64 @@ import jagenda.util.Saisie;
 public class Agenda {
 
     /** 
-     * Chemin menant au fichier de sauvegarde .
+     * Nom du fichier de sauvegarde.
      */
-    private static final String CHEMIN_SAUV = "data";
+    private static final String FICHIER_SAUV = "jagenda.Rdv";
 
     /** 
-     * Nom du fichier de sauvegarde.
+     * Nom du fichier de sauvegarde au format binaire.
+     * @see SauvegardeBinaire
      */
-    private static final String FICHIER_SAUV = "jagenda.Rdv";
-    
+    private static final String FICHIER_SAUV_BINAIRE = "jagenda.bin";
+
     /** 
-     * Expression rgulire permettant de lire les donnes.
-     * <i>Exemple : jj/mm/aaaa::hh:mm::hh:mm::libelle:nature::description</i>
+     * Nom du fichier contenant le journal des modifications.
+     * @see Journal
+     */
+    private static final String FICHIER_JOURNAL = "jagenda.jrn";
+
+    /** 
+     * Nom du fichier contenant l'index des mots des rendez-vous.
+     * @see IndexTexte
+     */
+    private static final String FICHIER_INDEX = "jagenda.idx";
+
+    /**
+     * Extension du fichier temporaire dans lequel une sauvegarde est crite
+     * avant de remplacer la sauvegarde prcdente.
+     */
+    private static final String EXTENSION_TEMPORAIRE = ".tmp";
+
+    /**
+     * Nombre d'oprations au-del duquel le journal est intgr  une
+     * nouvelle sauvegarde complte (point de contrle).
      */
-    private static final Pattern STRUCTURE_DONNEES = 
-            Pattern.compile("(\\d{1,2})/(\\d{1,2})/(\\d{4})::" + 
-                    "(\\d{1,2})(h|H|:)(\\d{1,2})::(\\d{1,2})(h|H|:)(\\d{1,2})" +
-                    "::(.+)::(.+)::(.+)");
+    private static final int TAILLE_MAX_JOURNAL = 1000;
+
+    /**
+     * Taille, en caractres, du tampon d'criture du fichier de sauvegarde au
+     * format texte.
+     * @see jagenda.util.Fichier#initEcriture(boolean, int)
+     */
+    private static final int TAILLE_TAMPON_SAUV = 64 * 1024;
     
     /** Liste des rendez vous de l'agenda. */
-    private RendezVous[] listeRdv;
+    private ListeRendezVous listeRdv;
+
+    /** Index des horaires de {@code listeRdv}, pour la recherche de conflits.*/
+    private ArbreIntervalles intervalles;
+
+    /** Index par jour de {@code listeRdv}, pour le listage des rendez-vous. */
+    private IndexJours indexJours;
+
+    /** Index des mots de {@code listeRdv}, pour la recherche par mots-cls.*/
+    private IndexTexte indexTexte;
+
+    /** Index par nature de {@code listeRdv}, pour le listage et le compte. */
+    private IndexNatures indexNatures;
+
+    /** Journal des modifications apportes depuis la dernire sauvegarde. */
+    private Journal journal;
 
     /** Objet permettant les saisies sur l'entre/sortie standard */
     public Saisie saisie;
@@ -67,18 +108,85 @@ public class Agenda {
     /** Configuration qui va contenir les prfrences de l'utilisateur. */
     public Config config;
 
+    /**
+     * Contexte immuable construit  partir de la configuration, transmis aux
+     * {@code Horaire} et aux {@code RendezVous} de l'agenda.
+     */
+    private Contexte contexte;
+
+    /**
+     * Chemin du dossier des fichiers de sauvegarde, du journal et de l'index
+     * de l'agenda, fix  sa construction.
+     * @see Config#getCheminSauvegarde()
+     */
+    private final String cheminSauv;
+
+    /**
+     * Dictionnaire des natures de l'agenda, qui code la nature de chacun de
+     * ses rendez-vous sur un octet.
+     */
+    private final DictionnaireNatures natures;
+
     /**
      * Constructeur par defaut d'un agenda.<br>
      * <p>Initialise sa configuration et charge les donnes du fichier de 
      * configuration si celui-ci existe, initialise sa liste de rendez-vous 
-     * ainsi qu'un objet de type <code>Saisie</code> permettant la saisie de 
-     * donnes sur l'entre/sortie standard.</p>
+     * et ses index, ainsi qu'un objet de type <code>Saisie</code> permettant
+     * la saisie de donnes sur l'entre/sortie standard.</p>
+     * @see #Agenda(Config)
      */
     public Agenda() {
+        this(chargeConfigDefaut());
+    }
+
+    /**
+     * Constructeur paramtrable prenant en argument la configuration de
+     * l'agenda, dj charge.<br>
+     * <p>Aucun agenda n'est global : plusieurs agendas de configurations
+     * diffrentes peuvent tre construits et interrogs dans un mme
+     * programme. Chacun lit et crit ses fichiers dans le dossier de
+     * sauvegarde de sa configuration.</p>
+     * @param config Configuration de l'agenda.
+     */
+    public Agenda(Config config) {
+        this.config = config;
+        this.saisie = new Saisie();
+        this.contexte = new Contexte(config);
+        this.cheminSauv = config.getCheminSauvegarde();
+        this.natures = new DictionnaireNatures();
+        this.listeRdv = new ListeRendezVous(config.getNbMaximumRdv());
+        this.intervalles = new ArbreIntervalles();
+        this.indexJours = new IndexJours();
+        this.indexTexte = new IndexTexte();
+        this.indexNatures = new IndexNatures(natures);
+    }
+
+    /**
+     * Affiche le nom du logiciel puis charge la configuration du fichier de
+     * configuration, s'il existe, pour le constructeur par dfaut.
+     * @return Configuration charge, ou par dfaut.
+     */
+    private static Config chargeConfigDefaut() {
         System.out.println("\n\t\t\tLogiciel jAgenda\n");
-        config = new Config();
-        saisie = new Saisie();
+        Config config = new Config();
         config.chargeConfig();
+        return config;
+    }
+
+    /**
+     * Accesseur pour le champ <code>contexte</code>.
+     * @return Contexte de l'agenda, refltant sa configuration courante.
+     */
+    public Contexte getContexte() {
+        return contexte;
+    }
+
+    /**
+     * Accesseur pour le champ <code>natures</code>.
+     * @return Dictionnaire des natures des rendez-vous de l'agenda.
+     */
+    public DictionnaireNatures getNatures() {
+        return natures;
     }
     
     /**
@@ -86,7 +194,7 @@ public class Agenda {
      * @return Nombre de rendez-vous que contient l'agenda courant. 	
      */
     public int getNbRdv() {
-        return listeRdv.length;
+        return listeRdv.getNbRdv();
     }
     
     /**
@@ -152,6 +260,18 @@ public class Agenda {
     }
 
 
+    /**
+     * Accesseur pour le champ <code>formatSauvegarde</code> dans le fichier de
+     * configuration.
+     * @return Format du fichier de sauvegarde des rendez-vous,  savoir,<br>
+     *         soit <code>0</code> pour le format texte,<br>
+     *         soit <code>1</code> pour le format binaire.
+     * @see jagenda.util.Config#getFormatSauvegarde()
+     */
+    public int getFormatSauvegarde() {
+        return this.config.getFormatSauvegarde();
+    }
+
     /**
      * Accesseur pour le champ <code>nbMaximumRdv</code> dans le fichier de
      * configuration.
@@ -176,6 +296,16 @@ public class Agenda {
     public int getTypeSauvegarde() {
         return this.config.getTypeSauvegarde();
     }
+
+    /**
+     * Accesseur pour le champ <code>durabilite</code> dans le fichier de
+     * configuration.
+     * @return Niveau de durabilit des sauvegardes des rendez-vous.
+     * @see jagenda.util.Config#getDurabilite()
+     */
+    public int getDurabilite() {
+        return this.config.getDurabilite();
+    }
     
     
     /**
@@ -187,11 +317,46 @@ public class Agenda {
      * fin du programme.<br>
      * Lorsque le programme s'arrte, l'agenda sauvegarde la liste des 
      * rendez-vous {@code listeRdv}.</p>
+     * <p>Les rendez-vous sont chargs puis sauvegards au format choisi dans
+     * la configuration ({@code formatSauvegarde}).</p>
+     * <p>Le journal des modifications est rejou sur les rendez-vous chargs.
+     * Si l'option {@code typeSauvegarde} est active, chaque modification est
+     * ensuite inscrite dans le journal au moment o elle a lieu.</p>
      * @see jagenda.util.Saisie#menu()
      * @see listeRdv
+     * @see Journal
      */
     public void lance() {
-        listeRdv = listeRendezVous();
+        RendezVous[] charges;
+        if (getFormatSauvegarde() == 1) {
+            charges = listeRendezVousBinaire();
+        } else {
+            charges = listeRendezVous();
+        }
+        if (charges == null) {
+            charges = new RendezVous[0];
+        }
+        listeRdv = new ListeRendezVous(charges, getNbMaximumRdv());
+        if (listeRdv.getNbDoublons() > 0) {
+            System.err.println(listeRdv.getNbDoublons() == 1 ?
+                    "1 rendez-vous n'a pas pu tre charg : mmes horaires "
+                    + "qu'un autre rendez-vous." :
+                    listeRdv.getNbDoublons() + " rendez-vous n'ont pas pu "
+                    + "tre chargs : mmes horaires qu'un autre rendez-vous.");
+        }
+        chargeJournal();
+        if (natures.getNbRefus() > 0) {
+            System.err.println(natures.getNbRefus() == 1 ?
+                    "1 rendez-vous a t class \"Divers\" : trop de natures." :
+                    natures.getNbRefus() + " rendez-vous ont t classs "
+                    + "\"Divers\" : trop de natures.");
+        }
+        RendezVous[] tableau = listeRdv.versTableau();
+        intervalles = new ArbreIntervalles(tableau);
+        indexJours = new IndexJours(tableau);
+        chargeIndexTexte(tableau);
+        indexNatures = new IndexNatures(natures, tableau);
+        ouvreJournal();
         // Contient l'identifiant numrique de la tche que veut effectuer 
         // l'utilisateur
         int tache;
@@ -212,11 +377,21 @@ public class Agenda {
                 // TODO Supprimer un rendez-vous
                 break;
             case 5:
-                // TODO Lister les rendez vous
+                this.listerRdv();
                 break;
             case 6:
+                this.listerCreneaux();
+                break;
+            case 7:
                 // TODO Configurer le logiciel
                 config.sauveConfig();
+                contexte = new Contexte(config);
+                break;
+            case 8:
+                this.rechercherRdv();
+                break;
+            case 9:
+                this.listerNature();
                 break;
             }
         } while(tache != 0);
@@ -225,7 +400,483 @@ public class Agenda {
         System.out.println(Saisie.SEPARATEUR);
         System.out.println("Ne pas quitter le programme ! " +
                            "Sauvegarde en cours !");
-        sauveRdv(listeRdv);
+        pointDeControle();
+        if (journal != null) {
+            journal.ferme();
+        }
+    }
+
+    /**
+     * Rejoue le journal des modifications sur la liste des rendez-vous.
+     * @see Journal#rejoue(ListeRendezVous)
+     */
+    private void chargeJournal() {
+        try {
+            journal = new Journal(new Fichier(cheminSauv, FICHIER_JOURNAL),
+                                  natures, getDurabilite());
+            journal.rejoue(listeRdv);
+            if (journal.getNbErreur() > 0) {
+                System.err.println(journal.getNbErreur() == 1 ? 
+                        "1 modification n'a pas pu tre rejoue." :
+                        journal.getNbErreur()
+                        + " modifications n'ont pas pu tre rejoues.");
+            }
+        } catch (IOException ioEx) {
+            // Les modifications seront sauvegardes  la fermeture.
+            journal = null;
+            System.err.println("Impossible de lire le journal. " +
+                    ioEx.getMessage());
+        }
+    }
+
+    /**
+     * Ouvre le journal en criture si l'option {@code typeSauvegarde} est
+     * active. Si le rejeu a rencontr des lignes errones, un point de
+     * contrle est d'abord effectu : le journal repart vide, et les
+     * oprations suivantes ne sont pas inscrites  la suite d'une criture
+     * interrompue.
+     * @see Journal#ouvre()
+     */
+    private void ouvreJournal() {
+        if (journal != null && journal.getNbErreur() > 0) {
+            pointDeControle();
+        }
+        try {
+            if (journal != null && getTypeSauvegarde() == 1) {
+                journal.ouvre();
+            }
+        } catch (IOException ioEx) {
+            // Les modifications seront sauvegardes  la fermeture.
+            journal = null;
+            System.err.println("Impossible d'ouvrir le journal. " +
+                    ioEx.getMessage());
+        }
+    }
+
+    /**
+     * Charge l'index des mots enregistr au dernier point de contrle. S'il
+     * est absent, illisible ou ne correspond plus aux rendez-vous chargs
+     * (par exemple aprs le rejeu du journal), il est reconstruit.
+     * @param tableau Les rendez-vous de l'agenda, dans l'ordre chronologique.
+     * @see IndexTexte#charge(Fichier, RendezVous[])
+     */
+    private void chargeIndexTexte(RendezVous[] tableau) {
+        try {
+            indexTexte = IndexTexte.charge(new Fichier(cheminSauv,
+                                                       FICHIER_INDEX),
+                                           tableau);
+        } catch (IOException ioEx) {
+            // L'index sera enregistr au prochain point de contrle.
+            indexTexte = new IndexTexte(tableau);
+        }
+    }
+
+    /**
+     * Enregistre l'index des mots  ct du fichier de sauvegarde, dans un
+     * fichier temporaire qui remplace ensuite l'index prcdent.
+     * @param tableau Les rendez-vous de l'agenda, dans l'ordre chronologique.
+     * @return {@code TRUE} si l'index a t enregistr.
+     */
+    private boolean sauveIndexTexte(RendezVous[] tableau) {
+        boolean aRetourner = true;
+        try {
+            Fichier index = new Fichier(cheminSauv, FICHIER_INDEX);
+            Fichier temporaire = new Fichier(cheminSauv, FICHIER_INDEX
+                                             + EXTENSION_TEMPORAIRE);
+            indexTexte.sauve(temporaire, tableau);
+            temporaire.remplace(index, getDurabilite());
+        } catch (IOException ioEx) {
+            // L'index sera reconstruit au prochain lancement.
+            aRetourner = false;
+        }
+        return aRetourner;
+    }
+
+    /**
+     * Indique si les modifications doivent tre inscrites dans le journal.
+     * @return {@code TRUE} si l'option {@code typeSauvegarde} est active et
+     *         que le journal a pu tre ouvert.
+     */
+    private boolean estJournalise() {
+        return journal != null && getTypeSauvegarde() == 1;
+    }
+
+    /**
+     * Point de contrle : sauvegarde l'ensemble des rendez-vous au format
+     * choisi dans la configuration, puis vide le journal des modifications.
+     * Le journal n'est vid que si la sauvegarde a russi ; l'index des mots
+     * est alors enregistr  son tour, afin de ne pas avoir  le reconstruire
+     * au prochain lancement.
+     * @return {@code TRUE} si la sauvegarde a t effectue.
+     */
+    public boolean pointDeControle() {
+        boolean sauve;
+        RendezVous[] tableau = listeRdv.versTableau();
+        if (getFormatSauvegarde() == 1) {
+            sauve = sauveRdvBinaire(tableau, getDurabilite());
+        } else {
+            sauve = sauveRdv(tableau, getDurabilite());
+        }
+        if (sauve) {
+            sauveIndexTexte(tableau);
+        }
+        if (   sauve && journal != null
+            && (journal.getNbOperations() > 0 || journal.getNbErreur() > 0)) {
+            try {
+                journal.vide();
+            } catch (IOException ioEx) {
+                // Le journal sera rejou une nouvelle fois, sans consquence.
+                System.err.println("Impossible de vider le journal. " +
+                        ioEx.getMessage());
+            }
+        }
+        return sauve;
+    }
+
+    /**
+     * Ajoute un {@code RendezVous}  l'agenda. Si l'option
+     * {@code typeSauvegarde} est active, l'ajout est inscrit dans le journal.
+     * @param rdv Le {@code RendezVous}  ajouter.
+     * @return {@code TRUE} si le rendez-vous a t ajout, {@code FALSE} si
+     *         l'agenda contient dj un rendez-vous de mmes horaires.
+     * @see ListeRendezVous#ajoute(RendezVous)
+     */
+    public boolean ajouteRdv(RendezVous rdv) {
+        boolean ajoute = listeRdv.ajoute(rdv);
+        if (ajoute) {
+            intervalles.ajoute(rdv);
+            indexJours.ajoute(rdv);
+            indexTexte.ajoute(rdv);
+            indexNatures.ajoute(rdv);
+            if (estJournalise()) {
+                try {
+                    journal.ajout(rdv);
+                    verifieJournal();
+                } catch (IOException ioEx) {
+                    echecJournal(ioEx);
+                }
+            }
+        }
+        return ajoute;
+    }
+
+    /**
+     * Retire un {@code RendezVous} de l'agenda. Si l'option
+     * {@code typeSauvegarde} est active, la suppression est inscrite dans le
+     * journal.
+     * @param rdv Le {@code RendezVous}  retirer.
+     * @see ListeRendezVous#retire(RendezVous)
+     */
+    public void retireRdv(RendezVous rdv) {
+        if (listeRdv.retire(rdv)) {
+            intervalles.retire(rdv);
+            indexJours.retire(rdv);
+            indexTexte.retire(rdv);
+            indexNatures.retire(rdv);
+            if (estJournalise()) {
+                try {
+                    journal.suppression(rdv);
+                    verifieJournal();
+                } catch (IOException ioEx) {
+                    echecJournal(ioEx);
+                }
+            }
+        }
+    }
+
+    /**
+     * Remplace un {@code RendezVous} de l'agenda par sa version modifie. Si
+     * l'option {@code typeSauvegarde} est active, la modification est
+     * inscrite dans le journal.<br>
+     * La modification est refuse, et l'agenda laiss inchang, si la
+     * version modifie a les mmes horaires qu'un autre rendez-vous de
+     * l'agenda : elle ne pourrait pas y tre ajoute.
+     * @param ancien  Le {@code RendezVous}  modifier.
+     * @param nouveau Le {@code RendezVous} modifi.
+     * @return {@code TRUE} si le rendez-vous a t modifi.
+     */
+    public boolean modifieRdv(RendezVous ancien, RendezVous nouveau) {
+        boolean modifie = listeRdv.contient(ancien)
+                          && (   nouveau.equals(ancien)
+                              || !listeRdv.contient(nouveau));
+        if (modifie) {
+            listeRdv.retire(ancien);
+            intervalles.retire(ancien);
+            indexJours.retire(ancien);
+            indexTexte.retire(ancien);
+            indexNatures.retire(ancien);
+            listeRdv.ajoute(nouveau);
+            intervalles.ajoute(nouveau);
+            indexJours.ajoute(nouveau);
+            indexTexte.ajoute(nouveau);
+            indexNatures.ajoute(nouveau);
+            if (estJournalise()) {
+                try {
+                    journal.modification(ancien, nouveau);
+                    verifieJournal();
+                } catch (IOException ioEx) {
+                    echecJournal(ioEx);
+                }
+            }
+        }
+        return modifie;
+    }
+
+    /**
+     * Retourne les {@code RendezVous} de l'agenda en conflit avec le
+     * {@code RendezVous}  comparer,  l'aide de l'index des horaires : le
+     * cot de la recherche dpend du nombre de conflits, et non du nombre de
+     * rendez-vous de l'agenda.<br>
+     * Les minutes occupes des jours concerns sont d'abord consultes : si
+     * l'horaire est libre, aucun rendez-vous n'est examin.
+     * @param aComparer Le {@code RendezVous}  comparer.
+     * @return Les rendez-vous en conflits, dans l'ordre chronologique.
+     * @see #conflitRdv(RendezVous[], RendezVous)
+     * @see IndexJours#estLibre(int, int)
+     * @see ArbreIntervalles#conflits(int, int)
+     */
+    public RendezVous[] conflits(RendezVous aComparer) {
+        RendezVous[] aRetourner;
+        if (   aComparer.getFin() > aComparer.getDebut()
+            && indexJours.estLibre(aComparer.getDebut(), aComparer.getFin())) {
+            aRetourner = new RendezVous[0];
+        } else {
+            aRetourner = intervalles.conflits(aComparer.getDebut(),
+                                              aComparer.getFin());
+        }
+        return aRetourner;
+    }
+
+    /**
+     * Retourne les {@code RendezVous} de l'agenda d'un jour, de la semaine ou
+     * du mois contenant ce jour,  l'aide de l'index par jour : seuls les
+     * jours de la priode sont consults.
+     * @param periode    {@code IndexJours.JOUR}, {@code IndexJours.SEMAINE}
+     *                   ou {@code IndexJours.MOIS}.
+     * @param jourEpoque Jour poque d'un jour de la priode.
+     * @return Les rendez-vous de la priode, par horaire de dbut.
+     * @see IndexJours#periode(int, int)
+     */
+    public RendezVous[] listePeriode(int periode, int jourEpoque) {
+        return indexJours.periode(periode, jourEpoque);
+    }
+
+    /**
+     * Parcourt les {@code RendezVous} de l'agenda commenant dans la priode
+     * {@code [debut, fin[}, en O(log n + k) pour k rendez-vous parcourus :
+     * les bornes de la priode sont trouves par dichotomie dans la liste
+     * trie des rendez-vous, qui est lue sans tre copie.<br>
+     * Un rendez-vous commenc avant la priode n'est pas parcouru ; les
+     * rendez-vous occupant une partie de la priode sont donns par
+     * {@link #conflits(RendezVous)}.
+     * @param debut Minute poque du dbut de la priode.
+     * @param fin   Minute poque de la fin de la priode.
+     * @return Itrateur sur les rendez-vous de la priode, dans l'ordre
+     *         chronologique. Il ne doit plus tre utilis aprs une
+     *         modification de l'agenda.
+     * @see ListeRendezVous#parcours(int, int)
+     */
+    public Iterator<RendezVous> parcoursPeriode(int debut, int fin) {
+        return listeRdv.parcours(debut, fin);
+    }
+
+    /**
+     * Parcourt les {@code RendezVous} de l'agenda commenant entre deux
+     * horaires, le premier compris et le second exclu.
+     * @param debut Horaire de dbut de la priode.
+     * @param fin   Horaire de fin de la priode.
+     * @return Itrateur sur les rendez-vous de la priode, dans l'ordre
+     *         chronologique.
+     * @see #parcoursPeriode(int, int)
+     */
+    public Iterator<RendezVous> parcoursPeriode(Horaire debut, Horaire fin) {
+        return parcoursPeriode(debut.getMinuteEpoque(), fin.getMinuteEpoque());
+    }
+
+    /**
+     * Retourne le nombre de {@code RendezVous} de l'agenda commenant dans
+     * la priode {@code [debut, fin[}, en O(log n).
+     * @param debut Minute poque du dbut de la priode.
+     * @param fin   Minute poque de la fin de la priode.
+     * @return Nombre de rendez-vous de la priode.
+     * @see ListeRendezVous#nbRdvEntre(int, int)
+     */
+    public int nbRdvPeriode(int debut, int fin) {
+        return listeRdv.nbRdvEntre(debut, fin);
+    }
+
+    /**
+     * Retourne le nombre de {@code RendezVous} de l'agenda commenant entre
+     * deux horaires, le premier compris et le second exclu.
+     * @param debut Horaire de dbut de la priode.
+     * @param fin   Horaire de fin de la priode.
+     * @return Nombre de rendez-vous de la priode.
+     * @see #nbRdvPeriode(int, int)
+     */
+    public int nbRdvPeriode(Horaire debut, Horaire fin) {
+        return nbRdvPeriode(debut.getMinuteEpoque(), fin.getMinuteEpoque());
+    }
+
+    /**
+     * Retourne les {@code k} prochains {@code RendezVous} de l'agenda 
+     * partir d'un horaire, en O(log n + k) : le premier est trouv par
+     * dichotomie dans la liste trie des rendez-vous. Le cot ne dpend pas
+     * du nombre de rendez-vous passs ou lointains, et l'appel peut tre
+     * rpt  chaque rafrachissement d'un affichage.
+     * @param apres Horaire  partir duquel chercher, par exemple l'horaire
+     *              courant.
+     * @param k     Nombre maximum de rendez-vous retourns.
+     * @return Au plus {@code k} rendez-vous commenant  partir de
+     *         {@code apres}, dans l'ordre chronologique.
+     * @see ListeRendezVous#prochains(int, int)
+     */
+    public RendezVous[] prochainsRdv(Horaire apres, int k) {
+        return listeRdv.prochains(apres.getMinuteEpoque(), k);
+    }
+
+    /**
+     * Retourne les {@code k} prochains {@code RendezVous} d'un parcours dans
+     * un ordre quelconque, par exemple celui du fichier de sauvegarde, 
+     * partir d'un horaire.<br>
+     * Seuls les {@code k} meilleurs rendez-vous rencontrs sont conservs,
+     * dans un tas dont la racine est le plus tardif : chaque rendez-vous
+     * cote O(log k), et le parcours entier occupe une mmoire
+     * proportionnelle au plus petit de {@code k} et du nombre de
+     * rendez-vous : un {@code k} dmesur n'alloue rien d'avance.
+     * @param source Parcours des rendez-vous.
+     * @param apres  Horaire  partir duquel chercher.
+     * @param k      Nombre maximum de rendez-vous retourns.
+     * @return Au plus {@code k} rendez-vous commenant  partir de
+     *         {@code apres}, dans l'ordre chronologique.
+     * @see #parcoursRendezVous()
+     */
+    public static RendezVous[] prochainsRdv(Iterator<RendezVous> source,
+                                            Horaire apres, int k) {
+        int minuteEpoque = apres.getMinuteEpoque();
+        RendezVous[] aRetourner = new RendezVous[0];
+        if (k > 0) {
+            // Tas des k premiers rendez-vous, le plus tardif  la racine ;
+            // il grandit au fil du parcours, k pouvant dpasser leur nombre
+            PriorityQueue<RendezVous> tas = new PriorityQueue<RendezVous>(
+                    Math.min(k, 16),
+                    Collections.reverseOrder(RendezVous.ORDRE_CHRONOLOGIQUE));
+            while (source.hasNext()) {
+                RendezVous rdv = source.next();
+                if (rdv.getDebut() >= minuteEpoque) {
+                    if (tas.size() < k) {
+                        tas.add(rdv);
+                    } else if (RendezVous.ORDRE_CHRONOLOGIQUE
+                                   .compare(rdv, tas.peek()) < 0) {
+                        tas.poll();
+                        tas.add(rdv);
+                    }
+                }
+            }
+            aRetourner = new RendezVous[tas.size()];
+            for (int i = aRetourner.length - 1; i >= 0; i--) {
+                aRetourner[i] = tas.poll();
+            }
+        }
+        return aRetourner;
+    }
+
+    /**
+     * Retourne les {@code RendezVous} de l'agenda d'une nature,  l'aide de
+     * l'index par nature : les rendez-vous des autres natures ne sont pas
+     * parcourus.
+     * @param nature Nature recherche ; la casse et les espaces ne sont pas
+     *               pris en compte.
+     * @return Les rendez-vous de cette nature, dans l'ordre chronologique.
+     * @see IndexNatures#nature(int)
+     */
+    public RendezVous[] listeNature(String nature) {
+        return indexNatures.nature(natures.cherche(nature));
+    }
+
+    /**
+     * Retourne le nombre de {@code RendezVous} de l'agenda de chaque nature,
+     * tenu  jour par l'index par nature.
+     * @return Nombre de rendez-vous, index par nom de nature.
+     * @see IndexNatures#nbRdvParNature()
+     */
+    public Map<String, Integer> nbRdvParNature() {
+        return indexNatures.nbRdvParNature();
+    }
+
+    /**
+     * Retourne les {@code RendezVous} de l'agenda dont le libell ou la
+     * description contiennent tous les mots d'une recherche,  l'aide de
+     * l'index des mots : seuls les rendez-vous contenant ces mots sont
+     * examins. Un mot termin par {@code *} dsigne tous les mots commenant
+     * par lui ; les majuscules et les accents sont ignors.
+     * @param recherche Mots recherchs, spars par des espaces.
+     * @return Les rendez-vous trouvs, dans l'ordre chronologique.
+     * @see IndexTexte#cherche(String)
+     */
+    public RendezVous[] recherche(String recherche) {
+        return indexTexte.cherche(recherche);
+    }
+
+    /**
+     * Retourne les crneaux libres de l'agenda d'au moins {@code duree}
+     * minutes dans la priode {@code [debut, fin[}.
+     * @param debut Minute poque du dbut de la priode.
+     * @param fin   Minute poque de la fin de la priode.
+     * @param duree Dure minimale d'un crneau, en minutes.
+     * @return Crneaux libres sous la forme
+     *         {@code {debut0, fin0, debut1, fin1, ...}}.
+     * @see ChercheurCreneaux#cherche(int, int, int)
+     */
+    public int[] creneauxLibres(int debut, int fin, int duree) {
+        return new ChercheurCreneaux(listeRdv, intervalles)
+               .cherche(debut, fin, duree);
+    }
+
+    /**
+     * Retourne les crneaux libres de l'agenda d'au moins {@code duree}
+     * minutes dans la priode {@code [debut, fin[}, limits chaque jour  la
+     * plage {@code [ouverture, fermeture[}.
+     * @param debut     Minute poque du dbut de la priode.
+     * @param fin       Minute poque de la fin de la priode.
+     * @param duree     Dure minimale d'un crneau, en minutes.
+     * @param ouverture Dbut de la plage, en minutes depuis minuit.
+     * @param fermeture Fin de la plage, en minutes depuis minuit.
+     * @return Crneaux libres sous la forme
+     *         {@code {debut0, fin0, debut1, fin1, ...}}.
+     * @see ChercheurCreneaux#setHoraires(int, int)
+     */
+    public int[] creneauxLibres(int debut, int fin, int duree,
+                                int ouverture, int fermeture) {
+        ChercheurCreneaux chercheur = new ChercheurCreneaux(listeRdv,
+                                                            intervalles);
+        chercheur.setHoraires(ouverture, fermeture);
+        return chercheur.cherche(debut, fin, duree);
+    }
+
+    /**
+     * Traite l'chec de l'inscription d'une modification dans le journal :
+     * la modification n'tant pas durable, un point de contrle est effectu
+     * aussitt afin de la sauvegarder avec tous les rendez-vous.
+     * @param ioEx L'erreur d'criture du journal.
+     */
+    private void echecJournal(IOException ioEx) {
+        System.err.println("Impossible d'crire dans le journal. " +
+                ioEx.getMessage());
+        if (!pointDeControle()) {
+            System.err.println("La modification n'a pas pu tre " +
+                               "sauvegarde.");
+        }
+    }
+
+    /**
+     * Effectue un point de contrle lorsque le journal dpasse
+     * {@code TAILLE_MAX_JOURNAL} oprations, afin de borner la dure de son
+     * rejeu au prochain lancement.
+     */
+    private void verifieJournal() {
+        if (journal.getNbOperations() >= TAILLE_MAX_JOURNAL) {
+            pointDeControle();
+        }
     }
     
     /**
@@ -247,21 +898,141 @@ public class Agenda {
         libelle = saisie.lireLibelle();
         description = saisie.lireDescription();
         nature = saisie.lireNature();
-        date = saisie.lireDate();
+        date = saisie.lireDate(contexte);
         heureDebut = saisie.lireHeure("dbut");
         heureFin = saisie.lireHeure("fin");
         
-        RendezVous rendezvous = new RendezVous(libelle, description,
-                                               nature, date,
+        RendezVous rendezvous = new RendezVous(contexte, libelle,
+                                               description, nature, date,
                                                heureDebut, heureFin);
         
+        RendezVous[] conflits = conflits(rendezvous);
+        if (conflits.length > 0) {
+            System.out.println(conflits.length == 1 ?
+                    "Attention : ce rendez-vous est en conflit avec "
+                    + conflits[0].getLibelle() + "." :
+                    "Attention : ce rendez-vous est en conflit avec "
+                    + conflits.length + " rendez-vous.");
+        }
+        
         // TODO Affichage du retour si Config.getConfirmRdv vaut TRUE
-        // TODO Ajouter le rendezVous dans listeRdv
-        System.out.println("\n\n" + rendezvous.getLibelle());
-        System.out.println(rendezvous.getDescription());
-        System.out.println(rendezvous.getNature());
-        System.out.println(rendezvous.getHoraireDebut());
-        System.out.println(rendezvous.getHoraireFin());
+        if (ajouteRdv(rendezvous)) {
+            System.out.println("\n\n" + rendezvous.getLibelle());
+            System.out.println(rendezvous.getDescription());
+            System.out.println(rendezvous.getNature(natures));
+            System.out.println(rendezvous.getHoraireDebut());
+            System.out.println(rendezvous.getHoraireFin());
+        } else {
+            System.out.println("Le rendez-vous n'a pas t ajout : un "
+                    + "rendez-vous de mmes horaires existe dj.");
+        }
+    }
+
+    /**
+     * Permet de lister les rendez-vous d'un jour, d'une semaine ou d'un mois.
+     */
+    public void listerRdv() {
+        System.out.println("\n\n" + Saisie.SEPARATEUR);
+        System.out.println("Lister les rendez-vous");
+        System.out.println(Saisie.SEPARATEUR);
+        
+        int periode = saisie.lirePeriode();
+        String date = saisie.lireDate(contexte);
+        RendezVous[] liste = listePeriode(periode,
+                                          Horaire.jourEpoque(contexte, date));
+        afficheRdv(liste);
+    }
+
+    /**
+     * Permet de rechercher des rendez-vous par mots-cls.
+     */
+    public void rechercherRdv() {
+        System.out.println("\n\n" + Saisie.SEPARATEUR);
+        System.out.println("Rechercher un rendez-vous");
+        System.out.println(Saisie.SEPARATEUR);
+        
+        afficheRdv(recherche(saisie.lireRecherche()));
+    }
+
+    /**
+     * Permet d'afficher le nombre de rendez-vous de chaque nature, puis de
+     * lister les rendez-vous d'une nature.
+     */
+    public void listerNature() {
+        System.out.println("\n\n" + Saisie.SEPARATEUR);
+        System.out.println("Lister les rendez-vous par nature");
+        System.out.println(Saisie.SEPARATEUR);
+        
+        for (Map.Entry<String, Integer> nature
+                : nbRdvParNature().entrySet()) {
+            System.out.println(nature.getKey() + " : " + nature.getValue()
+                               + " rendez-vous");
+        }
+        afficheRdv(indexNatures.nature(saisie.lireNature()));
+    }
+
+    /**
+     * Affiche une liste de rendez-vous,  raison d'une ligne par rendez-vous
+     * donnant son horaire, son libell et sa nature.
+     * @param liste Les rendez-vous  afficher.
+     */
+    private void afficheRdv(RendezVous[] liste) {
+        if (liste.length == 0) {
+            System.out.println("Aucun rendez-vous.");
+        }
+        StringBuilder ligne = new StringBuilder();
+        for (int i = 0; i < liste.length; i++) {
+            ligne.setLength(0);
+            Horaire.ajouteDate(ligne, liste[i].getDebut()).append(' ');
+            Horaire.ajouteHeure(ligne, liste[i].getDebut()).append(" - ");
+            Horaire.ajouteHeure(ligne, liste[i].getFin()).append("  ")
+                   .append(liste[i].getLibelle()).append(" (")
+                   .append(liste[i].getNature(natures)).append(')');
+            System.out.println(ligne);
+        }
+    }
+
+    /**
+     * Permet de lister les crneaux disponibles entre deux dates, d'une dure
+     * minimale et compris dans une plage horaire de chaque journe.
+     */
+    public void listerCreneaux() {
+        System.out.println("\n\n" + Saisie.SEPARATEUR);
+        System.out.println("Lister les crneaux disponibles");
+        System.out.println(Saisie.SEPARATEUR);
+        
+        int premierJour = Horaire.jourEpoque(contexte,
+                                             saisie.lireDate(contexte));
+        int dernierJour = Horaire.jourEpoque(contexte,
+                                             saisie.lireDate(contexte));
+        int duree = saisie.lireDuree();
+        int ouverture = Horaire.minuteJour(saisie.lireHeure("dbut"));
+        int fermeture = Horaire.minuteJour(saisie.lireHeure("fin"));
+        if (   fermeture > Calendrier.MINUTES_PAR_JOUR 
+            || ouverture >= fermeture) {
+            System.err.println("Plage horaire invalide : recherche sur la " +
+                               "journe entire.");
+            ouverture = 0;
+            fermeture = Calendrier.MINUTES_PAR_JOUR;
+        }
+        
+        int[] creneaux = creneauxLibres(
+                premierJour * Calendrier.MINUTES_PAR_JOUR,
+                (dernierJour + 1) * Calendrier.MINUTES_PAR_JOUR,
+                duree, ouverture, fermeture);
+        
+        if (creneaux.length == 0) {
+            System.out.println("Aucun crneau disponible.");
+        }
+        StringBuilder ligne = new StringBuilder();
+        for (int i = 0; i < creneaux.length; i += 2) {
+            ligne.setLength(0);
+            Horaire.ajouteDate(ligne, creneaux[i]).append(' ');
+            Horaire.ajouteHeure(ligne, creneaux[i]).append(" - ");
+            Horaire.ajouteDate(ligne, creneaux[i+1]).append(' ');
+            Horaire.ajouteHeure(ligne, creneaux[i+1]);
+            System.out.println(ligne);
+        }
     }
 
     /**
@@ -277,36 +1048,39 @@ public class Agenda {
      * classe {@code RendezVous}. Si le {@code RendezVous}  insrer n'est pas
      * prsent dans le tableau de {@code RendezVous}, alors on augmente d'un
      * slot la taille du tableau de {@code RendezVous}.
+     * <p>Le tableau tant agrandi, c'est le tableau retourn qui contient le
+     * {@code RendezVous} insr. Les rendez-vous de l'agenda sont quant  eux
+     * rangs dans une {@code ListeRendezVous}.</p>
      * @param listeRdv Le tableau de {@code RendezVous} tri o sera insr le 
      *                 rendez-vous {@code aInserer} mis en argument.
      * @param aInserer Le {@code RendezVous}  insr dans {@code listeRdv}.
+     * @return Le tableau de {@code RendezVous} aprs insertion.
      */
-    public static void insertRdv(RendezVous[] listeRdv, RendezVous aInserer) {
-
-        /* On agrandit le tableau d'une case */
-        int i = 0;
+    public static RendezVous[] insertRdv(RendezVous[] listeRdv,
+                                         RendezVous aInserer) {
+        int i;
         
         /* On regarde o doit tre insr le rendez-vous */
         for(i=0;i < listeRdv.length && listeRdv[i].compareTo(aInserer) < 0;i++);
         
         /* 
-         * Si le rendez-vous n'est pas  insrer  la fin de la liste
-         * et qu'il n'existe pas dj dans le tableau
+         * Si le rendez-vous est  insrer  la fin de la liste
+         * ou qu'il n'existe pas dj dans le tableau
          */
-        if(!listeRdv[i].equals(aInserer)) {
+        if(i == listeRdv.length || !listeRdv[i].equals(aInserer)) {
+            /* On agrandit le tableau d'une case */
             listeRdv = Arrays.copyOf(listeRdv, listeRdv.length+1);
             /* 
              * On dplace tout les rendez-vous placs aprs le rendez-vous
-             *  supprimer d'un indice vers la gauche.
+             *  insrer d'un indice vers la droite.
              */
-            for(int j = listeRdv.length-1; i < j; i--) {
+            for(int j = listeRdv.length-1; i < j; j--) {
                 listeRdv[j] = listeRdv[j-1];
             }
+            /* On insre le rendez-vous dans le tableau */
             listeRdv[i] = aInserer;
         }
-        
-        /* On insre le rendez-vous dans le tableau */
-        
+        return listeRdv;
     }
     
     /**
@@ -321,22 +1095,25 @@ public class Agenda {
      * Lors de la suppression du {@code RendezVous}, on recherche sa position 
      * dans le tablea de {@code RendezVous}  l'aide de la mthode 
      * {@code compareTo(RendezVous)} de la classe {@code RendezVous}.
+     * <p>Le tableau tant diminu, c'est le tableau retourn qui ne contient
+     * plus le {@code RendezVous} supprim. Les rendez-vous de l'agenda sont
+     * quant  eux rangs dans une {@code ListeRendezVous}.</p>
      * @param listeRdv   Le tableau de {@code RendezVous} tri o sera supprim
      *                   le rendez-vous {@code aSupprimer} mis en argument.
      * @param aSupprimer Le {@code RendezVous}  supprimer dans 
      *                   {@code listeRdv}.
+     * @return Le tableau de {@code RendezVous} aprs suppression.
      */
-    public static void supprimeRdv(RendezVous[] listeRdv,
-                                   RendezVous aSupprimer) {
-        /* On agrandit le tableau d'une case */
-        int i = 0;
+    public static RendezVous[] supprimeRdv(RendezVous[] listeRdv,
+                                           RendezVous aSupprimer) {
+        int i;
         
         /* On cherche le rendez-vous  supprimer parmis la liste */
         for(i=0; i < listeRdv.length 
-                 && !(listeRdv[i].compareTo(aSupprimer) < 0); i++);
+                 && listeRdv[i].compareTo(aSupprimer) < 0; i++);
         
         /* Si le rendez-vous a t trouv */
-        if(listeRdv[i].equals(aSupprimer) && i < listeRdv.length) {
+        if(i < listeRdv.length && listeRdv[i].equals(aSupprimer)) {
             
             /* 
              * On dplace tout les rendez-vous placs aprs le rendez-vous
@@ -351,41 +1128,38 @@ public class Agenda {
              */
             listeRdv = Arrays.copyOf(listeRdv, listeRdv.length-1);
         }
+        return listeRdv;
     }
 
     /**
      * Sauvegarde un tableau de {@code RendezVous} dans le fichier respectif.
-     * Si le tableau est un tableau nul ou vide, rien ne sera effectu. Une
+     * Si le tableau est un tableau nul, rien ne sera effectu. Une
      * ligne de ce fichier correspondra  un {@code RendezVous}. Les
      * informations spcifiques  ce {@code RendezVous} seront cris de la
      * faon suivante : 
      * {@code (date)::(heureDebut)::(heureFin)::libell::nature::description}
      * <br>Exemple : 6/5/2012::8h00::20h00::lection::personnel::Absence de DSK
-     * @param listeRdv Le tableau de {@code RendezVous}  sauvegarder.
+     * <p>Les rendez-vous sont d'abord crits dans un fichier temporaire, qui
+     * remplace ensuite le fichier de sauvegarde de faon atomique : une
+     * sauvegarde interrompue laisse intacte la sauvegarde prcdente.</p>
+     * @param listeRdv   Le tableau de {@code RendezVous}  sauvegarder.
+     * @param durabilite Niveau de durabilit de la sauvegarde.
      * @return {@code TRUE} si la sauvegarde a t effectu.
+     * @see jagenda.util.Fichier#remplace(Fichier, int)
      */
-    @SuppressWarnings("null")
-    public static boolean sauveRdv(RendezVous[] listeRdv) {
+    public boolean sauveRdv(RendezVous[] listeRdv, int durabilite) {
         boolean aRetourner = true;
-        if(listeRdv != null || listeRdv.length != 0) {
+        if(listeRdv != null) {
             try {
                 /* 
                  * Instanciation d'un objet de type Fichier reprsentant le
                  * fichier de sauvegarde des rendezVous.
                  */
-                Fichier sauvegarde = new Fichier(CHEMIN_SAUV, FICHIER_SAUV);
-                
-                sauvegarde.initEcriture(false);
-                for (int i = 0; i < listeRdv.length; i++) {
-                    sauvegarde.ecrire(
-                        listeRdv[i].getHoraireDebut().getDate() + "::"+
-                        listeRdv[i].getHoraireDebut().getHeure() +"::"+
-                        listeRdv[i].getHoraireFin().getHeure()  + "::"+ 
-                        listeRdv[i].getLibelle() + ":: " +
-                        listeRdv[i].getNature() + "::" +
-                        listeRdv[i].getDescription());
-                }
-                sauvegarde.fermeEcriture();
+                Fichier sauvegarde = new Fichier(cheminSauv, FICHIER_SAUV);
+                Fichier temporaire = new Fichier(cheminSauv, FICHIER_SAUV
+                                                 + EXTENSION_TEMPORAIRE);
+                ecrisRdv(listeRdv, natures, temporaire);
+                temporaire.remplace(sauvegarde, durabilite);
             } catch (FileNotFoundException fileEx) {
                 // Nom ou chemin de fichier incorrect.
                 aRetourner = false;
@@ -396,6 +1170,127 @@ public class Agenda {
         }
         return aRetourner;
     }
+
+    /**
+     * crit un tableau de {@code RendezVous} dans un {@code Fichier} au format
+     * texte,  raison d'une ligne par {@code RendezVous}. Le contenu prcdent
+     * du {@code Fichier} est cras.<br>
+     * Chaque ligne est prpare dans un mme {@code StringBuilder}, rutilis
+     * d'un {@code RendezVous}  l'autre, et les lignes sont crites par lot :
+     * le {@code Fichier} n'est crit que lorsque le tampon d'criture est 
+     * plein, puis une dernire fois  la fin.<br>
+     * Les lignes de donnes sont prcdes d'un en-tte annonant leur nombre
+     * et les annes des rendez-vous, et suivies d'une ligne de contrle
+     * donnant leur somme CRC32C, calcule au fil de l'criture.
+     * @param listeRdv Le tableau de {@code RendezVous}  crire.
+     * @param natures  Dictionnaire des natures des rendez-vous.
+     * @param fichier  Le {@code Fichier} o crire les rendez-vous.
+     * @throws IOException est gnr si le {@code Fichier} ne peut pas tre
+     *                     crit.
+     * @see #sauveRdv(RendezVous[], int)
+     */
+    public static void ecrisRdv(RendezVous[] listeRdv,
+                                DictionnaireNatures natures, Fichier fichier)
+            throws IOException {
+        StringBuilder ligne = new StringBuilder(128);
+        CRC32C controle = new CRC32C();
+        int anneeMin = 0;
+        int anneeMax = 0;
+        for (int i = 0; i < listeRdv.length; i++) {
+            int annee = Calendrier.date(Calendrier.jourDeMinute(
+                                        listeRdv[i].getDebut())) / 10000;
+            if (i == 0 || annee < anneeMin) {
+                anneeMin = annee;
+            }
+            if (i == 0 || annee > anneeMax) {
+                anneeMax = annee;
+            }
+        }
+
+        fichier.initEcriture(false, TAILLE_TAMPON_SAUV, controle);
+        try {
+            fichier.ecrire(ChargeurRdv.ligneEntete(listeRdv.length,
+                                                   anneeMin, anneeMax));
+            fichier.commit();
+            controle.reset();
+            for (int i = 0; i < listeRdv.length; i++) {
+                ligne.setLength(0);
+                fichier.ecrire(ligneRdv(listeRdv[i], natures, ligne));
+            }
+            fichier.commit();
+            fichier.ecrire(ChargeurRdv.ligneControle(controle.getValue()));
+            fichier.commit();
+        } finally {
+            fichier.fermeEcriture();
+        }
+    }
+
+    /**
+     * Retourne la ligne reprsentant un {@code RendezVous} dans un fichier de
+     * sauvegarde au format texte, sans fin de ligne.
+     * @param rdv     Le {@code RendezVous}  reprsenter.
+     * @param natures Dictionnaire des natures du {@code RendezVous}.
+     * @return Ligne de donnes du {@code RendezVous}.
+     * @see #sauveRdv(RendezVous[], int)
+     */
+    public static String ligneRdv(RendezVous rdv,
+                                  DictionnaireNatures natures) {
+        return ligneRdv(rdv, natures, new StringBuilder(128)).toString();
+    }
+
+    /**
+     * Ajoute la ligne reprsentant un {@code RendezVous} dans un fichier de
+     * sauvegarde au format texte, sans fin de ligne,  la fin d'un
+     * {@code StringBuilder}.
+     * @param rdv     Le {@code RendezVous}  reprsenter.
+     * @param natures Dictionnaire des natures du {@code RendezVous}.
+     * @param sb      Le {@code StringBuilder} o ajouter la ligne.
+     * @return Le {@code StringBuilder} {@code sb}.
+     * @see #ligneRdv(RendezVous, DictionnaireNatures)
+     */
+    public static StringBuilder ligneRdv(RendezVous rdv,
+                                         DictionnaireNatures natures,
+                                         StringBuilder sb) {
+        Horaire.ajouteDate(sb, rdv.getDebut()).append("::");
+        Horaire.ajouteHeure(sb, rdv.getDebut()).append("::");
+        Horaire.ajouteHeure(sb, rdv.getFin()).append("::");
+        return sb.append(rdv.getLibelle()).append(":: ")
+                 .append(rdv.getNature(natures)).append("::")
+                 .append(rdv.getDescription());
+    }
+
+    /**
+     * Sauvegarde un tableau de {@code RendezVous} dans le fichier de
+     * sauvegarde au format binaire.
+     * Si le tableau est un tableau nul, rien ne sera effectu.
+     * Comme au format texte, la sauvegarde est crite dans un fichier
+     * temporaire qui remplace ensuite le fichier de sauvegarde de faon
+     * atomique.
+     * @param listeRdv   Le tableau de {@code RendezVous}  sauvegarder.
+     * @param durabilite Niveau de durabilit de la sauvegarde.
+     * @return {@code TRUE} si la sauvegarde a t effectu.
+     * @see SauvegardeBinaire
+     * @see #sauveRdv(RendezVous[], int)
+     */
+    public boolean sauveRdvBinaire(RendezVous[] listeRdv,
+                                   int durabilite) {
+        boolean aRetourner = true;
+        if(listeRdv != null) {
+            try {
+                Fichier sauvegarde = new Fichier(cheminSauv,
+                                                 FICHIER_SAUV_BINAIRE);
+                Fichier temporaire = new Fichier(cheminSauv,
+                                                 FICHIER_SAUV_BINAIRE
+                                                 + EXTENSION_TEMPORAIRE);
+                new SauvegardeBinaire(temporaire, natures).sauve(listeRdv);
+                temporaire.remplace(sauvegarde, durabilite);
+            } catch (IOException ioEx) {
+                // Nom ou chemin de fichier incorrect, droits d'accs ?
+                aRetourner = false;
+            }
+        }
+        return aRetourner;
+    }
         
     /**
      * Retourne les {@code RendezVous} du tableau de {@code RendezVous} en 
@@ -403,6 +1298,8 @@ public class Agenda {
      * en conflit avec un autre {@code RendezVous} si son horaire de dbut
      * est infrieur  l'horaire de fin de l'autre {@code RendezVous} et que son
      * horaire de fin est suprieur  son horaire de dbut.<br>
+     * Le tableau est parcouru en entier : pour les rendez-vous d'un agenda,
+     * {@link #conflits(RendezVous)} utilise l'index des horaires.
      * @param listeRdv
      * @param aComparer
      * @return Les rendez-vous en conflits
@@ -410,27 +1307,27 @@ public class Agenda {
     public static RendezVous[] conflitRdv(RendezVous[] listeRdv,
                                           RendezVous aComparer) {
         
-        RendezVous[] aRenvoyer = new RendezVous[0];
+        RendezVous[] aRenvoyer = new RendezVous[listeRdv.length];
+        int nbConflits = 0;
             
         for(int i=0; i < listeRdv.length; i++) {
             
-            if (aComparer.getHoraireFin().compareTo(listeRdv[i].getHoraireDebut()) > 0
-                && aComparer.getHoraireDebut().compareTo(listeRdv[i].getHoraireFin()) < 0) {
+            if (   aComparer.getFin() > listeRdv[i].getDebut()
+                && aComparer.getDebut() < listeRdv[i].getFin()) {
 
-                aRenvoyer = Arrays.copyOf(aRenvoyer, aRenvoyer.length+1);
-                aRenvoyer[aRenvoyer.length-1] = listeRdv[i];
+                aRenvoyer[nbConflits++] = listeRdv[i];
             }
         }
-        return aRenvoyer;
+        return Arrays.copyOf(aRenvoyer, nbConflits);
     }
     
     /**
      * Lecture des {@code RendezVous} enregistrs dans le fichier de sauvegarde.
-     * Ce fichier se trouve dans le repertoire {@code CHEMIN_SAUV} portant pour
-     * nom {@code FICHIER_SAUV}.<br>
+     * Ce fichier se trouve dans le dossier de sauvegarde de l'agenda et porte
+     * pour nom {@code FICHIER_SAUV}.<br>
      * Chaque ligne de ce fichier reprsente un {@code RendezVous} enregistr au 
-     * format {@code STRUCTURE_DONNEES}. Dans le cas contraire, on dit que la 
-     * donne est incorrecte.<br><br>
+     * format suivant. Dans le cas contraire, on dit que la donne est
+     * incorrecte.<br><br>
      * <i>Exemple :<br>
      * {@code jj/mm/yyyy::hh:mm::HH:MM::(libelle)::(nature)::(description)}</i>
      * <br>o :
@@ -439,43 +1336,40 @@ public class Agenda {
      *     <li>{@code yyyy} correspond  l'anne de la date,</li> 
      *     <li>{@code hh:mm} correspond  l'heure de dbut,</li>
      *     <li>{@code HH:MM} correspond  l'heure de fin.</li></ul>
-     * Chaque donne est spare par la suite de caractres {@code ::}.
+     * Chaque donne est spare par la suite de caractres {@code ::}.<br>
+     * Le fichier est charg en une seule passe par un {@code ChargeurRdv},
+     * en parallle si plusieurs processeurs sont disponibles. Les rendez-vous
+     * sont retourns tris par horaire.
      *  
      * @return Liste des rendez-vous inscrits dans le fichier de sauvegarde.
+     * @see ChargeurRdv
      */
-    public static RendezVous[] listeRendezVous() {
+    public RendezVous[] listeRendezVous() {
 
         // Tableau qui contiendra la liste des rendez-vous  retourner.
         RendezVous[] listeARetourner = null;
 
         try {
-            String ligne;    // Contient la ligne  l'index i
-            int nbErreur = 0;// Contient le nombre de lignes de donnes errones
-            Matcher donnees;
-
-            Fichier fichierSauv = new Fichier(CHEMIN_SAUV, FICHIER_SAUV);
-            fichierSauv.initLecture();
-
-            listeARetourner = new RendezVous[0];
-
-            int i = 0;      // Indice de la ligne lue
-            while((ligne = fichierSauv.lireLigne()) != null) {
-                donnees = STRUCTURE_DONNEES.matcher(ligne);
-                if((donnees.matches())) {
-                    listeARetourner = Arrays.copyOf(listeARetourner,
-                            listeARetourner.length+1);
-                    listeARetourner[i] = new RendezVous(donnees);
-                } else {
-                    // La ligne est incorrecte
-                    nbErreur++;
-                }
-                i++;
+            int nbErreur;   // Contient le nombre de lignes de donnes errones
+
+            Fichier fichierSauv = new Fichier(cheminSauv, FICHIER_SAUV);
+            ChargeurRdv chargeur = new ChargeurRdv(fichierSauv, natures);
+
+            if (Runtime.getRuntime().availableProcessors() > 1) {
+                listeARetourner = chargeur.chargeParallele();
+            } else {
+                listeARetourner = chargeur.charge();
             }
+            nbErreur = chargeur.getNbErreur();
             if(nbErreur > 0) {
                 System.err.println(nbErreur == 1 ? 
                         nbErreur + " rendez-vous n'a pas pu tre charg." :
                             nbErreur + " rendez-vous n'ont pas pu tre charg.");
             }
+            if (chargeur.estCorrompu()) {
+                System.err.println("Le fichier de sauvegarde est corrompu : "
+                        + "des rendez-vous ont pu tre perdus.");
+            }
         } catch (FileNotFoundException fileEx) {
             /*
              * 1. C'est peut-tre la premire fois que le logiciel est lanc.
@@ -493,4 +1387,73 @@ public class Agenda {
         }
         return listeARetourner;
     }
+
+    /**
+     * Parcours des {@code RendezVous} enregistrs dans le fichier de
+     * sauvegarde au format texte, sans les charger tous en mmoire.<br>
+     * Chaque ligne n'est analyse qu'au moment o le {@code RendezVous}
+     * suivant est demand : un export, un dcompte ou la recherche des 
+     * prochains rendez-vous peuvent ainsi lire le fichier en mmoire
+     * constante, et s'arrter avant sa fin.
+     *  
+     * @return Itrateur sur les rendez-vous du fichier de sauvegarde, dans
+     *         l'ordre du fichier. Les lignes incorrectes sont ignores.
+     * @throws FileNotFoundException est gnr si le fichier de sauvegarde
+     *                               n'existe pas.
+     * @throws IOException           est gnr si le fichier de sauvegarde ne
+     *                               peut pas tre lu.
+     * @see ChargeurRdv#parcours()
+     */
+    public Iterator<RendezVous> parcoursRendezVous()
+            throws IOException {
+        return new ChargeurRdv(new Fichier(cheminSauv, FICHIER_SAUV),
+                               natures).parcours();
+    }
+
+    /**
+     * Lecture des {@code RendezVous} enregistrs dans le fichier de sauvegarde
+     * au format binaire. Ce fichier se trouve dans le dossier de sauvegarde
+     * de l'agenda et porte pour nom {@code FICHIER_SAUV_BINAIRE}.<br>
+     * Si ce fichier n'existe pas encore, par exemple juste aprs tre pass du
+     * format texte au format binaire, les rendez-vous sont lus dans le fichier
+     * de sauvegarde au format texte.
+     *  
+     * @return Liste des rendez-vous inscrits dans le fichier de sauvegarde.
+     * @see SauvegardeBinaire
+     * @see #listeRendezVous()
+     */
+    public RendezVous[] listeRendezVousBinaire() {
+
+        // Tableau qui contiendra la liste des rendez-vous  retourner.
+        RendezVous[] listeARetourner = null;
+
+        try {
+            int nbErreur;   // Contient le nombre d'enregistrements errons
+
+            Fichier fichierSauv = new Fichier(cheminSauv,
+                                              FICHIER_SAUV_BINAIRE);
+            if (fichierSauv.getFichierSysteme().exists()) {
+                SauvegardeBinaire sauvegarde =
+                        new SauvegardeBinaire(fichierSauv, natures);
+                listeARetourner = sauvegarde.charge();
+                nbErreur = sauvegarde.getNbErreur();
+                if(nbErreur > 0) {
+                    System.err.println(nbErreur == 1 ? 
+                        nbErreur + " rendez-vous n'a pas pu tre charg." :
+                            nbErreur + " rendez-vous n'ont pas pu tre charg.");
+                }
+            } else {
+                // Premire utilisation du format binaire
+                listeARetourner = listeRendezVous();
+            }
+        } catch (IOException ioEx) {
+            /*
+             * 1. Le fichier n'est pas un fichier de sauvegarde binaire.
+             * 2. Problme de droit d'accs ?
+             */
+            System.err.println("Impossible de lire le fichier. " + 
+                    ioEx.getMessage());
+        }
+        return listeARetourner;
+    }
 }
@@ -0,0 +1,349 @@
+/*
+ * Fichier :	AnalyseurRdv.java
+ * Package :	jagenda
+ * Projet jAgenda - Info 1 2011-2012
+ *
+ */
+package jagenda;
+
+import java.util.Arrays;
+
+import jagenda.util.Fichier;
+
+/**
+ * Classe {@code AnalyseurRdv} analyse une ligne de donnes du fichier de
+ * sauvegarde et construit le {@code RendezVous} correspondant.<br>
+ * La ligne est parcourue une seule fois, octet par octet : le jour, le mois,
+ * l'anne, les heures et les minutes sont lus directement sous forme
+ * d'entiers, sans expression rgulire ni chane de caractres
+ * intermdiaire.<br><br>
+ * <i>Format d'une ligne :<br>
+ * {@code jj/mm/aaaa::hh:mm::HH:MM::(libelle)::(nature)::(description)}</i>
+ * <br>o le jour, le mois, les heures et les minutes comptent 1 ou 2 chiffres
+ * et l'anne 4 chiffres. Les heures et les minutes sont spares par
+ * {@code h}, {@code H} ou {@code :}. La description contient le reste de la
+ * ligne.<br><br>
+ * Un fichier de sauvegarde compte en gnral plusieurs rendez-vous par jour :
+ * le jour poque de chaque date dj valide est conserv dans un cache de
+ * taille fixe, index par la date condense {@code aaaammjj}. Une date dj
+ * rencontre n'est ainsi ni revalide ni reconvertie. Le nombre de
+ * recherches et de succs du cache permet d'en ajuster la capacit.<br>
+ * La nature est code par le dictionnaire des natures de l'agenda, qui peut
+ * tre partag par les analyseurs de plusieurs fils d'excution.<br><br>
+ * Un {@code AnalyseurRdv} conserve la position de lecture de la ligne en
+ * cours d'analyse : il ne doit pas tre partag entre plusieurs fils
+ * d'excution.
+ *
+ * @author  Jason BOURLARD
+ * @author  David PELISSIER
+ * @version 0.3
+ */
+public class AnalyseurRdv {
+
+    /** Capacit par dfaut du cache des dates, puissance de 2. */
+    public static final int CAPACITE_CACHE = 512;
+
+    /** Valeur du cache pour une date invalide. */
+    private static final int DATE_INVALIDE = Integer.MIN_VALUE;
+
+    /** Cl d'une case vide du cache. */
+    private static final int CASE_VIDE = -1;
+
+    /** Dictionnaire des natures de l'agenda. */
+    private final DictionnaireNatures natures;
+
+    /** Dates condenses {@code aaaammjj} des cases du cache. */
+    private final int[] clesCache;
+
+    /** Jours poque des dates du cache, ou {@code DATE_INVALIDE}. */
+    private final int[] joursCache;
+
+    /** Dcalage ramenant le hachage d'une date  un indice du cache. */
+    private final int decalage;
+
+    /** Nombre de recherches dans le cache des dates. */
+    private long nbRecherches;
+
+    /** Nombre de recherches ayant trouv la date dans le cache. */
+    private long nbSucces;
+
+    /** Nombre de cases occupes du cache. */
+    private int nbDates;
+
+    /** Octets de la ligne en cours d'analyse. */
+    private byte[] ligne;
+
+    /** Position de lecture dans la ligne en cours d'analyse. */
+    private int pos;
+
+    /** Indice suivant le dernier octet de la ligne en cours d'analyse. */
+    private int fin;
+
+    /** {@code true} si une erreur de format a t rencontre. */
+    private boolean erreur;
+
+    /**
+     * Constructeur paramtrable prenant en argument le dictionnaire des
+     * natures : le cache des dates a une capacit de {@code CAPACITE_CACHE}
+     * dates.
+     *
+     * @param natures Dictionnaire des natures de l'agenda.
+     */
+    public AnalyseurRdv(DictionnaireNatures natures) {
+        this(natures, CAPACITE_CACHE);
+    }
+
+    /**
+     * Constructeur paramtrable prenant en argument le dictionnaire des
+     * natures et la capacit du cache des dates, arrondie  la puissance de
+     * 2 suprieure.
+     *
+     * @param natures       Dictionnaire des natures de l'agenda.
+     * @param capaciteCache Nombre de dates que peut contenir le cache, au
+     *                      moins 1.
+     */
+    public AnalyseurRdv(DictionnaireNatures natures, int capaciteCache) {
+        int capacite = Integer.highestOneBit(Math.max(1, capaciteCache));
+        if (capacite < capaciteCache) {
+            capacite *= 2;
+        }
+        this.natures = natures;
+        this.clesCache = new int[capacite];
+        this.joursCache = new int[capacite];
+        this.decalage = 32 - Integer.numberOfTrailingZeros(capacite);
+        Arrays.fill(this.clesCache, CASE_VIDE);
+        this.nbRecherches = 0;
+        this.nbSucces = 0;
+        this.nbDates = 0;
+    }
+
+    /**
+     * Accesseur pour le champ {@code nbRecherches}.
+     *
+     * @return Nombre de dates recherches dans le cache.
+     */
+    public long getNbRecherches() {
+        return nbRecherches;
+    }
+
+    /**
+     * Accesseur pour le champ {@code nbSucces}.
+     *
+     * @return Nombre de dates trouves dans le cache.
+     */
+    public long getNbSucces() {
+        return nbSucces;
+    }
+
+    /**
+     * Retourne le taux de succs du cache des dates.
+     *
+     * @return Proportion, de 0  1, des dates trouves dans le cache ; 0 si
+     *         aucune date n'a t recherche.
+     */
+    public double getTauxSucces() {
+        return nbRecherches == 0 ? 0 : (double) nbSucces / nbRecherches;
+    }
+
+    /**
+     * Accesseur pour le champ {@code nbDates}.
+     *
+     * @return Nombre de dates conserves dans le cache.
+     */
+    public int getNbDates() {
+        return nbDates;
+    }
+
+    /**
+     * Retourne la capacit du cache des dates.
+     *
+     * @return Nombre maximal de dates conserves dans le cache.
+     */
+    public int getCapaciteCache() {
+        return clesCache.length;
+    }
+
+    /**
+     * Analyse une ligne de donnes.
+     *
+     * @param ligne Octets contenant la ligne, encode en Latin-1.
+     * @param debut Indice du premier octet de la ligne.
+     * @param fin   Indice suivant le dernier octet de la ligne (hors fin de
+     *              ligne).
+     * @return Le {@code RendezVous} lu, ou {@code null} si la ligne est
+     *         incorrecte.
+     */
+    public RendezVous analyse(byte[] ligne, int debut, int fin) {
+        RendezVous rdv = null;
+
+        this.ligne  = ligne;
+        this.pos    = debut;
+        this.fin    = fin;
+        this.erreur = false;
+
+        // Date
+        int jour  = lireNombre(1, 2);
+        lireCaractere('/');
+        int mois  = lireNombre(1, 2);
+        lireCaractere('/');
+        int annee = lireNombre(4, 4);
+        lireSeparateur();
+
+        // Heure de dbut
+        int heureDebut  = lireNombre(1, 2);
+        lireSeparateurHeure();
+        int minuteDebut = lireNombre(1, 2);
+        lireSeparateur();
+
+        // Heure de fin
+        int heureFin  = lireNombre(1, 2);
+        lireSeparateurHeure();
+        int minuteFin = lireNombre(1, 2);
+        lireSeparateur();
+
+        // Libell, nature et description
+        String libelle = lireChamp(true);
+        String nature  = lireChamp(true);
+        String description = lireChamp(false);
+
+        int jourEpoque = this.erreur ? DATE_INVALIDE
+                                     : jourEpoque(annee, mois, jour);
+        if (   jourEpoque != DATE_INVALIDE
+            && Calendrier.estHeureValide(heureDebut, minuteDebut)
+            && Calendrier.estHeureValide(heureFin, minuteFin)) {
+            int minuteJour = jourEpoque * Calendrier.MINUTES_PAR_JOUR;
+            rdv = new RendezVous(libelle, natures.code(nature), description,
+                                 minuteJour + heureDebut * 60 + minuteDebut,
+                                 minuteJour + heureFin * 60 + minuteFin);
+        }
+        this.ligne = null;
+        return rdv;
+    }
+
+    /**
+     * Retourne le jour poque d'une date, lu dans le cache des dates si elle
+     * y figure, sinon valid, calcul puis conserv dans le cache  la place
+     * de la date qui occupait sa case.
+     *
+     * @param annee Anne de la date, sur 4 chiffres.
+     * @param mois  Mois de la date, sur 1 ou 2 chiffres.
+     * @param jour  Jour de la date, sur 1 ou 2 chiffres.
+     * @return Jour poque de la date, ou {@code DATE_INVALIDE}.
+     */
+    private int jourEpoque(int annee, int mois, int jour) {
+        int cle = (annee * 100 + mois) * 100 + jour;
+        int indice = (cle * 0x9E3779B9) >>> this.decalage
+                     & (this.clesCache.length - 1);
+
+        this.nbRecherches++;
+        if (this.clesCache[indice] == cle) {
+            this.nbSucces++;
+        } else {
+            if (this.clesCache[indice] == CASE_VIDE) {
+                this.nbDates++;
+            }
+            this.clesCache[indice] = cle;
+            this.joursCache[indice] = Calendrier.estDateValide(annee, mois,
+                                                               jour)
+                                      ? Calendrier.jourEpoque(annee, mois,
+                                                              jour)
+                                      : DATE_INVALIDE;
+        }
+        return this.joursCache[indice];
+    }
+
+    /**
+     * Lit un nombre d'au moins {@code min} et d'au plus {@code max} chiffres
+     *  la position courante.
+     *
+     * @param min Nombre minimal de chiffres.
+     * @param max Nombre maximal de chiffres.
+     * @return Valeur du nombre lu, 0 en cas d'erreur.
+     */
+    private int lireNombre(int min, int max) {
+        int valeur = 0;
+        int nb = 0;
+        if (!this.erreur) {
+            while (   this.pos < this.fin && nb < max
+                   && '0' <= this.ligne[this.pos]
+                   && this.ligne[this.pos] <= '9') {
+                valeur = 10*valeur + (this.ligne[this.pos] - '0');
+                this.pos++;
+                nb++;
+            }
+            this.erreur = nb < min;
+        }
+        return valeur;
+    }
+
+    /**
+     * Lit le caractre attendu  la position courante.
+     *
+     * @param attendu Caractre attendu.
+     */
+    private void lireCaractere(char attendu) {
+        if (!this.erreur) {
+            this.erreur = this.pos >= this.fin
+                          || this.ligne[this.pos] != attendu;
+            this.pos++;
+        }
+    }
+
+    /**
+     * Lit le sparateur entre les heures et les minutes : {@code h},
+     * {@code H} ou {@code :}.
+     */
+    private void lireSeparateurHeure() {
+        if (!this.erreur) {
+            this.erreur = this.pos >= this.fin
+                          || (   this.ligne[this.pos] != 'h'
+                              && this.ligne[this.pos] != 'H'
+                              && this.ligne[this.pos] != ':');
+            this.pos++;
+        }
+    }
+
+    /**
+     * Lit le sparateur de champs {@code ::}.
+     */
+    private void lireSeparateur() {
+        lireCaractere(':');
+        lireCaractere(':');
+    }
+
+    /**
+     * Lit un champ textuel non vide  partir de la position courante.
+     *
+     * @param separe {@code true} si le champ se termine par le sparateur
+     *               {@code ::}, {@code false} s'il s'tend jusqu' la fin de
+     *               la ligne.
+     * @return Contenu du champ, {@code null} en cas d'erreur.
+     */
+    private String lireChamp(boolean separe) {
+        String champ = null;
+        if (!this.erreur) {
+            int debut = this.pos;
+            int finChamp = this.fin;
+            if (separe) {
+                finChamp = debut;
+                while (   finChamp < this.fin-1
+                       && !(   this.ligne[finChamp] == ':'
+                            && this.ligne[finChamp+1] == ':')) {
+                    finChamp++;
+                }
+                if (finChamp >= this.fin-1) {
+                    // Le sparateur n'a pas t trouv
+                    finChamp = this.fin;
+                    this.erreur = true;
+                }
+            }
+            this.erreur = this.erreur || finChamp == debut;
+            if (!this.erreur) {
+                champ = new String(this.ligne, debut, finChamp - debut,
+                                   Fichier.ENCODAGE);
+            }
+            this.pos = finChamp + 2;
+        }
+        return champ;
+    }
+}
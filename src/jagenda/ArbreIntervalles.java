@@ -0,0 +1,356 @@
+/*
+ * Fichier :	ArbreIntervalles.java
+ * Package :	jagenda
+ * Projet jAgenda - Info 1 2011-2012
+ *
+ */
+package jagenda;
+
+import java.util.Arrays;
+
+/**
+ * Classe {@code ArbreIntervalles} indexe les {@code RendezVous} d'un agenda
+ * par leur intervalle {@code [debut, fin[} afin de retrouver rapidement ceux
+ * qui sont en conflit avec un horaire donn.<br>
+ * Il s'agit d'un arbre binaire de recherche quilibr (AVL), ordonn selon
+ * {@link RendezVous#ORDRE_CHRONOLOGIQUE}, dont chaque noeud retient la plus
+ * grande fin de son sous-arbre. Une recherche de conflits carte ainsi les
+ * sous-arbres qui se terminent avant l'horaire recherch ou qui commencent
+ * aprs lui. Chaque conflit trouv cote au plus une descente de O(log n)
+ * noeuds : une recherche cote O(min(n, klog n)) dans le pire des cas pour
+ * k conflits, et O(log n) sans conflit. Un ajout ou un retrait cote
+ * O(log n).<br><br>
+ * Plusieurs {@code RendezVous} gaux (mmes horaires) peuvent tre indexs :
+ * chaque retrait n'en retire qu'un. Un {@code ArbreIntervalles} n'est pas
+ * synchronis.
+ *
+ * @author  Jason BOURLARD
+ * @author  David PELISSIER
+ * @version 0.3
+ * @see Agenda#conflits(RendezVous)
+ */
+public class ArbreIntervalles {
+
+    /**
+     * Noeud de l'arbre : un {@code RendezVous}, ses deux sous-arbres, la
+     * hauteur du noeud et la plus grande fin de son sous-arbre.
+     */
+    private static final class Noeud {
+
+        /** Rendez-vous index par le noeud. */
+        private final RendezVous rdv;
+
+        /** Sous-arbre des rendez-vous qui le prcdent. */
+        private Noeud gauche;
+
+        /** Sous-arbre des rendez-vous qui le suivent. */
+        private Noeud droite;
+
+        /** Hauteur du sous-arbre, 1 pour une feuille. */
+        private int hauteur;
+
+        /** Plus grande minute poque de fin du sous-arbre. */
+        private int finMax;
+
+        /**
+         * Constructeur d'une feuille.
+         *
+         * @param rdv Rendez-vous index par le noeud.
+         */
+        private Noeud(RendezVous rdv) {
+            this.rdv = rdv;
+            this.hauteur = 1;
+            this.finMax = rdv.getFin();
+        }
+    }
+
+    /** Racine de l'arbre, {@code null} si l'arbre est vide. */
+    private Noeud racine;
+
+    /** Nombre de rendez-vous indexs. */
+    private int nbRdv;
+
+    /**
+     * Constructeur par dfaut : l'arbre est vide.
+     */
+    public ArbreIntervalles() {
+        this.racine = null;
+        this.nbRdv = 0;
+    }
+
+    /**
+     * Constructeur paramtrable prenant en argument les {@code RendezVous}
+     *  indexer. Ils sont tris puis rangs directement dans un arbre
+     * quilibr, sans rotation.
+     *
+     * @param listeRdv Rendez-vous  indexer, dans un ordre quelconque.
+     */
+    public ArbreIntervalles(RendezVous[] listeRdv) {
+        RendezVous[] tries = listeRdv.clone();
+        Arrays.sort(tries, RendezVous.ORDRE_CHRONOLOGIQUE);
+        this.racine = construit(tries, 0, tries.length);
+        this.nbRdv = tries.length;
+    }
+
+    /**
+     * Accesseur pour le champ {@code nbRdv}.
+     *
+     * @return Nombre de rendez-vous indexs.
+     */
+    public int getNbRdv() {
+        return nbRdv;
+    }
+
+    /**
+     * Ajoute un {@code RendezVous}  l'index.
+     *
+     * @param rdv Rendez-vous  ajouter.
+     */
+    public void ajoute(RendezVous rdv) {
+        this.racine = ajoute(this.racine, rdv);
+        this.nbRdv++;
+    }
+
+    /**
+     * Retire de l'index un {@code RendezVous} gal  celui donn, c'est--dire
+     * de mmes horaires.
+     *
+     * @param rdv Rendez-vous  retirer.
+     * @return {@code true} si un rendez-vous a t retir.
+     */
+    public boolean retire(RendezVous rdv) {
+        int nbAvant = this.nbRdv;
+        this.racine = retire(this.racine, rdv);
+        return this.nbRdv != nbAvant;
+    }
+
+    /**
+     * Retourne les {@code RendezVous} indexs en conflit avec l'horaire
+     * {@code [debut, fin[}, c'est--dire commenant avant {@code fin} et
+     * se terminant aprs {@code debut}.
+     *
+     * @param debut Minute poque du dbut de l'horaire.
+     * @param fin   Minute poque de la fin de l'horaire.
+     * @return Les rendez-vous en conflit, dans l'ordre chronologique.
+     */
+    public RendezVous[] conflits(int debut, int fin) {
+        RendezVous[][] resultat = { new RendezVous[4] };
+        int nb = conflits(this.racine, debut, fin, resultat, 0);
+        return Arrays.copyOf(resultat[0], nb);
+    }
+
+    /**
+     * Range les {@code RendezVous} tris d'un intervalle du tableau dans un
+     * sous-arbre quilibr.
+     *
+     * @param tries Rendez-vous tris.
+     * @param debut Indice du premier rendez-vous  ranger.
+     * @param fin   Indice suivant le dernier rendez-vous  ranger.
+     * @return Racine du sous-arbre, {@code null} si l'intervalle est vide.
+     */
+    private static Noeud construit(RendezVous[] tries, int debut, int fin) {
+        Noeud noeud = null;
+        if (debut < fin) {
+            int milieu = (debut + fin) >>> 1;
+            noeud = new Noeud(tries[milieu]);
+            noeud.gauche = construit(tries, debut, milieu);
+            noeud.droite = construit(tries, milieu + 1, fin);
+            metAJour(noeud);
+        }
+        return noeud;
+    }
+
+    /**
+     * Ajoute un {@code RendezVous}  un sous-arbre puis le rquilibre.
+     *
+     * @param noeud Racine du sous-arbre.
+     * @param rdv   Rendez-vous  ajouter.
+     * @return Nouvelle racine du sous-arbre.
+     */
+    private static Noeud ajoute(Noeud noeud, RendezVous rdv) {
+        Noeud aRetourner;
+        if (noeud == null) {
+            aRetourner = new Noeud(rdv);
+        } else {
+            if (RendezVous.ORDRE_CHRONOLOGIQUE.compare(rdv, noeud.rdv) < 0) {
+                noeud.gauche = ajoute(noeud.gauche, rdv);
+            } else {
+                noeud.droite = ajoute(noeud.droite, rdv);
+            }
+            aRetourner = equilibre(noeud);
+        }
+        return aRetourner;
+    }
+
+    /**
+     * Retire d'un sous-arbre un {@code RendezVous} gal  celui donn, puis
+     * le rquilibre. {@code nbRdv} est dcrment si un rendez-vous a t
+     * trouv.
+     *
+     * @param noeud Racine du sous-arbre.
+     * @param rdv   Rendez-vous  retirer.
+     * @return Nouvelle racine du sous-arbre.
+     */
+    private Noeud retire(Noeud noeud, RendezVous rdv) {
+        Noeud aRetourner = noeud;
+        if (noeud != null) {
+            int ordre = RendezVous.ORDRE_CHRONOLOGIQUE.compare(rdv, noeud.rdv);
+            if (ordre < 0) {
+                noeud.gauche = retire(noeud.gauche, rdv);
+                aRetourner = equilibre(noeud);
+            } else if (ordre > 0) {
+                noeud.droite = retire(noeud.droite, rdv);
+                aRetourner = equilibre(noeud);
+            } else {
+                this.nbRdv--;
+                if (noeud.gauche == null) {
+                    aRetourner = noeud.droite;
+                } else if (noeud.droite == null) {
+                    aRetourner = noeud.gauche;
+                } else {
+                    // Le successeur prend la place du noeud retir
+                    Noeud successeur = noeud.droite;
+                    while (successeur.gauche != null) {
+                        successeur = successeur.gauche;
+                    }
+                    successeur.droite = retireMin(noeud.droite);
+                    successeur.gauche = noeud.gauche;
+                    aRetourner = equilibre(successeur);
+                }
+            }
+        }
+        return aRetourner;
+    }
+
+    /**
+     * Retire le premier noeud d'un sous-arbre non vide, puis le rquilibre.
+     *
+     * @param noeud Racine du sous-arbre.
+     * @return Nouvelle racine du sous-arbre.
+     */
+    private static Noeud retireMin(Noeud noeud) {
+        Noeud aRetourner;
+        if (noeud.gauche == null) {
+            aRetourner = noeud.droite;
+        } else {
+            noeud.gauche = retireMin(noeud.gauche);
+            aRetourner = equilibre(noeud);
+        }
+        return aRetourner;
+    }
+
+    /**
+     * Ajoute au rsultat les {@code RendezVous} d'un sous-arbre en conflit
+     * avec l'horaire {@code [debut, fin[}, dans l'ordre chronologique.<br>
+     * Un sous-arbre dont la plus grande fin prcde {@code debut} n'est pas
+     * parcouru, pas plus que les rendez-vous qui suivent un rendez-vous
+     * commenant aprs {@code fin}.
+     *
+     * @param noeud    Racine du sous-arbre.
+     * @param debut    Minute poque du dbut de l'horaire.
+     * @param fin      Minute poque de la fin de l'horaire.
+     * @param resultat Tableau des conflits, agrandi au besoin.
+     * @param nb       Nombre de conflits dj trouvs.
+     * @return Nombre de conflits trouvs, y compris ceux du sous-arbre.
+     */
+    private static int conflits(Noeud noeud, int debut, int fin,
+                                RendezVous[][] resultat, int nb) {
+        if (noeud != null && noeud.finMax > debut) {
+            nb = conflits(noeud.gauche, debut, fin, resultat, nb);
+            if (noeud.rdv.getDebut() < fin) {
+                if (noeud.rdv.getFin() > debut) {
+                    if (nb == resultat[0].length) {
+                        resultat[0] = Arrays.copyOf(resultat[0], 2 * nb);
+                    }
+                    resultat[0][nb++] = noeud.rdv;
+                }
+                nb = conflits(noeud.droite, debut, fin, resultat, nb);
+            }
+        }
+        return nb;
+    }
+
+    /**
+     * Retourne la hauteur d'un sous-arbre.
+     *
+     * @param noeud Racine du sous-arbre.
+     * @return Hauteur du sous-arbre, 0 s'il est vide.
+     */
+    private static int hauteur(Noeud noeud) {
+        return noeud == null ? 0 : noeud.hauteur;
+    }
+
+    /**
+     * Recalcule la hauteur et la plus grande fin d'un noeud  partir de ses
+     * sous-arbres.
+     *
+     * @param noeud Noeud  mettre  jour.
+     */
+    private static void metAJour(Noeud noeud) {
+        noeud.hauteur = 1 + Math.max(hauteur(noeud.gauche),
+                                     hauteur(noeud.droite));
+        noeud.finMax = noeud.rdv.getFin();
+        if (noeud.gauche != null && noeud.gauche.finMax > noeud.finMax) {
+            noeud.finMax = noeud.gauche.finMax;
+        }
+        if (noeud.droite != null && noeud.droite.finMax > noeud.finMax) {
+            noeud.finMax = noeud.droite.finMax;
+        }
+    }
+
+    /**
+     * Rquilibre un noeud dont les sous-arbres diffrent d'au plus 2 en
+     * hauteur, par une ou deux rotations.
+     *
+     * @param noeud Noeud  rquilibrer.
+     * @return Nouvelle racine du sous-arbre.
+     */
+    private static Noeud equilibre(Noeud noeud) {
+        Noeud aRetourner = noeud;
+        int ecart = hauteur(noeud.gauche) - hauteur(noeud.droite);
+        if (ecart > 1) {
+            if (hauteur(noeud.gauche.gauche) < hauteur(noeud.gauche.droite)) {
+                noeud.gauche = rotationGauche(noeud.gauche);
+            }
+            aRetourner = rotationDroite(noeud);
+        } else if (ecart < -1) {
+            if (hauteur(noeud.droite.droite) < hauteur(noeud.droite.gauche)) {
+                noeud.droite = rotationDroite(noeud.droite);
+            }
+            aRetourner = rotationGauche(noeud);
+        } else {
+            metAJour(noeud);
+        }
+        return aRetourner;
+    }
+
+    /**
+     * Rotation vers la droite : le fils gauche devient la racine.
+     *
+     * @param noeud Racine du sous-arbre.
+     * @return Nouvelle racine du sous-arbre.
+     */
+    private static Noeud rotationDroite(Noeud noeud) {
+        Noeud pivot = noeud.gauche;
+        noeud.gauche = pivot.droite;
+        pivot.droite = noeud;
+        metAJour(noeud);
+        metAJour(pivot);
+        return pivot;
+    }
+
+    /**
+     * Rotation vers la gauche : le fils droit devient la racine.
+     *
+     * @param noeud Racine du sous-arbre.
+     * @return Nouvelle racine du sous-arbre.
+     */
+    private static Noeud rotationGauche(Noeud noeud) {
+        Noeud pivot = noeud.droite;
+        noeud.droite = pivot.gauche;
+        pivot.gauche = noeud;
+        metAJour(noeud);
+        metAJour(pivot);
+        return pivot;
+    }
+}
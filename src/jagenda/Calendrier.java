@@ -0,0 +1,336 @@
+/*
+ * Fichier :	Calendrier.java
+ * Package :	jagenda
+ * Projet jAgenda - Info 1 2011-2012
+ *
+ */
+package jagenda;
+
+/**
+ * Classe {@code Calendrier} regroupe les calculs de dates du calendrier
+ * grgorien effectus uniquement par arithmtique, sans instancier de
+ * {@code GregorianCalendar}.<br>
+ * Les mois sont numrots de 1 (janvier)  12 (dcembre), comme dans les
+ * dates saisies ou enregistres au format {@code jj/mm/aaaa}.<br><br>
+ * Un instant peut tre reprsent par un simple entier :
+ * <ul><li>le <i>jour poque</i>, nombre de jours couls depuis le
+ *         01/01/1970,</li>
+ *     <li>la <i>minute poque</i>, nombre de minutes coules depuis le
+ *         01/01/1970 00h00.</li></ul>
+ * Ces valeurs sont calcules sur les champs de la date (heure locale), sans
+ * tenir compte du fuseau horaire ni des changements d'heure.<br><br>
+ * Pour les annes de la priode gre par l'agenda ({@link Horaire#AN_MIN}
+ * - {@link Horaire#AN_MAX}), le jour poque du 1er janvier et celui du lundi
+ * de la premire semaine ISO de chaque anne sont prcalculs, ainsi que le
+ * nombre de jours prcdant chaque mois : valider une date, en calculer le
+ * jour poque, le jour de la semaine ou la semaine ISO se rsume alors 
+ * quelques lectures de tables.
+ *
+ * @author  Jason BOURLARD
+ * @author  David PELISSIER
+ * @version 0.3
+ */
+public final class Calendrier {
+
+    /** Nombre de minutes dans une journe. */
+    public static final int MINUTES_PAR_JOUR = 24 * 60;
+
+    /** Jours de la semaine ISO : lundi. */
+    public static final int LUNDI = 1;
+
+    /** Jours de la semaine ISO : dimanche. */
+    public static final int DIMANCHE = 7;
+
+    /**
+     * Nombre de jours de l'anne prcdant chaque mois, pour une anne non
+     * bissextile (ligne 0) et bissextile (ligne 1). La dernire colonne
+     * donne le nombre de jours de l'anne.
+     */
+    private static final int[][] JOURS_AVANT_MOIS = {
+        {0, 31, 59, 90, 120, 151, 181, 212, 243, 273, 304, 334, 365},
+        {0, 31, 60, 91, 121, 152, 182, 213, 244, 274, 305, 335, 366}
+    };
+
+    /**
+     * Jour poque du 1er janvier de chaque anne de {@code AN_MIN} 
+     * {@code AN_MAX + 1}.
+     */
+    private static final int[] PREMIER_JOUR_AN =
+        new int[Horaire.AN_MAX - Horaire.AN_MIN + 2];
+
+    /**
+     * Jour poque du lundi de la semaine ISO 1 de chaque anne de
+     * {@code AN_MIN}  {@code AN_MAX + 1}.
+     */
+    private static final int[] LUNDI_SEMAINE_1 =
+        new int[Horaire.AN_MAX - Horaire.AN_MIN + 2];
+
+    static {
+        for (int i = 0; i < PREMIER_JOUR_AN.length; i++) {
+            PREMIER_JOUR_AN[i] = calculeJourEpoque(Horaire.AN_MIN + i, 1, 1);
+            // La semaine 1 est celle qui contient le 4 janvier.
+            int quatreJanvier = PREMIER_JOUR_AN[i] + 3;
+            LUNDI_SEMAINE_1[i] = quatreJanvier
+                                 - (jourSemaine(quatreJanvier) - LUNDI);
+        }
+    }
+
+    /**
+     * Classe utilitaire : aucune instance.
+     */
+    private Calendrier() {
+    }
+
+    /**
+     * Indique si une anne est bissextile dans le calendrier grgorien.
+     *
+     * @param annee Anne  tester.
+     * @return {@code true} si l'anne est bissextile.
+     */
+    public static boolean estBissextile(int annee) {
+        return (annee % 4 == 0 && annee % 100 != 0) || annee % 400 == 0;
+    }
+
+    /**
+     * Retourne le nombre de jours d'un mois.
+     *
+     * @param annee Anne du mois.
+     * @param mois  Mois, de 1  12.
+     * @return Nombre de jours du mois.
+     */
+    public static int nbJoursMois(int annee, int mois) {
+        int[] joursAvant = JOURS_AVANT_MOIS[estBissextile(annee) ? 1 : 0];
+        return joursAvant[mois] - joursAvant[mois-1];
+    }
+
+    /**
+     * Vrifie qu'une date existe dans le calendrier grgorien et que son
+     * anne est comprise dans la priode gre par l'agenda,  savoir
+     * {@link Horaire#AN_MIN} - {@link Horaire#AN_MAX}.
+     *
+     * @param annee Anne de la date.
+     * @param mois  Mois de la date, de 1  12.
+     * @param jour  Jour du mois.
+     * @return {@code true} si la date est valide.
+     */
+    public static boolean estDateValide(int annee, int mois, int jour) {
+        return    Horaire.AN_MIN <= annee && annee <= Horaire.AN_MAX
+               && 1 <= mois && mois <= 12
+               && 1 <= jour && jour <= nbJoursMois(annee, mois);
+    }
+
+    /**
+     * Vrifie qu'une heure est valide,  savoir comprise entre 00h00 et 23h59.
+     *
+     * @param heures  Heures  tester.
+     * @param minutes Minutes  tester.
+     * @return {@code true} si l'heure est valide.
+     */
+    public static boolean estHeureValide(int heures, int minutes) {
+        return 0 <= heures && heures <= 23 && 0 <= minutes && minutes <= 59;
+    }
+
+    /**
+     * Retourne le jour poque d'une date,  savoir le nombre de jours couls
+     * depuis le 01/01/1970.
+     *
+     * @param annee Anne de la date (positive).
+     * @param mois  Mois de la date, de 1  12.
+     * @param jour  Jour du mois.
+     * @return Jour poque de la date.
+     */
+    public static int jourEpoque(int annee, int mois, int jour) {
+        int jourEpoque;
+        if (Horaire.AN_MIN <= annee && annee <= Horaire.AN_MAX) {
+            jourEpoque = PREMIER_JOUR_AN[annee - Horaire.AN_MIN]
+                         + JOURS_AVANT_MOIS[estBissextile(annee) ? 1 : 0]
+                                           [mois-1]
+                         + jour - 1;
+        } else {
+            jourEpoque = calculeJourEpoque(annee, mois, jour);
+        }
+        return jourEpoque;
+    }
+
+    /**
+     * Calcule le jour poque d'une date de n'importe quelle anne positive,
+     * sans recourir aux tables.
+     *
+     * @param annee Anne de la date (positive).
+     * @param mois  Mois de la date, de 1  12.
+     * @param jour  Jour du mois.
+     * @return Jour poque de la date.
+     */
+    private static int calculeJourEpoque(int annee, int mois, int jour) {
+        // On fait commencer l'anne au 1er mars : le 29 fvrier ventuel
+        // devient ainsi le dernier jour de l'anne.
+        int an = mois <= 2 ? annee - 1 : annee;
+        int siecle = an / 400;                          // Cycle de 400 ans
+        int anCycle = an - siecle * 400;                // [0, 399]
+        int jourAn = (153 * (mois > 2 ? mois - 3 : mois + 9) + 2) / 5
+                     + jour - 1;                        // [0, 365]
+        int jourCycle = anCycle * 365 + anCycle / 4 - anCycle / 100 + jourAn;
+        return siecle * 146097 + jourCycle - 719468;
+    }
+
+    /**
+     * Retourne la date correspondant  un jour poque, sous la forme d'un
+     * entier {@code aaaammjj}.<br>
+     * <i>Exemple : 20120110 pour le 10/01/2012.</i>
+     *
+     * @param jourEpoque Nombre de jours couls depuis le 01/01/1970.
+     * @return Date au format {@code aaaammjj}.
+     * @see #jourEpoque(int, int, int)
+     */
+    public static int date(int jourEpoque) {
+        int jours = jourEpoque + 719468;
+        int siecle = jours / 146097;                    // Cycle de 400 ans
+        int jourCycle = jours - siecle * 146097;        // [0, 146096]
+        int anCycle = (jourCycle - jourCycle / 1460 + jourCycle / 36524
+                       - jourCycle / 146096) / 365;     // [0, 399]
+        int jourAn = jourCycle
+                     - (365 * anCycle + anCycle / 4 - anCycle / 100);
+        int moisMars = (5 * jourAn + 2) / 153;          // 0 = mars
+        int jour = jourAn - (153 * moisMars + 2) / 5 + 1;
+        int mois = moisMars < 10 ? moisMars + 3 : moisMars - 9;
+        int annee = anCycle + siecle * 400 + (mois <= 2 ? 1 : 0);
+        return annee * 10000 + mois * 100 + jour;
+    }
+
+    /**
+     * Retourne le jour de la semaine d'un jour poque, numrot selon la
+     * norme ISO 8601.
+     *
+     * @param jourEpoque Nombre de jours couls depuis le 01/01/1970.
+     * @return Jour de la semaine, de {@code LUNDI} (1)  {@code DIMANCHE} (7).
+     */
+    public static int jourSemaine(int jourEpoque) {
+        // Le 01/01/1970 tait un jeudi.
+        return Math.floorMod(jourEpoque + 3, 7) + 1;
+    }
+
+    /**
+     * Retourne le jour poque du lundi de la semaine ISO 1 d'une anne,
+     * c'est--dire de la semaine contenant le 4 janvier.
+     *
+     * @param annee Anne ISO (positive).
+     * @return Jour poque du lundi de la semaine 1.
+     */
+    public static int lundiSemaine1(int annee) {
+        int lundi;
+        if (Horaire.AN_MIN <= annee && annee <= Horaire.AN_MAX + 1) {
+            lundi = LUNDI_SEMAINE_1[annee - Horaire.AN_MIN];
+        } else {
+            int quatreJanvier = calculeJourEpoque(annee, 1, 4);
+            lundi = quatreJanvier - (jourSemaine(quatreJanvier) - LUNDI);
+        }
+        return lundi;
+    }
+
+    /**
+     * Retourne le nombre de semaines ISO d'une anne : 52 ou 53.
+     *
+     * @param annee Anne ISO (positive).
+     * @return Nombre de semaines de l'anne.
+     */
+    public static int nbSemainesIso(int annee) {
+        return (lundiSemaine1(annee + 1) - lundiSemaine1(annee)) / 7;
+    }
+
+    /**
+     * Vrifie qu'une date ISO 8601, donne par son anne, sa semaine et son
+     * jour de la semaine, existe et que son anne est comprise dans la
+     * priode gre par l'agenda,  savoir {@link Horaire#AN_MIN} -
+     * {@link Horaire#AN_MAX}.
+     *
+     * @param annee       Anne ISO de la date.
+     * @param semaine     Semaine ISO de la date, de 1  52 ou 53.
+     * @param jourSemaine Jour de la semaine, de {@code LUNDI} (1) 
+     *                    {@code DIMANCHE} (7).
+     * @return {@code true} si la date est valide.
+     */
+    public static boolean estSemaineValide(int annee, int semaine,
+                                           int jourSemaine) {
+        return    Horaire.AN_MIN <= annee && annee <= Horaire.AN_MAX
+               && LUNDI <= jourSemaine && jourSemaine <= DIMANCHE
+               && 1 <= semaine && semaine <= nbSemainesIso(annee);
+    }
+
+    /**
+     * Retourne le jour poque d'une date ISO 8601, donne par son anne, sa
+     * semaine et son jour de la semaine. Pour les annes de la priode gre,
+     * le calcul se rsume  une lecture de la table des lundis de semaine 1.
+     * La validit de la date est  la charge de l'appelant (voir
+     * {@link #estSemaineValide(int, int, int)}).
+     *
+     * @param annee       Anne ISO de la date.
+     * @param semaine     Semaine ISO de la date.
+     * @param jourSemaine Jour de la semaine, de {@code LUNDI} (1) 
+     *                    {@code DIMANCHE} (7).
+     * @return Nombre de jours couls entre le 01/01/1970 et cette date.
+     */
+    public static int jourEpoqueSemaine(int annee, int semaine,
+                                        int jourSemaine) {
+        return lundiSemaine1(annee) + 7 * (semaine - 1)
+               + (jourSemaine - LUNDI);
+    }
+
+    /**
+     * Retourne l'anne ISO d'un jour poque. Elle diffre de l'anne civile
+     * pour les premiers jours de janvier appartenant  la dernire semaine de
+     * l'anne prcdente, et pour les derniers jours de dcembre appartenant
+     *  la semaine 1 de l'anne suivante.
+     *
+     * @param jourEpoque Nombre de jours couls depuis le 01/01/1970.
+     * @return Anne ISO du jour.
+     */
+    public static int anneeIso(int jourEpoque) {
+        int annee = date(jourEpoque) / 10000;
+        if (jourEpoque < lundiSemaine1(annee)) {
+            annee--;
+        } else if (jourEpoque >= lundiSemaine1(annee + 1)) {
+            annee++;
+        }
+        return annee;
+    }
+
+    /**
+     * Retourne le numro de la semaine ISO d'un jour poque, dans son anne
+     * ISO (voir {@link #anneeIso(int)}).
+     *
+     * @param jourEpoque Nombre de jours couls depuis le 01/01/1970.
+     * @return Numro de la semaine, de 1  53.
+     */
+    public static int semaineIso(int jourEpoque) {
+        return (jourEpoque - lundiSemaine1(anneeIso(jourEpoque))) / 7 + 1;
+    }
+
+    /**
+     * Retourne le jour poque d'un instant donn par sa minute poque.
+     *
+     * @param minuteEpoque Nombre de minutes coules depuis le 01/01/1970
+     *                     00h00.
+     * @return Jour poque de l'instant.
+     * @see #minuteEpoque(int, int, int, int, int)
+     */
+    public static int jourDeMinute(int minuteEpoque) {
+        return Math.floorDiv(minuteEpoque, MINUTES_PAR_JOUR);
+    }
+
+    /**
+     * Retourne la minute poque d'un instant,  savoir le nombre de minutes
+     * coules depuis le 01/01/1970 00h00.
+     *
+     * @param annee   Anne de l'instant.
+     * @param mois    Mois de l'instant, de 1  12.
+     * @param jour    Jour du mois.
+     * @param heures  Heures, de 0  23.
+     * @param minutes Minutes, de 0  59.
+     * @return Minute poque de l'instant.
+     */
+    public static int minuteEpoque(int annee, int mois, int jour,
+                                   int heures, int minutes) {
+        return jourEpoque(annee, mois, jour) * MINUTES_PAR_JOUR
+               + heures * 60 + minutes;
+    }
+}
@@ -0,0 +1,952 @@
+/*
+ * Fichier :	ChargeurRdv.java
+ * Package :	jagenda
+ * Projet jAgenda - Info 1 2011-2012
+ *
+ */
+package jagenda;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.zip.CRC32C;
+import java.util.zip.Checksum;
+
+import jagenda.util.Fichier;
+
+/**
+ * Classe {@code ChargeurRdv} permet de charger en une seule passe les
+ * {@code RendezVous} inscrits dans un fichier de sauvegarde.<br>
+ * Le fichier est projet en mmoire (voir {@link Fichier#projette()}) puis ses
+ * octets, encods en Latin-1, sont parcourus directement : on y repre les fins
+ * de ligne, puis chaque ligne est confie  un {@code AnalyseurRdv}.<br>
+ * Les {@code RendezVous} lus sont rangs dans un tampon dimensionn d'aprs la
+ * taille du fichier, dont la capacit double lorsqu'il est plein. Le tableau
+ * retourn est retaill une seule fois,  la fin du chargement.<br><br>
+ * Le chargement peut aussi tre effectu en parallle : le fichier est alors
+ * dcoup en morceaux, aligns sur les fins de ligne, analyss par les fils
+ * d'excution d'un {@code ForkJoinPool}. Les deux modes de chargement
+ * retournent le mme tableau, tri dans l'ordre
+ * {@link RendezVous#ORDRE_CHRONOLOGIQUE}.<br><br>
+ * Enfin, les {@code RendezVous} peuvent tre parcourus un  un, dans l'ordre
+ * du fichier, sans tre tous chargs en mmoire (voir {@link #parcours()}).
+ * <br><br>
+ * Une ligne refuse par l'{@code AnalyseurRdv} est compte comme errone.
+ * Les statistiques des caches de dates des {@code AnalyseurRdv} utiliss sont
+ * additionnes  chaque chargement, et la capacit de ces caches peut tre
+ * ajuste par {@link #setCapaciteCache(int)}.
+ * <br><br>
+ * Le fichier peut dbuter par une ligne d'en-tte et se terminer par une
+ * ligne de contrle :<br>
+ * <i>{@code #jAgenda nbRdv anneeMin-anneeMax}<br>
+ * ... lignes de donnes ...<br>
+ * {@code #crc32c xxxxxxxx}</i><br>
+ * o {@code nbRdv} est le nombre de lignes de donnes, {@code anneeMin} et
+ * {@code anneeMax} les annes du premier et du dernier rendez-vous, et
+ * {@code xxxxxxxx} la somme de contrle CRC32C, en hexadcimal, des octets
+ * des lignes de donnes (fins de ligne comprises).<br>
+ * Lorsque l'en-tte est prsent, le tampon de {@code RendezVous} est allou
+ * une seule fois,  la taille annonce, et la somme de contrle est calcule
+ * au fil de la lecture des lignes : un fichier tronqu ou altr est signal
+ * par {@link #estCorrompu()}. Un fichier sans en-tte, crit par une version
+ * prcdente, est charg comme auparavant, sans contrle.
+ *
+ * @see AnalyseurRdv
+ * @author  Jason BOURLARD
+ * @author  David PELISSIER
+ * @version 0.3
+ */
+public class ChargeurRdv {
+
+    /**
+     * Taille moyenne estime d'une ligne de donnes, en octets.<br>
+     * Permet de dimensionner le tampon de {@code RendezVous} avant la lecture.
+     */
+    private static final int TAILLE_LIGNE_MOYENNE = 64;
+
+    /**
+     * Taille minimale, en octets, d'une ligne de donnes correcte, fin de
+     * ligne comprise : {@code 1/1/2012::0h0::0h0::a::b::c}.<br>
+     * Borne le nombre de {@code RendezVous} que peut contenir le fichier,
+     * quel que soit le nombre annonc par son en-tte.
+     */
+    private static final int TAILLE_LIGNE_MIN = 28;
+
+    /** Capacit minimale du tampon de {@code RendezVous}. */
+    private static final int CAPACITE_MINIMALE = 16;
+
+    /**
+     * Taille minimale, en octets, d'un morceau de fichier analys par un mme
+     * fil d'excution lors d'un chargement parallle. En de, le cot de
+     * cration des tches l'emporte sur le gain du paralllisme.
+     */
+    private static final int TAILLE_MORCEAU_MIN = 256 * 1024;
+
+    /**
+     * Nombre de morceaux souhaits par fil d'excution, afin de rpartir la
+     * charge si certains morceaux sont plus longs  analyser que d'autres.
+     */
+    private static final int MORCEAUX_PAR_FIL = 4;
+
+    /** Dbut de la ligne d'en-tte du fichier de sauvegarde. */
+    public static final String ENTETE = "#jAgenda ";
+
+    /** Dbut de la ligne de contrle du fichier de sauvegarde. */
+    public static final String CONTROLE = "#crc32c ";
+
+    /** Valeur de {@code nbAnnonce} pour un fichier sans en-tte. */
+    public static final int SANS_ENTETE = -1;
+
+    /** Fichier de sauvegarde  charger. */
+    private final Fichier fichier;
+
+    /** Dictionnaire des natures de l'agenda, partag par les analyseurs. */
+    private final DictionnaireNatures natures;
+
+    /** Nombre de lignes de donnes errones rencontres au chargement. */
+    private int nbErreur;
+
+    /**
+     * Nombre de lignes de donnes annonc par l'en-tte du fichier, ou
+     * {@code SANS_ENTETE}.
+     */
+    private int nbAnnonce;
+
+    /** Anne du premier rendez-vous, annonce par l'en-tte du fichier. */
+    private int anneeMin;
+
+    /** Anne du dernier rendez-vous, annonce par l'en-tte du fichier. */
+    private int anneeMax;
+
+    /**
+     * Somme de contrle annonce par la ligne de contrle du fichier, ou
+     * {@code -1} si elle est absente.
+     */
+    private long controleAnnonce;
+
+    /** Indice du premier octet des lignes de donnes. */
+    private int debutDonnees;
+
+    /** Indice suivant le dernier octet des lignes de donnes. */
+    private int finDonnees;
+
+    /**
+     * {@code true} si le fichier, muni d'un en-tte, ne correspond pas  ce
+     * que l'en-tte et la ligne de contrle annoncent.
+     */
+    private boolean corrompu;
+
+    /** Capacit du cache des dates de chaque {@code AnalyseurRdv}. */
+    private int capaciteCache;
+
+    /** Nombre de dates recherches dans les caches des analyseurs. */
+    private long nbRecherchesCache;
+
+    /** Nombre de dates trouves dans les caches des analyseurs. */
+    private long nbSuccesCache;
+
+    /** Nombre de dates conserves dans les caches des analyseurs. */
+    private int nbDatesCache;
+
+    /**
+     * Constructeur paramtrable prenant en argument le {@code Fichier} de
+     * sauvegarde  charger.
+     *
+     * @param fichier Fichier de sauvegarde des rendez-vous.
+     * @param natures Dictionnaire des natures de l'agenda.
+     */
+    public ChargeurRdv(Fichier fichier, DictionnaireNatures natures) {
+        this.fichier = fichier;
+        this.natures = natures;
+        this.nbErreur = 0;
+        this.nbAnnonce = SANS_ENTETE;
+        this.corrompu = false;
+        this.capaciteCache = AnalyseurRdv.CAPACITE_CACHE;
+    }
+
+    /**
+     * Mutateur pour le champ {@code capaciteCache}.
+     *
+     * @param capaciteCache Capacit du cache des dates de chaque
+     *                      {@code AnalyseurRdv}, pour les chargements
+     *                      suivants.
+     * @see AnalyseurRdv#AnalyseurRdv(DictionnaireNatures, int)
+     */
+    public void setCapaciteCache(int capaciteCache) {
+        this.capaciteCache = capaciteCache;
+    }
+
+    /**
+     * Accesseur pour le champ {@code nbRecherchesCache}.
+     *
+     * @return Nombre de dates recherches dans les caches de dates lors du
+     *         dernier chargement.
+     */
+    public long getNbRecherchesCache() {
+        return nbRecherchesCache;
+    }
+
+    /**
+     * Accesseur pour le champ {@code nbSuccesCache}.
+     *
+     * @return Nombre de dates trouves dans les caches de dates lors du
+     *         dernier chargement.
+     */
+    public long getNbSuccesCache() {
+        return nbSuccesCache;
+    }
+
+    /**
+     * Retourne le taux de succs des caches de dates lors du dernier
+     * chargement.
+     *
+     * @return Proportion, de 0  1, des dates trouves dans les caches.
+     */
+    public double getTauxSuccesCache() {
+        return nbRecherchesCache == 0 ? 0
+               : (double) nbSuccesCache / nbRecherchesCache;
+    }
+
+    /**
+     * Accesseur pour le champ {@code nbDatesCache}.
+     *
+     * @return Nombre de dates conserves dans les caches de dates  la fin du
+     *         dernier chargement, additionn sur les analyseurs utiliss
+     *         (un par morceau lors d'un chargement parallle).
+     */
+    public int getNbDatesCache() {
+        return nbDatesCache;
+    }
+
+    /**
+     * Retient le rsultat d'un chargement : nombre de lignes errones et
+     * statistiques des caches de dates.
+     *
+     * @param resultat Rsultat du chargement.
+     */
+    private void retiens(Morceau resultat) {
+        this.nbErreur = resultat.nbErreur;
+        this.nbRecherchesCache = resultat.nbRecherches;
+        this.nbSuccesCache = resultat.nbSucces;
+        this.nbDatesCache = resultat.nbDates;
+    }
+
+    /**
+     * Accesseur pour le champ {@code nbErreur}.
+     *
+     * @return Nombre de lignes errones rencontres lors du dernier
+     *         chargement.
+     */
+    public int getNbErreur() {
+        return nbErreur;
+    }
+
+    /**
+     * Accesseur pour le champ {@code nbAnnonce}.
+     *
+     * @return Nombre de lignes de donnes annonc par l'en-tte du fichier
+     *         lors du dernier chargement, ou {@code SANS_ENTETE}.
+     */
+    public int getNbAnnonce() {
+        return nbAnnonce;
+    }
+
+    /**
+     * Accesseur pour le champ {@code anneeMin}.
+     *
+     * @return Anne du premier rendez-vous annonce par l'en-tte du fichier.
+     *         N'a de sens que si le fichier a un en-tte.
+     */
+    public int getAnneeMin() {
+        return anneeMin;
+    }
+
+    /**
+     * Accesseur pour le champ {@code anneeMax}.
+     *
+     * @return Anne du dernier rendez-vous annonce par l'en-tte du fichier.
+     *         N'a de sens que si le fichier a un en-tte.
+     */
+    public int getAnneeMax() {
+        return anneeMax;
+    }
+
+    /**
+     * Indique si le fichier lors du dernier chargement tait corrompu : son
+     * en-tte est illisible, sa ligne de contrle est absente, ou bien le
+     * nombre de lignes de donnes ou leur somme de contrle ne correspondent
+     * pas  ceux annoncs. Un fichier sans en-tte n'est jamais considr
+     * comme corrompu.
+     *
+     * @return {@code true} si le fichier tait corrompu.
+     */
+    public boolean estCorrompu() {
+        return corrompu;
+    }
+
+    /**
+     * Retourne la ligne d'en-tte d'un fichier de sauvegarde, sans fin de
+     * ligne.
+     *
+     * @param nbRdv    Nombre de lignes de donnes du fichier.
+     * @param anneeMin Anne du premier rendez-vous.
+     * @param anneeMax Anne du dernier rendez-vous.
+     * @return Ligne d'en-tte.
+     */
+    public static String ligneEntete(int nbRdv, int anneeMin, int anneeMax) {
+        return ENTETE + nbRdv + " " + anneeMin + "-" + anneeMax;
+    }
+
+    /**
+     * Retourne la ligne de contrle d'un fichier de sauvegarde, sans fin de
+     * ligne.
+     *
+     * @param controle Somme de contrle CRC32C des lignes de donnes.
+     * @return Ligne de contrle.
+     */
+    public static String ligneControle(long controle) {
+        String hexa = Long.toHexString(controle);
+        return CONTROLE + "00000000".substring(hexa.length()) + hexa;
+    }
+
+    /**
+     * Lit l'en-tte et la ligne de contrle ventuels du fichier, et en
+     * dduit les bornes des lignes de donnes.
+     *
+     * @param octets Octets du fichier.
+     */
+    private void lisEntete(ByteBuffer octets) {
+        this.nbErreur = 0;
+        this.nbAnnonce = SANS_ENTETE;
+        this.anneeMin = 0;
+        this.anneeMax = 0;
+        this.controleAnnonce = -1;
+        this.corrompu = false;
+        this.debutDonnees = 0;
+        this.finDonnees = octets.limit();
+
+        if (commencePar(octets, 0, ENTETE)) {
+            // En-tte : #jAgenda nbRdv anneeMin-anneeMax
+            int finLigne = finLigne(octets, 0, this.finDonnees);
+            int[] pos = { ENTETE.length() };
+            this.nbAnnonce = (int) lisNombre(octets, pos, finLigne, 10);
+            this.corrompu = this.nbAnnonce < 0
+                            || !lisCaractere(octets, pos, ' ');
+            this.anneeMin = (int) lisNombre(octets, pos, finLigne, 10);
+            this.corrompu |= !lisCaractere(octets, pos, '-');
+            this.anneeMax = (int) lisNombre(octets, pos, finLigne, 10);
+            this.corrompu |= this.anneeMin < 0 || this.anneeMax < 0
+                             || pos[0] != finLigneSansRetour(octets, finLigne);
+            if (this.nbAnnonce < 0) {
+                this.nbAnnonce = 0;
+            }
+            this.debutDonnees = Math.min(finLigne + 1, this.finDonnees);
+
+            // Ligne de contrle : dernire ligne du fichier
+            int fin = this.finDonnees;
+            if (fin > this.debutDonnees && octets.get(fin-1) == '\n') {
+                fin--;
+            }
+            int debutControle = fin;
+            while (   debutControle > this.debutDonnees
+                   && octets.get(debutControle-1) != '\n') {
+                debutControle--;
+            }
+            if (commencePar(octets, debutControle, CONTROLE)) {
+                pos[0] = debutControle + CONTROLE.length();
+                this.controleAnnonce = lisNombre(octets, pos, fin, 16);
+                this.corrompu |= this.controleAnnonce < 0;
+                this.finDonnees = debutControle;
+            } else {
+                // Fichier tronqu
+                this.corrompu = true;
+            }
+        }
+    }
+
+    /**
+     * Vrifie, pour un fichier muni d'un en-tte, que le nombre de lignes de
+     * donnes et leur somme de contrle correspondent  ceux annoncs.
+     *
+     * @param nbLignes Nombre de lignes de donnes lues.
+     * @param controle Somme de contrle des lignes de donnes lues.
+     */
+    private void verifie(int nbLignes, Checksum controle) {
+        if (this.nbAnnonce != SANS_ENTETE) {
+            this.corrompu |= nbLignes != this.nbAnnonce
+                             || controle.getValue() != this.controleAnnonce;
+        }
+    }
+
+    /**
+     * Indique si les octets du fichier  partir de {@code debut} commencent
+     * par un prfixe donn.
+     *
+     * @param octets  Octets du fichier.
+     * @param debut   Indice du premier octet  comparer.
+     * @param prefixe Prfixe recherch, en ASCII.
+     * @return {@code true} si le prfixe est prsent.
+     */
+    private static boolean commencePar(ByteBuffer octets, int debut,
+                                       String prefixe) {
+        boolean present = debut + prefixe.length() <= octets.limit();
+        for (int i = 0; present && i < prefixe.length(); i++) {
+            present = octets.get(debut + i) == prefixe.charAt(i);
+        }
+        return present;
+    }
+
+    /**
+     * Retourne l'indice du caractre {@code '\n'} terminant la ligne qui
+     * dbute  l'indice {@code debut}, ou {@code fin} s'il est absent.
+     *
+     * @param octets Octets du fichier.
+     * @param debut  Indice du dbut de la ligne.
+     * @param fin    Indice suivant le dernier octet  examiner.
+     * @return Indice de la fin de la ligne.
+     */
+    private static int finLigne(ByteBuffer octets, int debut, int fin) {
+        int finLigne = debut;
+        while (finLigne < fin && octets.get(finLigne) != '\n') {
+            finLigne++;
+        }
+        return finLigne;
+    }
+
+    /**
+     * Retourne l'indice de la fin d'une ligne, retour chariot exclu.
+     *
+     * @param octets   Octets du fichier.
+     * @param finLigne Indice de la fin de la ligne.
+     * @return Indice de la fin de la ligne sans son ventuel {@code '\r'}.
+     */
+    private static int finLigneSansRetour(ByteBuffer octets, int finLigne) {
+        return finLigne > 0 && octets.get(finLigne-1) == '\r'
+               ? finLigne - 1 : finLigne;
+    }
+
+    /**
+     * Lit un nombre positif d'au plus 10 chiffres  la position
+     * {@code pos[0]}, qui est avance aprs son dernier chiffre.
+     *
+     * @param octets Octets du fichier.
+     * @param pos    Position de lecture.
+     * @param fin    Indice suivant le dernier octet lisible.
+     * @param base   Base du nombre : 10 ou 16.
+     * @return Valeur du nombre, ou {@code -1} s'il est absent ou, en base 10,
+     *         s'il dpasse {@code Integer.MAX_VALUE}.
+     */
+    private static long lisNombre(ByteBuffer octets, int[] pos, int fin,
+                                  int base) {
+        long valeur = 0;
+        int nb = 0;
+        int chiffre;
+        while (   pos[0] < fin && nb < 10
+               && (chiffre = Character.digit(octets.get(pos[0]), base)) >= 0) {
+            valeur = base*valeur + chiffre;
+            nb++;
+            pos[0]++;
+        }
+        return nb == 0 || (base == 10 && valeur > Integer.MAX_VALUE)
+               ? -1 : valeur;
+    }
+
+    /**
+     * Lit le caractre attendu  la position {@code pos[0]}.
+     *
+     * @param octets  Octets du fichier.
+     * @param pos     Position de lecture, avance d'un octet.
+     * @param attendu Caractre attendu.
+     * @return {@code true} si le caractre attendu tait prsent.
+     */
+    private static boolean lisCaractere(ByteBuffer octets, int[] pos,
+                                        char attendu) {
+        boolean present = pos[0] < octets.limit()
+                          && octets.get(pos[0]) == attendu;
+        pos[0]++;
+        return present;
+    }
+
+    /**
+     * Charge l'ensemble des {@code RendezVous} inscrits dans le fichier de
+     * sauvegarde.<br>
+     * Chaque ligne correcte donne un {@code RendezVous}. Chaque ligne
+     * incorrecte incrmente {@code nbErreur}.<br>
+     * Si le fichier a un en-tte, le tableau est allou  la taille annonce
+     * et la somme de contrle est vrifie au cours de la mme passe. La
+     * taille annonce est borne par le nombre de lignes que peuvent contenir
+     * les donnes : un en-tte corrompu est signal par
+     * {@code estCorrompu()}, sans allocation dmesure.
+     *
+     * @return Tableau des {@code RendezVous} lus, de taille exacte, tri dans
+     *         l'ordre {@link RendezVous#ORDRE_CHRONOLOGIQUE}.
+     * @throws FileNotFoundException est gnr si le fichier n'existe pas.
+     * @throws IOException           est gnr si le fichier ne peut pas tre
+     *                               lu.
+     */
+    public RendezVous[] charge() throws IOException {
+        ByteBuffer octets = this.fichier.projette();
+        lisEntete(octets);
+        Checksum controle = new CRC32C();
+        int taille = this.finDonnees - this.debutDonnees;
+        int capacite = this.nbAnnonce != SANS_ENTETE
+                       ? Math.min(this.nbAnnonce,
+                                  taille / TAILLE_LIGNE_MIN + 1)
+                       : taille / TAILLE_LIGNE_MOYENNE;
+        Morceau resultat = chargeMorceau(octets, this.debutDonnees,
+                                         this.finDonnees, capacite,
+                                         this.natures, this.capaciteCache,
+                                         controle);
+        retiens(resultat);
+        verifie(resultat.nbRdv + resultat.nbErreur, controle);
+        return resultat.tableau();
+    }
+
+    /**
+     * Charge l'ensemble des {@code RendezVous} inscrits dans le fichier de
+     * sauvegarde, en rpartissant l'analyse des lignes entre les fils
+     * d'excution du {@code ForkJoinPool} commun.<br>
+     * Le fichier est dcoup rcursivement en deux morceaux, au niveau d'une
+     * fin de ligne, jusqu' obtenir environ {@code MORCEAUX_PAR_FIL}
+     * morceaux par fil d'excution, d'au moins {@code TAILLE_MORCEAU_MIN}
+     * octets chacun. Chaque morceau est analys et tri indpendamment, puis
+     * les morceaux sont fusionns deux  deux, et leurs nombres de lignes
+     * errones additionns.<br>
+     * Le rsultat est identique  celui de {@code charge()}. La somme de
+     * contrle d'un fichier muni d'un en-tte ne pouvant tre calcule par
+     * morceaux, elle l'est par le fil d'excution appelant, pendant
+     * l'analyse des morceaux.
+     *
+     * @return Tableau des {@code RendezVous} lus, de taille exacte, tri dans
+     *         l'ordre {@link RendezVous#ORDRE_CHRONOLOGIQUE}.
+     * @throws FileNotFoundException est gnr si le fichier n'existe pas.
+     * @throws IOException           est gnr si le fichier ne peut pas tre
+     *                               lu.
+     * @see #charge()
+     */
+    public RendezVous[] chargeParallele() throws IOException {
+        ByteBuffer octets = this.fichier.projette();
+        lisEntete(octets);
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int tailleMorceau = Math.max(TAILLE_MORCEAU_MIN,
+                                     (this.finDonnees - this.debutDonnees)
+                                     / (MORCEAUX_PAR_FIL
+                                        * pool.getParallelism()));
+        ForkJoinTask<Morceau> tache = pool.submit(new TacheChargement(octets,
+                this.debutDonnees, this.finDonnees, tailleMorceau,
+                this.natures, this.capaciteCache));
+        CRC32C controle = new CRC32C();
+        if (this.nbAnnonce != SANS_ENTETE) {
+            ByteBuffer donnees = octets.duplicate();
+            donnees.limit(this.finDonnees).position(this.debutDonnees);
+            controle.update(donnees);
+        }
+        Morceau resultat = tache.join();
+        retiens(resultat);
+        verifie(resultat.nbRdv + resultat.nbErreur, controle);
+        return resultat.tableau();
+    }
+
+    /**
+     * Analyse les lignes comprises entre les octets {@code debut} et
+     * {@code fin} du fichier, puis trie les {@code RendezVous} obtenus.
+     *
+     * @param octets   Octets du fichier. Sa position est modifie : chaque fil
+     *                 d'excution doit disposer de sa propre copie.
+     * @param debut    Indice du premier octet du morceau, dbut d'une ligne.
+     * @param fin      Indice suivant le dernier octet du morceau, fin d'une
+     *                 ligne ou du fichier.
+     * @param capacite Capacit initiale du tampon de {@code RendezVous}.
+     * @param natures  Dictionnaire des natures de l'agenda.
+     * @param capaciteCache Capacit du cache des dates de l'analyseur.
+     * @param controle Somme de contrle  mettre  jour avec les octets des
+     *                 lignes, ou {@code null}.
+     * @return Les {@code RendezVous} du morceau, tris, le nombre de lignes
+     *         errones et les statistiques du cache des dates.
+     */
+    private static Morceau chargeMorceau(ByteBuffer octets, int debut,
+                                         int fin, int capacite,
+                                         DictionnaireNatures natures,
+                                         int capaciteCache,
+                                         Checksum controle) {
+        Morceau morceau = new Morceau(Math.max(CAPACITE_MINIMALE, capacite));
+        AnalyseurRdv analyseur = new AnalyseurRdv(natures, capaciteCache);
+        ParcoursRdv parcours = new ParcoursRdv(octets, debut, fin, analyseur,
+                                               controle);
+        while (parcours.hasNext()) {
+            morceau.ajoute(parcours.next());
+        }
+        morceau.nbErreur = parcours.nbErreur;
+        morceau.nbRecherches = analyseur.getNbRecherches();
+        morceau.nbSucces = analyseur.getNbSucces();
+        morceau.nbDates = analyseur.getNbDates();
+        Arrays.sort(morceau.rdv, 0, morceau.nbRdv,
+                    RendezVous.ORDRE_CHRONOLOGIQUE);
+        return morceau;
+    }
+
+    /**
+     * Retourne un itrateur sur les {@code RendezVous} inscrits dans le
+     * fichier de sauvegarde, dans l'ordre du fichier.<br>
+     * Chaque ligne n'est analyse qu'au moment o le {@code RendezVous}
+     * suivant est demand, et aucun {@code RendezVous} n'est conserv par
+     * l'itrateur : un parcours complet du fichier occupe une quantit de
+     * mmoire constante, et peut tre interrompu  tout moment.<br>
+     * Les lignes incorrectes sont ignores ; {@code nbErreur} est mis  jour
+     * au fur et  mesure du parcours. L'en-tte et la ligne de contrle
+     * ventuels sont ignors ; la somme de contrle est vrifie, et
+     * {@code estCorrompu()} mis  jour,  la fin d'un parcours complet.
+     *
+     * @return Itrateur sur les {@code RendezVous} du fichier, en lecture
+     *         seule.
+     * @throws FileNotFoundException est gnr si le fichier n'existe pas.
+     * @throws IOException           est gnr si le fichier ne peut pas tre
+     *                               lu.
+     */
+    public Iterator<RendezVous> parcours() throws IOException {
+        final ByteBuffer octets = this.fichier.projette();
+        final Checksum controle = new CRC32C();
+        final AnalyseurRdv analyseur = new AnalyseurRdv(this.natures,
+                                                        this.capaciteCache);
+        lisEntete(octets);
+        this.nbRecherchesCache = 0;
+        this.nbSuccesCache = 0;
+        this.nbDatesCache = 0;
+        return new ParcoursRdv(octets, this.debutDonnees, this.finDonnees,
+                               analyseur, controle) {
+            /** Nombre de {@code RendezVous} retourns. */
+            private int nbRdv = 0;
+
+            /** {@code true} une fois le parcours vrifi. */
+            private boolean termine = false;
+
+            @Override
+            public boolean hasNext() {
+                boolean reste = super.hasNext();
+                ChargeurRdv.this.nbErreur = this.nbErreur;
+                ChargeurRdv.this.nbRecherchesCache =
+                        analyseur.getNbRecherches();
+                ChargeurRdv.this.nbSuccesCache = analyseur.getNbSucces();
+                ChargeurRdv.this.nbDatesCache = analyseur.getNbDates();
+                if (!reste && !this.termine) {
+                    verifie(this.nbRdv + this.nbErreur, controle);
+                    this.termine = true;
+                }
+                return reste;
+            }
+
+            @Override
+            public RendezVous next() {
+                RendezVous rdv = super.next();
+                this.nbRdv++;
+                return rdv;
+            }
+        };
+    }
+
+    /**
+     * Itrateur sur les {@code RendezVous} inscrits entre deux octets du
+     * fichier. Le {@code RendezVous} suivant est analys  l'avance, ds
+     * l'appel  {@code hasNext()}, afin d'ignorer les lignes incorrectes.
+     */
+    private static class ParcoursRdv implements Iterator<RendezVous> {
+
+        /** Octets du fichier. */
+        private final ByteBuffer octets;
+
+        /** Indice suivant le dernier octet  parcourir. */
+        private final int fin;
+
+        /** Indice du dbut de la prochaine ligne  analyser. */
+        private int debut;
+
+        /** Octets de la ligne courante. */
+        private byte[] ligne;
+
+        /** Analyseur des lignes. */
+        private final AnalyseurRdv analyseur;
+
+        /** Somme de contrle des lignes parcourues, ou {@code null}. */
+        private final Checksum controle;
+
+        /** Prochain {@code RendezVous}  retourner, {@code null} si inconnu. */
+        private RendezVous suivant;
+
+        /** Nombre de lignes errones rencontres jusqu'ici. */
+        protected int nbErreur;
+
+        /**
+         * Cre un itrateur sur les lignes comprises entre les octets
+         * {@code debut} et {@code fin} du fichier.
+         *
+         * @param octets   Octets du fichier. Sa position est modifie : chaque
+         *                 fil d'excution doit disposer de sa propre copie.
+         * @param debut    Indice du premier octet, dbut d'une ligne.
+         * @param fin      Indice suivant le dernier octet, fin d'une ligne ou
+         *                 du fichier.
+         * @param analyseur Analyseur des lignes.
+         * @param controle Somme de contrle  mettre  jour avec les octets des
+         *                 lignes parcourues, fins de ligne comprises, ou
+         *                 {@code null}.
+         */
+        ParcoursRdv(ByteBuffer octets, int debut, int fin,
+                    AnalyseurRdv analyseur, Checksum controle) {
+            this.octets = octets;
+            this.controle = controle;
+            this.debut = debut;
+            this.fin = fin;
+            this.ligne = new byte[256];
+            this.analyseur = analyseur;
+            this.suivant = null;
+            this.nbErreur = 0;
+        }
+
+        /**
+         * Indique s'il reste un {@code RendezVous}  parcourir. Les lignes
+         * incorrectes rencontres sont comptes et ignores.
+         *
+         * @return {@code true} s'il reste un {@code RendezVous}.
+         */
+        @Override
+        public boolean hasNext() {
+            while (this.suivant == null && this.debut < this.fin) {
+                // Recherche de la fin de la ligne courante
+                int finLigne = this.debut;
+                while (   finLigne < this.fin
+                       && this.octets.get(finLigne) != '\n') {
+                    finLigne++;
+                }
+                int suivante = finLigne + 1;
+                if (finLigne > this.debut
+                    && this.octets.get(finLigne-1) == '\r') {
+                    finLigne--;
+                }
+
+                // Copie de la ligne et de sa fin de ligne dans le tampon
+                // d'octets, agrandi au besoin
+                int longueur = finLigne - this.debut;
+                int longueurBrute = Math.min(suivante, this.fin) - this.debut;
+                if (this.ligne.length < longueurBrute) {
+                    this.ligne = new byte[Math.max(longueurBrute,
+                                                   2*this.ligne.length)];
+                }
+                this.octets.position(this.debut);
+                this.octets.get(this.ligne, 0, longueurBrute);
+                if (this.controle != null) {
+                    this.controle.update(this.ligne, 0, longueurBrute);
+                }
+
+                this.suivant = this.analyseur.analyse(this.ligne, 0, longueur);
+                if (this.suivant == null) {
+                    // La ligne est incorrecte
+                    this.nbErreur++;
+                }
+                this.debut = suivante;
+            }
+            return this.suivant != null;
+        }
+
+        /**
+         * Retourne le {@code RendezVous} suivant.
+         *
+         * @return Le {@code RendezVous} suivant.
+         * @throws NoSuchElementException est gnr s'il ne reste aucun
+         *                                {@code RendezVous}.
+         */
+        @Override
+        public RendezVous next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            RendezVous rdv = this.suivant;
+            this.suivant = null;
+            return rdv;
+        }
+    }
+
+    /**
+     * Rsultat du chargement d'un morceau du fichier : les
+     * {@code RendezVous} lus et le nombre de lignes errones.
+     */
+    private static class Morceau {
+
+        /** Tampon des {@code RendezVous} lus. */
+        private RendezVous[] rdv;
+
+        /** Nombre de {@code RendezVous} rangs dans le tampon. */
+        private int nbRdv;
+
+        /** Nombre de lignes errones du morceau. */
+        private int nbErreur;
+
+        /** Nombre de dates recherches dans les caches des analyseurs. */
+        private long nbRecherches;
+
+        /** Nombre de dates trouves dans les caches des analyseurs. */
+        private long nbSucces;
+
+        /** Nombre de dates conserves dans les caches des analyseurs. */
+        private int nbDates;
+
+        /**
+         * Cre un morceau vide.
+         *
+         * @param capacite Capacit initiale du tampon de {@code RendezVous}.
+         */
+        Morceau(int capacite) {
+            this.rdv = new RendezVous[capacite];
+            this.nbRdv = 0;
+            this.nbErreur = 0;
+        }
+
+        /**
+         * Ajoute un {@code RendezVous} au tampon, dont la capacit double
+         * lorsqu'il est plein.
+         *
+         * @param aAjouter Le {@code RendezVous}  ajouter.
+         */
+        void ajoute(RendezVous aAjouter) {
+            if (this.nbRdv == this.rdv.length) {
+                this.rdv = Arrays.copyOf(this.rdv, 2*this.rdv.length);
+            }
+            this.rdv[this.nbRdv++] = aAjouter;
+        }
+
+        /**
+         * Fusionne deux morceaux tris conscutifs du fichier.  horaires
+         * gaux, les {@code RendezVous} du premier morceau sont placs en
+         * premier, comme ils le seraient par un tri de l'ensemble du
+         * fichier.
+         *
+         * @param premier Le premier morceau.
+         * @param second  Le morceau suivant.
+         * @return Le morceau runissant les deux, tri.
+         */
+        static Morceau fusionne(Morceau premier, Morceau second) {
+            Morceau fusion = new Morceau(premier.nbRdv + second.nbRdv);
+            int i = 0;
+            int j = 0;
+            while (i < premier.nbRdv && j < second.nbRdv) {
+                if (RendezVous.ORDRE_CHRONOLOGIQUE.compare(premier.rdv[i],
+                                                           second.rdv[j]) <= 0) {
+                    fusion.rdv[fusion.nbRdv++] = premier.rdv[i++];
+                } else {
+                    fusion.rdv[fusion.nbRdv++] = second.rdv[j++];
+                }
+            }
+            System.arraycopy(premier.rdv, i, fusion.rdv, fusion.nbRdv,
+                             premier.nbRdv - i);
+            fusion.nbRdv += premier.nbRdv - i;
+            System.arraycopy(second.rdv, j, fusion.rdv, fusion.nbRdv,
+                             second.nbRdv - j);
+            fusion.nbRdv += second.nbRdv - j;
+            fusion.nbErreur = premier.nbErreur + second.nbErreur;
+            fusion.nbRecherches = premier.nbRecherches + second.nbRecherches;
+            fusion.nbSucces = premier.nbSucces + second.nbSucces;
+            fusion.nbDates = premier.nbDates + second.nbDates;
+            return fusion;
+        }
+
+        /**
+         * Retourne les {@code RendezVous} du morceau.
+         *
+         * @return Tableau des {@code RendezVous}, de taille exacte.
+         */
+        RendezVous[] tableau() {
+            return this.nbRdv == this.rdv.length
+                   ? this.rdv : Arrays.copyOf(this.rdv, this.nbRdv);
+        }
+    }
+
+    /**
+     * Tche de chargement parallle d'un morceau du fichier, dcoup en deux
+     * tches tant qu'il dpasse la taille de morceau vise.
+     */
+    @SuppressWarnings("serial")
+    private static class TacheChargement extends RecursiveTask<Morceau> {
+
+        /** Octets du fichier, partags en lecture seule. */
+        private final ByteBuffer octets;
+
+        /** Indice du premier octet du morceau. */
+        private final int debut;
+
+        /** Indice suivant le dernier octet du morceau. */
+        private final int fin;
+
+        /** Taille de morceau en de de laquelle on ne dcoupe plus. */
+        private final int tailleMorceau;
+
+        /** Dictionnaire des natures, partag par les analyseurs. */
+        private final DictionnaireNatures natures;
+
+        /** Capacit du cache des dates de chaque analyseur. */
+        private final int capaciteCache;
+
+        /**
+         * Cre la tche de chargement d'un morceau du fichier.
+         *
+         * @param octets        Octets du fichier.
+         * @param debut         Indice du premier octet du morceau, dbut d'une
+         *                      ligne.
+         * @param fin           Indice suivant le dernier octet du morceau, fin
+         *                      d'une ligne ou du fichier.
+         * @param tailleMorceau Taille de morceau vise.
+         * @param natures       Dictionnaire des natures de l'agenda.
+         * @param capaciteCache Capacit du cache des dates de chaque
+         *                      analyseur.
+         */
+        TacheChargement(ByteBuffer octets, int debut, int fin,
+                        int tailleMorceau, DictionnaireNatures natures,
+                        int capaciteCache) {
+            this.octets = octets;
+            this.debut = debut;
+            this.fin = fin;
+            this.tailleMorceau = tailleMorceau;
+            this.natures = natures;
+            this.capaciteCache = capaciteCache;
+        }
+
+        /**
+         * Charge le morceau, ou le dcoupe en deux au niveau de la fin de
+         * ligne la plus proche de son milieu.
+         *
+         * @return Les {@code RendezVous} du morceau, tris, et le nombre de
+         *         lignes errones.
+         */
+        @Override
+        protected Morceau compute() {
+            int milieu = this.fin;
+            if (this.fin - this.debut > this.tailleMorceau) {
+                milieu = this.debut + (this.fin - this.debut) / 2;
+                while (milieu < this.fin && this.octets.get(milieu-1) != '\n') {
+                    milieu++;
+                }
+            }
+
+            Morceau resultat;
+            if (milieu >= this.fin) {
+                // Chaque fil d'excution lit sa propre vue des octets.
+                resultat = chargeMorceau(this.octets.duplicate(),
+                        this.debut, this.fin,
+                        (this.fin - this.debut) / TAILLE_LIGNE_MOYENNE,
+                        this.natures, this.capaciteCache, null);
+            } else {
+                TacheChargement second = new TacheChargement(this.octets,
+                        milieu, this.fin, this.tailleMorceau,
+                        this.natures, this.capaciteCache);
+                second.fork();
+                Morceau premier = new TacheChargement(this.octets,
+                        this.debut, milieu, this.tailleMorceau,
+                        this.natures, this.capaciteCache).compute();
+                resultat = Morceau.fusionne(premier, second.join());
+            }
+            return resultat;
+        }
+    }
+}
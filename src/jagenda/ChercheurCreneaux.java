@@ -0,0 +1,174 @@
+/*
+ * Fichier :	ChercheurCreneaux.java
+ * Package :	jagenda
+ * Projet jAgenda - Info 1 2011-2012
+ *
+ */
+package jagenda;
+
+import java.util.Arrays;
+
+/**
+ * Classe {@code ChercheurCreneaux} recherche les crneaux libres d'un agenda
+ * sur une priode : les intervalles d'au moins une dure donne pendant
+ * lesquels aucun rendez-vous n'a lieu.<br>
+ * Les rendez-vous tant tris par horaire de dbut, la recherche se fait en
+ * un seul parcours de ceux de la priode, en retenant l'horaire jusqu'auquel
+ * l'agenda est occup. Le premier rendez-vous de la priode est trouv par
+ * dichotomie et ceux qui commencent avant elle par l'index des intervalles :
+ * le reste de l'agenda n'est pas parcouru.<br><br>
+ * Des horaires d'ouverture peuvent limiter les crneaux  une plage de
+ * chaque journe ; un crneau libre sur plusieurs jours est alors dcoup
+ * jour par jour.<br>
+ * Les crneaux sont retourns sous forme de minutes poque, dans un tableau
+ * {@code {debut0, fin0, debut1, fin1, ...}}.
+ *
+ * @author  Jason BOURLARD
+ * @author  David PELISSIER
+ * @version 0.3
+ * @see Agenda#creneauxLibres(int, int, int)
+ */
+public class ChercheurCreneaux {
+
+    /** Rendez-vous tris de l'agenda. */
+    private final ListeRendezVous listeRdv;
+
+    /** Index des horaires des rendez-vous de l'agenda. */
+    private final ArbreIntervalles intervalles;
+
+    /** Dbut de la plage de chaque journe, en minutes depuis minuit. */
+    private int ouverture;
+
+    /** Fin de la plage de chaque journe, en minutes depuis minuit. */
+    private int fermeture;
+
+    /**
+     * Constructeur paramtrable prenant en argument les rendez-vous de
+     * l'agenda et l'index de leurs horaires. Par dfaut, les crneaux ne sont
+     * pas limits  une plage de la journe.
+     *
+     * @param listeRdv    Rendez-vous tris de l'agenda.
+     * @param intervalles Index des horaires de ces rendez-vous.
+     */
+    public ChercheurCreneaux(ListeRendezVous listeRdv,
+                             ArbreIntervalles intervalles) {
+        this.listeRdv = listeRdv;
+        this.intervalles = intervalles;
+        this.ouverture = 0;
+        this.fermeture = Calendrier.MINUTES_PAR_JOUR;
+    }
+
+    /**
+     * Limite les crneaux recherchs  une plage de chaque journe.
+     * {@code setHoraires(0, Calendrier.MINUTES_PAR_JOUR)} supprime la
+     * limite.
+     *
+     * @param ouverture Dbut de la plage, en minutes depuis minuit.
+     * @param fermeture Fin de la plage, en minutes depuis minuit.
+     * @throws IllegalArgumentException est gnr si la plage est vide ou
+     *                                  dborde de la journe.
+     */
+    public void setHoraires(int ouverture, int fermeture) {
+        if (   ouverture < 0 || fermeture > Calendrier.MINUTES_PAR_JOUR
+            || ouverture >= fermeture) {
+            throw new IllegalArgumentException("Horaires invalides : "
+                                               + ouverture + "-" + fermeture);
+        }
+        this.ouverture = ouverture;
+        this.fermeture = fermeture;
+    }
+
+    /**
+     * Recherche les crneaux libres d'au moins {@code duree} minutes dans la
+     * priode {@code [debut, fin[}.
+     *
+     * @param debut Minute poque du dbut de la priode.
+     * @param fin   Minute poque de la fin de la priode.
+     * @param duree Dure minimale d'un crneau, en minutes (au moins 1).
+     * @return Crneaux libres dans l'ordre chronologique, sous la forme
+     *         {@code {debut0, fin0, debut1, fin1, ...}}.
+     */
+    public int[] cherche(int debut, int fin, int duree) {
+        int[][] creneaux = { new int[16] };
+        int nb = 0;
+        int dureeMin = Math.max(1, duree);
+
+        // Horaire jusqu'auquel l'agenda est occup
+        int occupe = debut;
+        RendezVous[] enCours = intervalles.conflits(debut, debut + 1);
+        for (int i = 0; i < enCours.length; i++) {
+            occupe = Math.max(occupe, enCours[i].getFin());
+        }
+
+        for (int i = listeRdv.premierIndice(debut);
+             i < listeRdv.getNbRdv() && occupe < fin; i++) {
+            RendezVous rdv = listeRdv.get(i);
+            if (rdv.getDebut() >= fin) {
+                break;
+            }
+            // Un rendez-vous de dure nulle n'occupe pas l'agenda
+            if (rdv.getFin() > rdv.getDebut()) {
+                if (rdv.getDebut() > occupe) {
+                    nb = ajoute(creneaux, nb, occupe, rdv.getDebut(),
+                                dureeMin);
+                }
+                occupe = Math.max(occupe, rdv.getFin());
+            }
+        }
+        if (occupe < fin) {
+            nb = ajoute(creneaux, nb, occupe, fin, dureeMin);
+        }
+        return Arrays.copyOf(creneaux[0], nb);
+    }
+
+    /**
+     * Ajoute un intervalle libre aux crneaux trouvs, dcoup selon la plage
+     * de chaque journe. Seuls les morceaux d'au moins {@code duree} minutes
+     * sont retenus.
+     *
+     * @param creneaux Tableau des crneaux, agrandi au besoin.
+     * @param nb       Nombre de cases dj remplies.
+     * @param debut    Minute poque du dbut de l'intervalle libre.
+     * @param fin      Minute poque de la fin de l'intervalle libre.
+     * @param duree    Dure minimale d'un crneau, en minutes.
+     * @return Nombre de cases remplies aprs ajout.
+     */
+    private int ajoute(int[][] creneaux, int nb, int debut, int fin,
+                       int duree) {
+        if (ouverture == 0 && fermeture == Calendrier.MINUTES_PAR_JOUR) {
+            nb = ajouteCreneau(creneaux, nb, debut, fin, duree);
+        } else {
+            for (int jour = Calendrier.jourDeMinute(debut);
+                 jour * Calendrier.MINUTES_PAR_JOUR < fin; jour++) {
+                int minuit = jour * Calendrier.MINUTES_PAR_JOUR;
+                nb = ajouteCreneau(creneaux, nb,
+                                   Math.max(debut, minuit + ouverture),
+                                   Math.min(fin, minuit + fermeture), duree);
+            }
+        }
+        return nb;
+    }
+
+    /**
+     * Ajoute un crneau s'il dure au moins {@code duree} minutes.
+     *
+     * @param creneaux Tableau des crneaux, agrandi au besoin.
+     * @param nb       Nombre de cases dj remplies.
+     * @param debut    Minute poque du dbut du crneau.
+     * @param fin      Minute poque de la fin du crneau.
+     * @param duree    Dure minimale d'un crneau, en minutes.
+     * @return Nombre de cases remplies aprs ajout.
+     */
+    private static int ajouteCreneau(int[][] creneaux, int nb, int debut,
+                                     int fin, int duree) {
+        if (fin - debut >= duree) {
+            if (nb + 2 > creneaux[0].length) {
+                creneaux[0] = Arrays.copyOf(creneaux[0],
+                                            2 * creneaux[0].length);
+            }
+            creneaux[0][nb++] = debut;
+            creneaux[0][nb++] = fin;
+        }
+        return nb;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Fichier :	Contexte.java
+ * Package :	jagenda
+ * Projet jAgenda - Info 1 2011-2012
+ *
+ */
+package jagenda;
+
+import jagenda.util.Config;
+
+/**
+ * Classe {@code Contexte} regroupe les paramtres de configuration d'un
+ * agenda ncessaires  la saisie et  la validation des horaires : la priode
+ * d'annes gre et le format de saisie des dates.<br>
+ * Un {@code Contexte} est immuable : il est construit  partir d'une
+ * {@code Config} puis transmis explicitement aux {@code Horaire} et aux
+ * {@code RendezVous}. Plusieurs agendas de configurations diffrentes peuvent
+ * ainsi coexister dans un mme programme, et tre utiliss simultanment par
+ * plusieurs fils d'excution. Lorsque la configuration d'un agenda change,
+ * un nouveau {@code Contexte} est construit.
+ *
+ * @author  Jason BOURLARD
+ * @author  David PELISSIER
+ * @version 0.3
+ * @see Agenda#getContexte()
+ */
+public final class Contexte {
+
+    /** Anne de dbut de la priode gre par l'agenda. */
+    private final int anneeDebut;
+
+    /** Anne de fin de la priode gre par l'agenda. */
+    private final int anneeFin;
+
+    /**
+     * Format de saisie des dates : {@code 1} pour {@code jj/mm/aaaa}, toute
+     * autre valeur pour {@code jour_semaine semaine numero_semaine annee}.
+     */
+    private final int formatDate;
+
+    /**
+     * Constructeur paramtrable prenant en argument les paramtres du
+     * contexte.
+     *
+     * @param anneeDebut Anne de dbut de la priode gre par l'agenda.
+     * @param anneeFin   Anne de fin de la priode gre par l'agenda.
+     * @param formatDate Format de saisie des dates.
+     */
+    public Contexte(int anneeDebut, int anneeFin, int formatDate) {
+        this.anneeDebut = anneeDebut;
+        this.anneeFin = anneeFin;
+        this.formatDate = formatDate;
+    }
+
+    /**
+     * Constructeur paramtrable prenant en argument la {@code Config} dont
+     * les paramtres sont copis. Les modifications ultrieures de la
+     * {@code Config} sont sans effet sur le contexte.
+     *
+     * @param config Configuration de l'agenda.
+     */
+    public Contexte(Config config) {
+        this(config.getAnneeDebut(), config.getAnneeFin(),
+             config.getFormatDate());
+    }
+
+    /**
+     * Accesseur pour le champ {@code anneeDebut}.
+     *
+     * @return Anne de dbut de la priode gre par l'agenda.
+     */
+    public int getAnneeDebut() {
+        return anneeDebut;
+    }
+
+    /**
+     * Accesseur pour le champ {@code anneeFin}.
+     *
+     * @return Anne de fin de la priode gre par l'agenda.
+     */
+    public int getAnneeFin() {
+        return anneeFin;
+    }
+
+    /**
+     * Accesseur pour le champ {@code formatDate}.
+     *
+     * @return Format de saisie des dates : {@code 1} pour {@code jj/mm/aaaa}.
+     */
+    public int getFormatDate() {
+        return formatDate;
+    }
+
+    /**
+     * Indique si une anne appartient  la priode gre par l'agenda.
+     *
+     * @param annee Anne  tester.
+     * @return {@code true} si {@code anneeDebut <= annee <= anneeFin}.
+     */
+    public boolean estAnneeGeree(int annee) {
+        return anneeDebut <= annee && annee <= anneeFin;
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Fichier :	DictionnaireNatures.java
+ * Package :	jagenda
+ * Projet jAgenda - Info 1 2011-2012
+ *
+ */
+package jagenda;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Classe {@code DictionnaireNatures} attribue un code d'un octet  chaque
+ * nature des rendez-vous d'un agenda : un {@code RendezVous} ne conserve que
+ * ce code, et le nom de sa nature n'existe qu'une fois, dans le dictionnaire
+ * de son agenda.<br>
+ * Les natures sont normalises avant d'tre codes : les espaces qui les
+ * entourent sont retirs, les espaces conscutifs rduits  un seul, et la
+ * casse ignore.
+ * <i>Exemple : {@code " professionnel"} et {@code "PROFESSIONNEL"} dsignent
+ * toutes deux la nature {@code "Professionnel"}.</i><br>
+ * Les natures du menu de choix ont des codes fixes : {@code DIVERS},
+ * {@code PERSONNEL} et {@code PROFESSIONNEL}, reconnus sans crer de chane.
+ * Toute autre nature reoit le premier code libre lors de sa premire
+ * apparition, dans la limite de {@code NB_MAX_NATURES} natures ; au-del,
+ * la nature est refuse et le rendez-vous class dans la nature
+ * {@code DIVERS}.<br>
+ * Chaque agenda a son propre dictionnaire. Un dictionnaire peut tre
+ * utilis par plusieurs fils d'excution, par exemple lors d'un chargement
+ * parallle : la recherche d'une nature connue ne prend aucun verrou, seule
+ * l'attribution d'un nouveau code est synchronise sur le dictionnaire.
+ *
+ * @author  Jason BOURLARD
+ * @author  David PELISSIER
+ * @version 0.3
+ * @see RendezVous#getCodeNature()
+ * @see Agenda#getNatures()
+ */
+public final class DictionnaireNatures {
+
+    /** Code de la nature par dfaut, "Divers". */
+    public static final int DIVERS = 0;
+
+    /** Code de la nature "Personnel", numro 1 du menu de choix. */
+    public static final int PERSONNEL = 1;
+
+    /** Code de la nature "Professionnel", numro 2 du menu de choix. */
+    public static final int PROFESSIONNEL = 2;
+
+    /** Code retourn pour une nature absente du dictionnaire. */
+    public static final int AUTRE = -1;
+
+    /** Nombre maximum de natures d'un dictionnaire, codes sur un octet. */
+    public static final int NB_MAX_NATURES = 256;
+
+    /** Noms normaliss des natures de code fixe, par code. */
+    private static final String[] NOMS_FIXES = { "Divers", "Personnel",
+                                                 "Professionnel" };
+
+    /** Codes des natures du dictionnaire, indexs par nom normalis. */
+    private final ConcurrentHashMap<String, Integer> codes;
+
+    /**
+     * Noms normaliss des natures du dictionnaire, par code. Le tableau est
+     * remplac, jamais modifi,  chaque nouvelle nature.
+     */
+    private volatile String[] noms;
+
+    /** Nombre de natures refuses, faute de code libre. */
+    private volatile int nbRefus;
+
+    /**
+     * Constructeur par dfaut : le dictionnaire ne contient que les natures
+     * de code fixe.
+     */
+    public DictionnaireNatures() {
+        this.codes = new ConcurrentHashMap<String, Integer>();
+        this.noms = NOMS_FIXES.clone();
+        this.nbRefus = 0;
+        for (int i = 0; i < NOMS_FIXES.length; i++) {
+            this.codes.put(NOMS_FIXES[i], i);
+        }
+    }
+
+    /**
+     * Retourne le nombre de natures du dictionnaire.
+     *
+     * @return Nombre de natures, natures de code fixe comprises.
+     */
+    public int getNbNatures() {
+        return noms.length;
+    }
+
+    /**
+     * Accesseur pour le champ {@code nbRefus}.
+     *
+     * @return Nombre de natures refuses faute de code libre, et remplaces
+     *         par la nature {@code DIVERS}.
+     */
+    public int getNbRefus() {
+        return nbRefus;
+    }
+
+    /**
+     * Retourne le code d'une nature, en lui attribuant le premier code libre
+     * si elle est absente du dictionnaire.
+     *
+     * @param nature Nature, telle qu'elle a t saisie ou lue.
+     * @return Code de la nature, de {@code 0}  {@code NB_MAX_NATURES - 1} ;
+     *         {@code DIVERS} pour une nature nulle ou vide, ou refuse faute
+     *         de code libre.
+     */
+    public int code(String nature) {
+        int code = nature == null ? DIVERS : codeFixe(nature);
+        if (code == AUTRE) {
+            String nom = normalise(nature);
+            Integer connu = codes.get(nom);
+            code = connu != null ? connu : ajoute(nom);
+        }
+        return code;
+    }
+
+    /**
+     * Retourne le code d'une nature sans l'ajouter au dictionnaire.
+     *
+     * @param nature Nature, telle qu'elle a t saisie.
+     * @return Code de la nature, ou {@code AUTRE} si elle est absente du
+     *         dictionnaire.
+     */
+    public int cherche(String nature) {
+        int code = nature == null ? DIVERS : codeFixe(nature);
+        if (code == AUTRE) {
+            Integer connu = codes.get(normalise(nature));
+            code = connu != null ? connu : AUTRE;
+        }
+        return code;
+    }
+
+    /**
+     * Retourne le nom normalis d'une nature du dictionnaire.
+     *
+     * @param code Code de la nature.
+     * @return Nom de la nature.
+     * @throws IllegalArgumentException est gnr si le code n'appartient pas
+     *                                  au dictionnaire.
+     */
+    public String nom(int code) {
+        String[] courants = noms;
+        if (code < 0 || code >= courants.length) {
+            throw new IllegalArgumentException("Nature inconnue : " + code);
+        }
+        return courants[code];
+    }
+
+    /**
+     * Attribue le premier code libre  une nouvelle nature. Le nom est
+     * publi avant le code : un fil qui obtient le code trouve le nom.
+     *
+     * @param nom Nom normalis de la nature.
+     * @return Code attribu, celui attribu entre-temps par un autre fil, ou
+     *         {@code DIVERS} si le dictionnaire est plein.
+     */
+    private synchronized int ajoute(String nom) {
+        Integer connu = codes.get(nom);
+        int code;
+        if (connu != null) {
+            code = connu;
+        } else if (noms.length == NB_MAX_NATURES) {
+            nbRefus++;
+            code = DIVERS;
+        } else {
+            String[] nouveaux = Arrays.copyOf(noms, noms.length + 1);
+            code = noms.length;
+            nouveaux[code] = nom;
+            noms = nouveaux;
+            codes.put(nom, code);
+        }
+        return code;
+    }
+
+    /**
+     * Retourne la forme normalise d'une nature : sans espaces autour,
+     * chaque suite d'espaces rduite  un seul, en minuscules sauf la
+     * premire lettre.
+     *
+     * @param nature Nature, telle qu'elle a t saisie ou lue.
+     * @return Nature normalise ; {@code "Divers"} pour une nature nulle ou
+     *         vide.
+     */
+    public static String normalise(String nature) {
+        String aRetourner;
+        int code = nature == null ? DIVERS : codeFixe(nature);
+        if (code != AUTRE) {
+            aRetourner = NOMS_FIXES[code];
+        } else {
+            StringBuilder sb = new StringBuilder(nature.length());
+            boolean espace = false;
+            for (int i = 0; i < nature.length(); i++) {
+                char c = nature.charAt(i);
+                if (Character.isWhitespace(c)) {
+                    espace = sb.length() > 0;
+                } else {
+                    if (espace) {
+                        sb.append(' ');
+                        espace = false;
+                    }
+                    sb.append(sb.length() == 0 ? Character.toUpperCase(c)
+                                               : Character.toLowerCase(c));
+                }
+            }
+            aRetourner = sb.toString();
+        }
+        return aRetourner;
+    }
+
+    /**
+     * Retourne le code fixe d'une nature, sans crer de chane : la nature
+     * est compare aux noms des natures de code fixe en ignorant la casse et
+     * les espaces qui l'entourent. Une nature vide est la nature
+     * {@code DIVERS}.
+     *
+     * @param nature Nature, telle qu'elle a t saisie ou lue.
+     * @return {@code DIVERS}, {@code PERSONNEL}, {@code PROFESSIONNEL}, ou
+     *         {@code AUTRE} pour toute autre nature.
+     */
+    private static int codeFixe(String nature) {
+        int debut = 0;
+        int fin = nature.length();
+        while (debut < fin && Character.isWhitespace(nature.charAt(debut))) {
+            debut++;
+        }
+        while (fin > debut && Character.isWhitespace(nature.charAt(fin - 1))) {
+            fin--;
+        }
+        int code = debut == fin ? DIVERS : AUTRE;
+        for (int i = 0; code == AUTRE && i < NOMS_FIXES.length; i++) {
+            if (   fin - debut == NOMS_FIXES[i].length()
+                && nature.regionMatches(true, debut, NOMS_FIXES[i], 0,
+                                        NOMS_FIXES[i].length())) {
+                code = i;
+            }
+        }
+        return code;
+    }
+}
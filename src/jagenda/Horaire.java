@@ -6,9 +6,6 @@
  */
 package jagenda;
 
-import static jagenda.Principale.*;
-
-import java.text.SimpleDateFormat;
 import java.util.GregorianCalendar;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -16,6 +13,16 @@ import java.util.regex.Pattern;
 /**
  * Classe <code>Horaire</code> rfrence un moment prcis dans un repre 
  * temporel, en prcisant une date et une heure.</p>
+ * <p>Les dates et heures sont formates sans {@code SimpleDateFormat} : les
+ * chiffres sont crits directement dans un {@code StringBuilder} fourni par
+ * l'appelant, et les dates au format <code>jj/mm/aaaa</code> des annes
+ * <code>AN_MIN</code>  <code>AN_MAX</code> sont conserves dans un cache
+ * index par jour. Ces mthodes peuvent tre appeles simultanment par
+ * plusieurs fils d'excution.</p>
+ * <p>La priode gre et le format de saisie des dates sont lus dans le
+ * {@code Contexte} de l'agenda, transmis aux constructeurs et 
+ * {@code estDateValide} : des horaires de plusieurs agendas, de
+ * configurations diffrentes, peuvent tre crs en mme temps.</p>
  * 
  * @author	Jason BOURLARD
  * @author	David PELISSIER
@@ -40,6 +47,31 @@ public class Horaire extends GregorianCalendar {
     public static final String[] JOURS_SEMAINE = 
         {"dimanche","lundi","mardi","mercredi","jeudi","vendredi","samedi"};
 
+    /**
+     * Noms des jours de la semaine, rangs selon leur hachage parfait (voir
+     * {@link #hacheJour(char, int)}) : chaque nom occupe seul sa case.
+     */
+    private static final String[] NOMS_JOURS = new String[16];
+
+    /**
+     * Jour de la semaine ISO correspondant  chaque case de
+     * {@code NOMS_JOURS}.
+     */
+    private static final int[] NUMEROS_JOURS = new int[16];
+
+    static {
+        for (int i = 0; i < JOURS_SEMAINE.length; i++) {
+            int indice = hacheJour(JOURS_SEMAINE[i].charAt(0),
+                                   JOURS_SEMAINE[i].length());
+            NOMS_JOURS[indice] = JOURS_SEMAINE[i];
+            // JOURS_SEMAINE commence par dimanche
+            NUMEROS_JOURS[indice] = i == 0 ? Calendrier.DIMANCHE : i;
+        }
+    }
+
+    /** Jour poque retourn pour une date invalide. */
+    public final static int DATE_INVALIDE = Integer.MIN_VALUE;
+
     /** Format explicite de date : jj/mm/aaaa */
     private final static Pattern FORMAT_DATE_1 = 
             Pattern.compile("(\\d{1,2})/(\\d{1,2})/(\\d{4})");
@@ -52,48 +84,89 @@ public class Horaire extends GregorianCalendar {
     private final static Pattern FORMAT_HEURE = 
             Pattern.compile("(\\d{1,2})(h|H|:)(\\d{1,2})");        
    
+    /** Jour poque du 01/01/<code>AN_MIN</code>, premier jour du cache. */
+    private final static int PREMIER_JOUR_CACHE =
+            Calendrier.jourEpoque(AN_MIN, 1, 1);
+
     /**
-     * Format d'affichage des dates sous forme de String.
-     * <ul><li>dd :   Jour sur 2 chiffres</li>
-     *     <li>MM :   Mois sur 2 chiffres</li>
-     *     <li>yyyy : Anne sur 4 chiffres</li></ul>
-     */
-    public final static SimpleDateFormat SDF_DATE = 
-            new SimpleDateFormat("dd/MM/yyyy" );
-    
-    /**
-     * Format d'affichage des heures sous forme de String.
-     * <ul><li>hh :   Heure sur 2 chiffres</li>
-     *     <li>mm :   Minutes sur 2 chiffres</li></ul>
+     * Cache des dates au format <code>jj/mm/aaaa</code>, index par jour
+     * poque  partir de <code>PREMIER_JOUR_CACHE</code> et rempli  la
+     * demande.<br>
+     * Deux fils d'excution peuvent formater la mme date en mme temps : ils
+     * obtiennent la mme chane, et une {@code String} tant immuable, celle
+     * qui est conserve est toujours complte.
      */
-    public final static SimpleDateFormat SDF_HEURE = 
-            new SimpleDateFormat("HH'h'mm");
+    private final static String[] CACHE_DATES =
+            new String[Calendrier.jourEpoque(AN_MAX + 1, 1, 1)
+                       - PREMIER_JOUR_CACHE];
 
     /**
-     * Constructeur par dfaut.
+     * Constructeur prenant en argument le {@code Contexte} de l'agenda.
      * <p>Initialise une date et heure au <i>01/01/<code>anneeDebut</code> 
      * 00:00</i>. On rappelle que <code>anneeDebut</code> est dfinie comme le 
      * dbut de la priode gre par le calendrier (fichier de configuration).
      * </p>
+     * @param contexte Contexte de l'agenda.
      */
-    public Horaire() {
-        super(agenda.getAnneeDebut(),0,1,0,0);
+    public Horaire(Contexte contexte) {
+        super(contexte.getAnneeDebut(),0,1,0,0);
     }
 
     /**
      * Constructeur paramtrable prenant en argument la {@code date} et l'
      * {@code heure}  affecter  l'objet {@code Horaire}  crer.
-     * @param date  Date pour l'horaire du rendez-vous.
-     * @param heure Heures et minutes pour l'horaire du rendez-vous.
-     * @param format 
+     * @param contexte Contexte de l'agenda, donnant le format de la date.
+     * @param date     Date pour l'horaire du rendez-vous.
+     * @param heure    Heures et minutes pour l'horaire du rendez-vous.
      */
-    public Horaire(String date, String heure) {
-        this();
-        if (agenda.getFormatDate() == 1) {
-            this.setHoraire1(date, heure);
-        } else {
-            this.setHoraire2(date, heure);
-        }
+    public Horaire(Contexte contexte, String date, String heure) {
+        this(contexte);
+        this.setHoraire(contexte, date, heure);
+    }
+    
+    /**
+     * Constructeur paramtrable prenant en argument les champs, dj lus et
+     * vrifis, de l'horaire  crer.<br>
+     * Aucune analyse de chane de caractres n'est effectue : la validit des
+     * champs est  la charge de l'appelant (voir
+     * {@link Calendrier#estDateValide(int, int, int)}).
+     * @param annee   Anne de l'horaire.
+     * @param mois    Mois de l'horaire, de 1 (janvier)  12 (dcembre).
+     * @param jour    Jour du mois de l'horaire.
+     * @param heures  Heures de l'horaire, de 0  23.
+     * @param minutes Minutes de l'horaire, de 0  59.
+     */
+    public Horaire(int annee, int mois, int jour, int heures, int minutes) {
+        // Calendar.JANUARY = 00 or janvier s'crit jj/01/aaaa
+        super(annee, mois-1, jour, heures, minutes);
+    }
+    
+    /**
+     * Cre un {@code Horaire}  partir de sa minute poque.
+     * @param minuteEpoque Nombre de minutes coules depuis le 01/01/1970
+     *                     00h00.
+     * @return Horaire correspondant.
+     * @see Calendrier#minuteEpoque(int, int, int, int, int)
+     */
+    public static Horaire depuisMinuteEpoque(int minuteEpoque) {
+        int jourEpoque = Calendrier.jourDeMinute(minuteEpoque);
+        int minuteJour = minuteEpoque - jourEpoque*Calendrier.MINUTES_PAR_JOUR;
+        int date = Calendrier.date(jourEpoque);
+        return new Horaire(date / 10000, date / 100 % 100, date % 100,
+                           minuteJour / 60, minuteJour % 60);
+    }
+
+    /**
+     * Accesseur pour la minute poque de l'horaire.
+     * @return Nombre de minutes coules entre le 01/01/1970 00h00 et cet
+     *         horaire.
+     * @see Calendrier#minuteEpoque(int, int, int, int, int)
+     */
+    public int getMinuteEpoque() {
+        return Calendrier.minuteEpoque(this.get(YEAR), this.get(MONTH)+1,
+                                       this.get(DAY_OF_MONTH),
+                                       this.get(HOUR_OF_DAY),
+                                       this.get(MINUTE));
     }
     
     /**
@@ -103,7 +176,7 @@ public class Horaire extends GregorianCalendar {
      *         <code>jj/mm/aaaa</code>.
      */
     public String getDate() {
-        return SDF_DATE.format(this.getTime());
+        return date(Calendrier.jourDeMinute(this.getMinuteEpoque()));
     }
     
     /**
@@ -113,105 +186,170 @@ public class Horaire extends GregorianCalendar {
      *         <code>'HH'h'mm'</code>.
      */
     public String getHeure() {
-        return SDF_HEURE.format(this.getTime());
+        return ajouteHeure(new StringBuilder(5), this.getMinuteEpoque())
+               .toString();
     }
-    
+
     /**
-     * Formate un horaire suivant le format 1,  savoir, 
-     * "<i>{@code jj/mm/aaaa}</i>", seulement si les paramtres constituant le
-     * nouvel horaire sont valides.<br>
-     * Dans le cas contraire, l'horaire reste inchange.
+     * Retourne la date d'un jour poque au format <code>jj/mm/aaaa</code>.
+     * <br>Pour les annes <code>AN_MIN</code>  <code>AN_MAX</code>, la date
+     * n'est formate qu'une fois, puis lue dans le cache.
+     * @param jourEpoque Nombre de jours couls depuis le 01/01/1970.
+     * @return Chane de caractres reprsentant la date au format
+     *         <code>jj/mm/aaaa</code>.
      */
-    private void setHoraire1(String date, String heure) {
-        if (estDateValide(date) && estHeureValide(heure)) {
-            // Initialisation des analyseurs de regex
-            Matcher analyseDate = FORMAT_DATE_1.matcher(date);
-            Matcher analyseHeure = FORMAT_HEURE.matcher(heure);
-            // Si l'analyse par regex est correcte, on extrait les paramtres
-            if (analyseDate.matches() && analyseHeure.matches()) {
-                int jour    = Integer.parseInt(analyseDate.group(1));
-                // Calendar.JANUARY = 00 or janvier s'crit jj/01/aaa
-                int mois    = Integer.parseInt(analyseDate.group(2))-1;
-                int annee   = Integer.parseInt(analyseDate.group(3));
-                int heures  = Integer.parseInt(analyseHeure.group(1));
-                int minutes = Integer.parseInt(analyseHeure.group(3));
-
-                this.set(annee,mois,jour,heures,minutes);
+    static String date(int jourEpoque) {
+        int indice = jourEpoque - PREMIER_JOUR_CACHE;
+        boolean enCache = 0 <= indice && indice < CACHE_DATES.length;
+        String date = enCache ? CACHE_DATES[indice] : null;
+        if (date == null) {
+            date = formateDate(new StringBuilder(10), jourEpoque).toString();
+            if (enCache) {
+                CACHE_DATES[indice] = date;
             }
         }
+        return date;
+    }
+
+    /**
+     * Ajoute la date d'un instant donn par sa minute poque, au format
+     * <code>jj/mm/aaaa</code>,  la fin d'un {@code StringBuilder}.<br>
+     * Aucun {@code Horaire} n'est cr, et la date est lue dans le cache des
+     * dates (voir {@link #date(int)}).
+     * @param sb           {@code StringBuilder} o ajouter la date.
+     * @param minuteEpoque Minute poque de l'instant.
+     * @return Le {@code StringBuilder} {@code sb}.
+     * @see #getDate()
+     */
+    static StringBuilder ajouteDate(StringBuilder sb, int minuteEpoque) {
+        return sb.append(date(Calendrier.jourDeMinute(minuteEpoque)));
+    }
+
+    /**
+     * Formate la date d'un jour poque au format <code>jj/mm/aaaa</code>  la
+     * fin d'un {@code StringBuilder}, sans passer par le cache.
+     * @param sb         {@code StringBuilder} o ajouter la date.
+     * @param jourEpoque Nombre de jours couls depuis le 01/01/1970.
+     * @return Le {@code StringBuilder} {@code sb}.
+     */
+    private static StringBuilder formateDate(StringBuilder sb,
+                                             int jourEpoque) {
+        int date = Calendrier.date(jourEpoque);
+        ajouteDeuxChiffres(sb, date % 100).append('/');
+        ajouteDeuxChiffres(sb, date / 100 % 100).append('/');
+        return sb.append(date / 10000);
+    }
+
+    /**
+     * Ajoute l'heure d'un instant donn par sa minute poque, au format
+     * <code>'HH'h'mm'</code>,  la fin d'un {@code StringBuilder}.<br>
+     * Contrairement  {@code getHeure()}, ni {@code Horaire} ni chane de
+     * caractres intermdiaire n'est cr.
+     * @param sb           {@code StringBuilder} o ajouter l'heure.
+     * @param minuteEpoque Minute poque de l'instant.
+     * @return Le {@code StringBuilder} {@code sb}.
+     * @see #getHeure()
+     */
+    static StringBuilder ajouteHeure(StringBuilder sb, int minuteEpoque) {
+        int minuteJour = minuteEpoque - Calendrier.jourDeMinute(minuteEpoque)
+                                        * Calendrier.MINUTES_PAR_JOUR;
+        ajouteDeuxChiffres(sb, minuteJour / 60).append('h');
+        return ajouteDeuxChiffres(sb, minuteJour % 60);
+    }
+
+    /**
+     * Ajoute un nombre de 0  99 sur deux chiffres  la fin d'un
+     * {@code StringBuilder}.
+     * @param sb     {@code StringBuilder} o ajouter le nombre.
+     * @param nombre Nombre  ajouter, de 0  99.
+     * @return Le {@code StringBuilder} {@code sb}.
+     */
+    private static StringBuilder ajouteDeuxChiffres(StringBuilder sb,
+                                                    int nombre) {
+        return sb.append((char) ('0' + nombre / 10))
+                 .append((char) ('0' + nombre % 10));
     }
     
     /**
-     * Formate un horaire suivant le format 1,  savoir, 
-     * "<i>{@code jour_semaine} semaine 
-     * {@code numero_semaine} de {@code annee}</i>", seulement si les paramtres
-     * constituant le nouvel horaire sont valides.<br>
+     * Formate un horaire suivant le format de date du {@code Contexte}, 
+     * savoir "<i>{@code jj/mm/aaaa}</i>" (format 1) ou "<i>
+     * {@code jour_semaine} semaine {@code numero_semaine annee}</i>"
+     * (format 2), seulement si les paramtres constituant le nouvel horaire
+     * sont valides.<br>
      * Dans le cas contraire, l'horaire reste inchange.
      */
-    private void setHoraire2(String date, String heure) {
-        if (estDateValide(date) && estHeureValide(heure)) {
-            // Initialisation des analyseurs de regex
-            Matcher analyseDate = FORMAT_DATE_1.matcher(date);
-            Matcher analyseHeure = FORMAT_HEURE.matcher(heure);
-            // Si l'analyse par regex est correcte, on extrait les paramtres
-            if (analyseDate.matches() && analyseHeure.matches()) {
-                int jour = numJour(analyseDate.group(1));
-                int semaine = Integer.parseInt(analyseDate.group(2));
-                int annee = Integer.parseInt(analyseDate.group(3));
-                int heures  = Integer.parseInt(analyseHeure.group(1));
-                int minutes = Integer.parseInt(analyseHeure.group(3));
-                
-                this.setWeekDate(annee,semaine,jour);
-                this.set(HOUR_OF_DAY, heures);
-                this.set(MINUTE, minutes);
-            }
+    private void setHoraire(Contexte contexte, String date, String heure) {
+        int jourEpoque = jourEpoque(contexte, date);
+        int minuteJour = minuteJour(heure);
+        if (jourEpoque != DATE_INVALIDE && minuteJour != -1) {
+            int jourDate = Calendrier.date(jourEpoque);
+
+            // Calendar.JANUARY = 00 or janvier s'crit jj/01/aaa
+            this.set(jourDate / 10000, jourDate / 100 % 100 - 1,
+                     jourDate % 100, minuteJour / 60, minuteJour % 60);
         }
-    }    
+    }
 
     /**
-     * Permet de vrifier la validit de la date d'un horaire.
+     * Permet de vrifier la validit de la date d'un horaire.<br>
+     * La date est vrifie par les tables de {@code Calendrier}, sans
+     * instancier de {@code GregorianCalendar}. Au format 2, le numro de
+     * semaine est celui de la norme ISO 8601 (52 ou 53 semaines par an).
      * 
-     * @param date  Date pour l'horaire du rendez-vous.
+     * @param contexte Contexte de l'agenda, donnant le format de la date et
+     *                 la priode gre.
+     * @param date     Date pour l'horaire du rendez-vous.
      * @return  {@code true} si valide.   
+     * @see #jourEpoque(Contexte, String)
      */
-    public static boolean estDateValide(String date) {
-        boolean correct = false;
-        GregorianCalendar dateTest = new GregorianCalendar();
-        if (agenda.getFormatDate() == 1) {
+    public static boolean estDateValide(Contexte contexte, String date) {
+        return jourEpoque(contexte, date) != DATE_INVALIDE;
+    }
+
+    /**
+     * Retourne le jour poque d'une date saisie au format du
+     * {@code Contexte}.<br>
+     * Au format 1, la date est vrifie puis convertie par les tables de
+     * {@code Calendrier}. Au format 2, le nom du jour est retrouv par
+     * hachage parfait et le jour poque est lu dans la table des lundis de
+     * semaine 1 : les deux formats sont rsolus aussi rapidement.
+     * 
+     * @param contexte Contexte de l'agenda, donnant le format de la date et
+     *                 la priode gre.
+     * @param date     Date  convertir.
+     * @return Nombre de jours couls entre le 01/01/1970 et cette date, ou
+     *         {@code Integer.MIN_VALUE} si la date est invalide.
+     * @see Calendrier#jourEpoque(int, int, int)
+     * @see Calendrier#jourEpoqueSemaine(int, int, int)
+     */
+    public static int jourEpoque(Contexte contexte, String date) {
+        int jourEpoque = DATE_INVALIDE;
+        if (contexte.getFormatDate() == 1) {
             Matcher analyseDate = FORMAT_DATE_1.matcher(date);
-            try {
-                if (analyseDate.matches()) {
-                    int jour = Integer.parseInt(analyseDate.group(1));
-                    // Calendar.JANUARY = 00 or janvier s'crit jj/01/aaaa
-                    int mois = Integer.parseInt(analyseDate.group(2))-1;  
-                    int annee = Integer.parseInt(analyseDate.group(3));
-                    dateTest.set(annee,mois,jour);            
-                    dateTest.setLenient(false);
-                    dateTest.getTime();
-                    correct =  agenda.getAnneeDebut() <= annee
-                            && annee <= agenda.getAnneeFin();
+            if (analyseDate.matches()) {
+                int jour = Integer.parseInt(analyseDate.group(1));
+                int mois = Integer.parseInt(analyseDate.group(2));
+                int annee = Integer.parseInt(analyseDate.group(3));
+                if (   Calendrier.estDateValide(annee, mois, jour)
+                    && contexte.estAnneeGeree(annee)) {
+                    jourEpoque = Calendrier.jourEpoque(annee, mois, jour);
                 }
-            } catch (IllegalStateException staEx) {
-            } catch (IllegalArgumentException argEx) {
             }
         } else {
             Matcher analyseDate = FORMAT_DATE_2.matcher(date);
-            try {
-                analyseDate.matches();
-                int jour = numJour(analyseDate.group(1));
+            if (analyseDate.matches()) {
+                int jour = numJour(date, analyseDate.start(1),
+                                   analyseDate.end(1));
                 int semaine = Integer.parseInt(analyseDate.group(2));
                 int annee = Integer.parseInt(analyseDate.group(3));
-                dateTest.setWeekDate(annee,semaine,jour);            
-                dateTest.setLenient(false);
-                dateTest.getTime();
-                correct =    agenda.getAnneeDebut() <= annee
-                          && annee <= agenda.getAnneeFin();
-            } catch (IllegalStateException staEx) {
-            } catch (IllegalArgumentException argEx) {
+                if (   Calendrier.estSemaineValide(annee, semaine, jour)
+                    && contexte.estAnneeGeree(annee)) {
+                    jourEpoque = Calendrier.jourEpoqueSemaine(annee, semaine,
+                                                              jour);
+                }
             }
-  
         }
-        return correct;
+        return jourEpoque;
     }
     
     /**
@@ -221,42 +359,71 @@ public class Horaire extends GregorianCalendar {
      * @return  {@code true} si valide.   
      */
     public static boolean estHeureValide(String heure) {
+        return minuteJour(heure) != -1;
+    }
+
+    /**
+     * Retourne le nombre de minutes coules depuis minuit  l'heure d'un
+     * horaire.
+     * 
+     * @param heure  Heure pour l'horaire du rendez-vous.
+     * @return Nombre de minutes depuis 00h00, ou -1 si l'heure est invalide.
+     * @see #estHeureValide(String)
+     */
+    static int minuteJour(String heure) {
+        int minuteJour = -1;
         Matcher analyseHeure = FORMAT_HEURE.matcher(heure);
         if (analyseHeure.matches()) {
             int heures = Integer.parseInt(analyseHeure.group(1));
             int minutes = Integer.parseInt(analyseHeure.group(3));
-            return    0 <= heures && heures <= 59
-                    && 0<= minutes && minutes <= 59;
-        } else {
-            return false;
+            if (   0 <= heures && heures <= 59
+                && 0<= minutes && minutes <= 59) {
+                minuteJour = heures * 60 + minutes;
+            }
         }
+        return minuteJour;
     }
     
 
     /**
-     * Permet de retourner le numro du jour dans la semaine.
-     * @param jourSemaine  Jour sous forme textuelle  tester.
-     * @return Valeur positive correspondant au numro du jour dans la semaine,
-     *          savoir :
-     *         <ul><li>1 => dimanche</li>
-     *             <li>2 => lundi</li>
-     *             <li>...</li></ul>
-     *         Retourne -1 si le <code>jourSemaine</code> test n'est pas valide.
+     * Permet de retourner le numro du jour dans la semaine.<br>
+     * Le nom est cherch dans une seule case de {@code NOMS_JOURS}, dsigne
+     * par son hachage parfait, puis compar sans tenir compte de la casse.
+     * @param date  Chane contenant le jour sous forme textuelle  tester.
+     * @param debut Indice du premier caractre du nom du jour.
+     * @param fin   Indice suivant le dernier caractre du nom du jour.
+     * @return Valeur positive correspondant au numro du jour dans la semaine
+     *         ISO,  savoir :
+     *         <ul><li>1 => lundi</li>
+     *             <li>...</li>
+     *             <li>7 => dimanche</li></ul>
+     *         Retourne -1 si le jour test n'est pas valide.
      */
-    private static int numJour(String jourSemaine) {
-        int jour;      // Valeur de retour de la vrification.
-        try {
-            for (jour = 0; !(jourSemaine.equalsIgnoreCase(JOURS_SEMAINE[jour]))  
-              && jour < JOURS_SEMAINE.length; jour++);
-            // Afin d'obtenir "dimanche=1", on ajoute 1  la variable jour
-            // Ceci permet de rester homogne avec java.util.Calendat puisque
-            // Calendar.SUNDAY = 1.
-            jour += 1;
-        } catch (IndexOutOfBoundsException e) {
-            jour = -1;
+    private static int numJour(String date, int debut, int fin) {
+        int jour = -1;      // Valeur de retour de la vrification.
+        if (fin > debut) {
+            int indice = hacheJour(date.charAt(debut), fin - debut);
+            String nom = NOMS_JOURS[indice];
+            if (   nom != null && nom.length() == fin - debut
+                && nom.regionMatches(true, 0, date, debut, fin - debut)) {
+                jour = NUMEROS_JOURS[indice];
+            }
         }
         return jour;
     }
+
+    /**
+     * Hachage parfait des noms des jours de la semaine : chacun des sept
+     * noms obtient une case diffrente de {@code NOMS_JOURS}. La premire
+     * lettre est ramene en minuscule, ce qui suffit pour des lettres
+     * ASCII.
+     * @param initiale Premire lettre du nom du jour.
+     * @param longueur Nombre de lettres du nom du jour.
+     * @return Indice de 0  15 dans {@code NOMS_JOURS}.
+     */
+    private static int hacheJour(char initiale, int longueur) {
+        return (2 * (initiale | 0x20) + longueur) & 15;
+    }
     
     /* (non-Javadoc)
      * @see java.lang.Object#hashCode()
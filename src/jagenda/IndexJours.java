@@ -0,0 +1,318 @@
+/*
+ * Fichier :	IndexJours.java
+ * Package :	jagenda
+ * Projet jAgenda - Info 1 2011-2012
+ *
+ */
+package jagenda;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Classe {@code IndexJours} range les {@code RendezVous} d'un agenda par
+ * jour, afin de lister ceux d'un jour, d'une semaine ou d'un mois sans
+ * parcourir les autres jours de l'agenda.<br>
+ * Chaque jour occup a son propre compartiment, une {@code ListeRendezVous}
+ * trie par horaire de dbut, retrouv par son jour poque. Seuls les jours
+ * occups ont un compartiment : un agenda couvrant de nombreuses annes mais
+ * peu rempli reste lger.<br>
+ * Un {@code RendezVous} se terminant aprs minuit est rang dans chacun des
+ * jours qu'il occupe. Lister une priode cote une recherche par jour plus le
+ * nombre de rendez-vous de ces jours.<br><br>
+ * Chaque compartiment retient aussi les minutes occupes de son jour, dans
+ * une table de 1440 bits : savoir si un horaire est libre se rsume 
+ * quelques oprations sur des {@code long}, sans examiner les rendez-vous du
+ * jour. Un rendez-vous de dure nulle occupe sa minute de dbut, de sorte
+ * qu'un horaire dclar libre n'est en conflit avec aucun rendez-vous.<br>
+ * Un {@code IndexJours} n'est pas synchronis.
+ *
+ * @author  Jason BOURLARD
+ * @author  David PELISSIER
+ * @version 0.3
+ * @see Agenda#listePeriode(int, int)
+ */
+public class IndexJours {
+
+    /** Priode de listage : un jour. */
+    public static final int JOUR = 1;
+
+    /** Priode de listage : la semaine, du lundi au dimanche. */
+    public static final int SEMAINE = 2;
+
+    /** Priode de listage : le mois. */
+    public static final int MOIS = 3;
+
+    /** Capacit initiale du compartiment d'un jour. */
+    private static final int CAPACITE_JOUR = 4;
+
+    /** Nombre de {@code long} de la table des minutes d'un jour. */
+    private static final int MOTS_PAR_JOUR =
+            (Calendrier.MINUTES_PAR_JOUR + Long.SIZE - 1) / Long.SIZE;
+
+    /**
+     * Compartiment d'un jour : ses rendez-vous, tris par horaire de dbut,
+     * et la table de ses minutes occupes.
+     */
+    private static final class Compartiment {
+
+        /** Rendez-vous du jour. */
+        private final ListeRendezVous rdv;
+
+        /** Minutes occupes du jour, un bit par minute depuis minuit. */
+        private final long[] minutes;
+
+        /**
+         * Constructeur d'un compartiment vide.
+         */
+        private Compartiment() {
+            this.rdv = new ListeRendezVous(CAPACITE_JOUR);
+            this.minutes = new long[MOTS_PAR_JOUR];
+        }
+    }
+
+    /** Compartiments des jours occups, indexs par jour poque. */
+    private final HashMap<Integer, Compartiment> jours;
+
+    /**
+     * Constructeur par dfaut : l'index est vide.
+     */
+    public IndexJours() {
+        this.jours = new HashMap<Integer, Compartiment>();
+    }
+
+    /**
+     * Constructeur paramtrable prenant en argument les {@code RendezVous}
+     *  indexer.
+     *
+     * @param listeRdv Rendez-vous  indexer.
+     */
+    public IndexJours(RendezVous[] listeRdv) {
+        this();
+        for (int i = 0; i < listeRdv.length; i++) {
+            ajoute(listeRdv[i]);
+        }
+    }
+
+    /**
+     * Retourne le nombre de jours occups par au moins un rendez-vous.
+     *
+     * @return Nombre de compartiments de l'index.
+     */
+    public int getNbJours() {
+        return jours.size();
+    }
+
+    /**
+     * Ajoute un {@code RendezVous} au compartiment de chacun des jours qu'il
+     * occupe, et marque ses minutes comme occupes.
+     *
+     * @param rdv Rendez-vous  ajouter.
+     */
+    public void ajoute(RendezVous rdv) {
+        for (int jour = premierJour(rdv); jour <= dernierJour(rdv); jour++) {
+            Compartiment compartiment = jours.get(jour);
+            if (compartiment == null) {
+                compartiment = new Compartiment();
+                jours.put(jour, compartiment);
+            }
+            if (compartiment.rdv.ajoute(rdv)) {
+                marque(compartiment.minutes, jour, rdv);
+            }
+        }
+    }
+
+    /**
+     * Retire un {@code RendezVous} gal  celui donn des compartiments des
+     * jours qu'il occupe. Le compartiment d'un jour devenu libre est
+     * supprim ; sinon, ses minutes occupes sont recalcules  partir des
+     * rendez-vous qui y restent, car d'autres rendez-vous peuvent occuper
+     * les mmes minutes.
+     *
+     * @param rdv Rendez-vous  retirer.
+     */
+    public void retire(RendezVous rdv) {
+        for (int jour = premierJour(rdv); jour <= dernierJour(rdv); jour++) {
+            Compartiment compartiment = jours.get(jour);
+            if (compartiment != null && compartiment.rdv.retire(rdv)) {
+                if (compartiment.rdv.getNbRdv() == 0) {
+                    jours.remove(jour);
+                } else {
+                    Arrays.fill(compartiment.minutes, 0L);
+                    for (int i = 0; i < compartiment.rdv.getNbRdv(); i++) {
+                        marque(compartiment.minutes, jour,
+                               compartiment.rdv.get(i));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Indique si l'horaire {@code [debut, fin[} est libre, c'est--dire
+     * qu'aucune de ses minutes n'est occupe par un rendez-vous. Seules les
+     * tables des minutes des jours concerns sont consultes.<br>
+     * Un horaire libre n'est en conflit avec aucun rendez-vous ; un horaire
+     * occup peut toutefois ne l'tre par aucun rendez-vous en conflit au
+     * sens de {@link RendezVous#compareTo(RendezVous)}, par exemple s'il
+     * contient un rendez-vous de dure nulle qui commence avec lui.
+     *
+     * @param debut Minute poque du dbut de l'horaire.
+     * @param fin   Minute poque de la fin de l'horaire, aprs {@code debut}.
+     * @return {@code true} si aucune minute de l'horaire n'est occupe.
+     */
+    public boolean estLibre(int debut, int fin) {
+        boolean libre = true;
+        for (int jour = Calendrier.jourDeMinute(debut);
+             libre && jour <= Calendrier.jourDeMinute(fin - 1); jour++) {
+            Compartiment compartiment = jours.get(jour);
+            if (compartiment != null) {
+                int minuit = jour * Calendrier.MINUTES_PAR_JOUR;
+                libre = !estOccupe(compartiment.minutes,
+                                   Math.max(debut, minuit) - minuit,
+                                   Math.min(fin, minuit
+                                            + Calendrier.MINUTES_PAR_JOUR)
+                                   - minuit);
+            }
+        }
+        return libre;
+    }
+
+    /**
+     * Retourne les {@code RendezVous} d'une priode contenant un jour donn.
+     *
+     * @param periode    {@code JOUR}, {@code SEMAINE} ou {@code MOIS}.
+     * @param jourEpoque Jour poque d'un jour de la priode.
+     * @return Les rendez-vous de la priode, par horaire de dbut.
+     * @throws IllegalArgumentException est gnr si la priode est
+     *                                  inconnue.
+     */
+    public RendezVous[] periode(int periode, int jourEpoque) {
+        RendezVous[] aRetourner;
+        switch (periode) {
+        case JOUR:
+            aRetourner = jours(jourEpoque, 1);
+            break;
+        case SEMAINE:
+            aRetourner = jours(jourEpoque - (Calendrier.jourSemaine(jourEpoque)
+                                             - Calendrier.LUNDI), 7);
+            break;
+        case MOIS:
+            int date = Calendrier.date(jourEpoque);
+            int annee = date / 10000;
+            int mois = date / 100 % 100;
+            aRetourner = jours(Calendrier.jourEpoque(annee, mois, 1),
+                               Calendrier.nbJoursMois(annee, mois));
+            break;
+        default:
+            throw new IllegalArgumentException("Priode inconnue : "
+                                               + periode);
+        }
+        return aRetourner;
+    }
+
+    /**
+     * Retourne les {@code RendezVous} de plusieurs jours conscutifs, dans
+     * l'ordre de leur horaire de dbut. Un rendez-vous occupant plusieurs de
+     * ces jours n'est retourn qu'une fois.
+     *
+     * @param premier Jour poque du premier jour.
+     * @param nbJours Nombre de jours.
+     * @return Les rendez-vous de ces jours.
+     */
+    public RendezVous[] jours(int premier, int nbJours) {
+        RendezVous[] resultat = new RendezVous[CAPACITE_JOUR];
+        int nb = 0;
+        for (int jour = premier; jour < premier + nbJours; jour++) {
+            Compartiment compartiment = jours.get(jour);
+            if (compartiment != null) {
+                for (int i = 0; i < compartiment.rdv.getNbRdv(); i++) {
+                    RendezVous rdv = compartiment.rdv.get(i);
+                    // Dj retourn avec un jour prcdent de la priode
+                    if (jour == premier || premierJour(rdv) == jour) {
+                        if (nb == resultat.length) {
+                            resultat = Arrays.copyOf(resultat, 2 * nb);
+                        }
+                        resultat[nb++] = rdv;
+                    }
+                }
+            }
+        }
+        return Arrays.copyOf(resultat, nb);
+    }
+
+    /**
+     * Marque comme occupes les minutes d'un jour pendant lesquelles a lieu
+     * un rendez-vous. Un rendez-vous de dure nulle occupe sa minute de
+     * dbut.
+     *
+     * @param minutes Table des minutes du jour.
+     * @param jour    Jour poque.
+     * @param rdv     Rendez-vous ayant lieu ce jour.
+     */
+    private static void marque(long[] minutes, int jour, RendezVous rdv) {
+        int minuit = jour * Calendrier.MINUTES_PAR_JOUR;
+        int de = Math.max(rdv.getDebut(), minuit) - minuit;
+        int a = Math.min(Math.max(rdv.getFin(), rdv.getDebut() + 1),
+                         minuit + Calendrier.MINUTES_PAR_JOUR) - minuit;
+        for (int mot = de / Long.SIZE; mot <= (a - 1) / Long.SIZE; mot++) {
+            minutes[mot] |= masque(mot, de, a);
+        }
+    }
+
+    /**
+     * Indique si l'une des minutes {@code [de, a[} d'un jour est occupe.
+     *
+     * @param minutes Table des minutes du jour.
+     * @param de      Premire minute teste, depuis minuit.
+     * @param a       Minute suivant la dernire minute teste.
+     * @return {@code true} si au moins une minute est occupe.
+     */
+    private static boolean estOccupe(long[] minutes, int de, int a) {
+        boolean occupe = false;
+        for (int mot = de / Long.SIZE; !occupe && mot <= (a - 1) / Long.SIZE;
+             mot++) {
+            occupe = (minutes[mot] & masque(mot, de, a)) != 0;
+        }
+        return occupe;
+    }
+
+    /**
+     * Retourne le masque des minutes {@code [de, a[} contenues dans un mot
+     * de la table des minutes.
+     *
+     * @param mot Indice du mot.
+     * @param de  Premire minute, depuis minuit.
+     * @param a   Minute suivant la dernire minute.
+     * @return Bits du mot correspondant aux minutes.
+     */
+    private static long masque(int mot, int de, int a) {
+        int premier = Math.max(de - mot * Long.SIZE, 0);
+        int dernier = Math.min(a - mot * Long.SIZE, Long.SIZE);
+        // -1L >>> 64 vaut -1L : le mot entier est trait  part
+        long haut = dernier == Long.SIZE ? -1L : (1L << dernier) - 1;
+        return haut & (-1L << premier);
+    }
+
+    /**
+     * Retourne le jour poque du premier jour occup par un rendez-vous.
+     *
+     * @param rdv Rendez-vous.
+     * @return Jour de son horaire de dbut.
+     */
+    private static int premierJour(RendezVous rdv) {
+        return Calendrier.jourDeMinute(rdv.getDebut());
+    }
+
+    /**
+     * Retourne le jour poque du dernier jour occup par un rendez-vous : un
+     * rendez-vous se terminant  minuit n'occupe pas le jour suivant.
+     *
+     * @param rdv Rendez-vous.
+     * @return Jour de sa dernire minute.
+     */
+    private static int dernierJour(RendezVous rdv) {
+        return Calendrier.jourDeMinute(Math.max(rdv.getDebut(),
+                                                rdv.getFin() - 1));
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Fichier :	IndexNatures.java
+ * Package :	jagenda
+ * Projet jAgenda - Info 1 2011-2012
+ *
+ */
+package jagenda;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Classe {@code IndexNatures} range les {@code RendezVous} d'un agenda par
+ * nature, afin de lister ceux d'une nature ou de les compter sans parcourir
+ * les rendez-vous des autres natures.<br>
+ * Chaque nature a son propre compartiment, une {@code ListeRendezVous} trie
+ * par horaire de dbut, rang dans un tableau  l'indice du code de la
+ * nature : retrouver le compartiment d'un rendez-vous ne demande ni chane
+ * ni hachage. Le nombre de rendez-vous d'une nature est la taille de son
+ * compartiment, tenue  jour  chaque ajout et retrait.<br>
+ * Un {@code IndexNatures} n'est pas synchronis.
+ *
+ * @author  Jason BOURLARD
+ * @author  David PELISSIER
+ * @version 0.3
+ * @see DictionnaireNatures#code(String)
+ * @see Agenda#listeNature(String)
+ */
+public class IndexNatures {
+
+    /** Dictionnaire des natures de l'agenda, qui en donne les noms. */
+    private final DictionnaireNatures dictionnaire;
+
+    /**
+     * Compartiments des natures, indexs par code ; {@code null} pour une
+     * nature sans rendez-vous.
+     */
+    private final ListeRendezVous[] natures;
+
+    /**
+     * Constructeur paramtrable prenant en argument le dictionnaire des
+     * natures de l'agenda : l'index est vide.
+     *
+     * @param dictionnaire Dictionnaire des natures de l'agenda.
+     */
+    public IndexNatures(DictionnaireNatures dictionnaire) {
+        this.dictionnaire = dictionnaire;
+        this.natures = new ListeRendezVous[DictionnaireNatures.NB_MAX_NATURES];
+    }
+
+    /**
+     * Constructeur paramtrable prenant en argument le dictionnaire des
+     * natures de l'agenda et les {@code RendezVous}  indexer.
+     *
+     * @param dictionnaire Dictionnaire des natures de l'agenda.
+     * @param listeRdv     Rendez-vous  indexer.
+     */
+    public IndexNatures(DictionnaireNatures dictionnaire,
+                        RendezVous[] listeRdv) {
+        this(dictionnaire);
+        for (int i = 0; i < listeRdv.length; i++) {
+            ajoute(listeRdv[i]);
+        }
+    }
+
+    /**
+     * Ajoute un {@code RendezVous} au compartiment de sa nature.
+     *
+     * @param rdv Rendez-vous  ajouter.
+     */
+    public void ajoute(RendezVous rdv) {
+        int code = rdv.getCodeNature();
+        if (natures[code] == null) {
+            natures[code] = new ListeRendezVous();
+        }
+        natures[code].ajoute(rdv);
+    }
+
+    /**
+     * Retire un {@code RendezVous} gal  celui donn du compartiment de sa
+     * nature. Si sa nature a chang depuis son ajout, il est cherch dans
+     * les compartiments des autres natures.
+     *
+     * @param rdv Rendez-vous  retirer.
+     * @return {@code true} si un rendez-vous a t retir.
+     */
+    public boolean retire(RendezVous rdv) {
+        int code = rdv.getCodeNature();
+        boolean retire = retire(code, rdv);
+        for (int autre = 0; !retire && autre < natures.length; autre++) {
+            if (autre != code && retire(autre, rdv)) {
+                code = autre;
+                retire = true;
+            }
+        }
+        if (retire && natures[code].getNbRdv() == 0) {
+            natures[code] = null;
+        }
+        return retire;
+    }
+
+    /**
+     * Retourne le nombre de {@code RendezVous} d'une nature.
+     *
+     * @param code Code de la nature.
+     * @return Nombre de rendez-vous de cette nature.
+     */
+    public int getNbRdv(int code) {
+        return estCode(code) && natures[code] != null
+               ? natures[code].getNbRdv() : 0;
+    }
+
+    /**
+     * Retourne le nombre de {@code RendezVous} de chaque nature prsente.
+     *
+     * @return Nombre de rendez-vous, index par nom de nature, dans l'ordre
+     *         alphabtique des natures.
+     */
+    public Map<String, Integer> nbRdvParNature() {
+        TreeMap<String, Integer> nbRdv = new TreeMap<String, Integer>();
+        for (int code = 0; code < natures.length; code++) {
+            if (natures[code] != null) {
+                nbRdv.put(dictionnaire.nom(code), natures[code].getNbRdv());
+            }
+        }
+        return nbRdv;
+    }
+
+    /**
+     * Retourne les {@code RendezVous} d'une nature.
+     *
+     * @param code Code de la nature ; un code hors du dictionnaire, comme
+     *             {@code DictionnaireNatures.AUTRE}, ne dsigne aucun
+     *             rendez-vous.
+     * @return Les rendez-vous de cette nature, dans l'ordre chronologique.
+     */
+    public RendezVous[] nature(int code) {
+        return estCode(code) && natures[code] != null
+               ? natures[code].versTableau() : new RendezVous[0];
+    }
+
+    /**
+     * Retire un {@code RendezVous} du compartiment d'une nature.
+     *
+     * @param code Code de la nature.
+     * @param rdv  Rendez-vous  retirer.
+     * @return {@code true} si un rendez-vous a t retir.
+     */
+    private boolean retire(int code, RendezVous rdv) {
+        return natures[code] != null && natures[code].retire(rdv);
+    }
+
+    /**
+     * Indique si un entier peut tre le code d'une nature.
+     *
+     * @param code Entier  tester.
+     * @return {@code true} si {@code 0 <= code < NB_MAX_NATURES}.
+     */
+    private boolean estCode(int code) {
+        return 0 <= code && code < natures.length;
+    }
+}
@@ -0,0 +1,633 @@
+/*
+ * Fichier :	IndexTexte.java
+ * Package :	jagenda
+ * Projet jAgenda - Info 1 2011-2012
+ *
+ */
+package jagenda;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32C;
+
+import jagenda.util.Fichier;
+
+/**
+ * Classe {@code IndexTexte} est un index invers des mots du libell et de
+ * la description des {@code RendezVous} d'un agenda, permettant de les
+ * retrouver par mots-cls sans parcourir tous les rendez-vous.<br>
+ * Chaque rendez-vous index reoit un numro. Le numro d'un rendez-vous
+ * retir est rattribu au prochain rendez-vous ajout : il n'y a jamais
+ * plus de numros que de rendez-vous indexs en mme temps.  chaque mot est
+ * associe la liste trie des numros des rendez-vous qui le contiennent.
+ * Les mots sont conservs en minuscules et sans accents, et rangs par ordre
+ * alphabtique : les mots commenant par un prfixe donn se suivent.<br>
+ * Les mots de chaque rendez-vous sont retenus lors de son ajout, afin de
+ * le retirer de l'index mme si son libell ou sa description ont t
+ * modifis depuis.<br><br>
+ * Une recherche contient un ou plusieurs mots, tous exigs. Un mot termin
+ * par {@code *} dsigne tous les mots qui commencent par lui.<br>
+ * <i>Exemple : {@code "runion budg*"}</i><br><br>
+ * L'index peut tre enregistr  ct du fichier de sauvegarde, puis relu au
+ * lancement suivant au lieu d'tre reconstruit. Le fichier dbute par un
+ * en-tte :
+ * <ul><li>{@code int} : signature {@code SIGNATURE} ("JIDX"),</li>
+ *     <li>{@code byte} : version du format,</li>
+ *     <li>{@code int} : nombre de rendez-vous indexs,</li>
+ *     <li>{@code long} : empreinte CRC32C des rendez-vous indexs,</li>
+ *     <li>{@code int} : nombre de mots.</li></ul>
+ * Chaque mot est ensuite enregistr de la faon suivante :
+ * <ul><li>{@code short} non sign suivi d'autant d'octets : mot encod en
+ *         UTF-8,</li>
+ *     <li>{@code int} : nombre de rendez-vous contenant le mot,</li>
+ *     <li>{@code int} pour chacun : sa position dans la liste
+ *         chronologique des rendez-vous.</li></ul>
+ * Un index dont l'empreinte ne correspond pas aux rendez-vous chargs est
+ * refus : il est alors reconstruit.<br><br>
+ * Un {@code IndexTexte} n'est pas synchronis.
+ *
+ * @author  Jason BOURLARD
+ * @author  David PELISSIER
+ * @version 0.3
+ * @see Agenda#recherche(String)
+ */
+public class IndexTexte {
+
+    /** Signature dbutant tout fichier d'index : "JIDX". */
+    public static final int SIGNATURE = 0x4A494458;
+
+    /** Version du format de l'index. */
+    private static final byte VERSION = 1;
+
+    /** Longueur minimale d'un mot index. */
+    private static final int LONGUEUR_MIN = 2;
+
+    /** Marque d'un mot de recherche dsignant un prfixe. */
+    private static final char PREFIXE = '*';
+
+    /** Taille maximale, en octets, d'un mot enregistr. */
+    private static final int TAILLE_MOT_MAX = 0xFFFF;
+
+    /** Encodage des mots enregistrs. */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /** Mots d'un rendez-vous qui n'en contient aucun. */
+    private static final String[] AUCUN_MOT = new String[0];
+
+    /**
+     * Liste trie des numros des rendez-vous contenant un mot.
+     */
+    private static final class Occurrences {
+
+        /** Numros des rendez-vous, croissants, suivis de cases libres. */
+        private int[] ids;
+
+        /** Nombre de numros de la liste. */
+        private int nb;
+
+        /**
+         * Constructeur d'une liste de numros.
+         *
+         * @param capacite Nombre de numros prvus.
+         */
+        private Occurrences(int capacite) {
+            this.ids = new int[Math.max(1, capacite)];
+            this.nb = 0;
+        }
+
+        /**
+         * Ajoute un numro  sa place dans la liste ; un numro dj prsent
+         * n'est pas ajout une seconde fois. Un numro suprieur  tous ceux
+         * de la liste, cas le plus courant, est ajout  la fin sans
+         * recherche.
+         *
+         * @param id Numro de rendez-vous.
+         * @return {@code true} si le numro a t ajout.
+         */
+        private boolean ajoute(int id) {
+            int indice = nb == 0 || ids[nb - 1] < id
+                         ? -(nb + 1)
+                         : Arrays.binarySearch(ids, 0, nb, id);
+            boolean ajoute = indice < 0;
+            if (ajoute) {
+                indice = -(indice + 1);
+                if (nb == ids.length) {
+                    ids = Arrays.copyOf(ids, 2 * nb);
+                }
+                System.arraycopy(ids, indice, ids, indice + 1, nb - indice);
+                ids[indice] = id;
+                nb++;
+            }
+            return ajoute;
+        }
+
+        /**
+         * Retire un numro de la liste.
+         *
+         * @param id Numro de rendez-vous.
+         */
+        private void retire(int id) {
+            int indice = Arrays.binarySearch(ids, 0, nb, id);
+            if (indice >= 0) {
+                nb--;
+                System.arraycopy(ids, indice + 1, ids, indice, nb - indice);
+            }
+        }
+    }
+
+    /** Mots indexs, par ordre alphabtique. */
+    private final TreeMap<String, Occurrences> mots;
+
+    /** Rendez-vous indexs, par numro ; {@code null} s'il a t retir. */
+    private RendezVous[] parId;
+
+    /** Mots distincts de chaque rendez-vous index, par numro. */
+    private String[][] motsParId;
+
+    /** Nombre de numros attribus, libres ou non. */
+    private int prochainId;
+
+    /** Numros libres, laisss par les rendez-vous retirs. */
+    private int[] libres;
+
+    /** Nombre de numros libres. */
+    private int nbLibres;
+
+    /** Numro de chaque rendez-vous index. */
+    private final HashMap<RendezVous, Integer> ids;
+
+    /**
+     * Constructeur par dfaut : l'index est vide.
+     */
+    public IndexTexte() {
+        this.mots = new TreeMap<String, Occurrences>();
+        this.parId = new RendezVous[16];
+        this.motsParId = new String[16][];
+        this.prochainId = 0;
+        this.libres = new int[16];
+        this.nbLibres = 0;
+        this.ids = new HashMap<RendezVous, Integer>();
+    }
+
+    /**
+     * Constructeur paramtrable prenant en argument les {@code RendezVous}
+     *  indexer.
+     *
+     * @param listeRdv Rendez-vous  indexer.
+     */
+    public IndexTexte(RendezVous[] listeRdv) {
+        this();
+        for (int i = 0; i < listeRdv.length; i++) {
+            ajoute(listeRdv[i]);
+        }
+    }
+
+    /**
+     * Retourne le nombre de mots diffrents de l'index.
+     *
+     * @return Nombre de mots indexs.
+     */
+    public int getNbMots() {
+        return mots.size();
+    }
+
+    /**
+     * Retourne le nombre de rendez-vous indexs.
+     *
+     * @return Nombre de rendez-vous indexs.
+     */
+    public int getNbRdv() {
+        return ids.size();
+    }
+
+    /**
+     * Ajoute les mots d'un {@code RendezVous}  l'index. Un rendez-vous gal
+     *  un rendez-vous dj index (mmes horaires) n'est pas ajout.<br>
+     * Le rendez-vous reoit un numro libre s'il y en a un, sinon un nouveau
+     * numro. Ses mots distincts sont retenus pour son retrait.
+     *
+     * @param rdv Rendez-vous  indexer.
+     */
+    public void ajoute(RendezVous rdv) {
+        if (!ids.containsKey(rdv)) {
+            int id;
+            if (nbLibres > 0) {
+                id = libres[--nbLibres];
+            } else {
+                id = prochainId++;
+                if (id == parId.length) {
+                    parId = Arrays.copyOf(parId, 2 * id);
+                    motsParId = Arrays.copyOf(motsParId, 2 * id);
+                }
+            }
+            parId[id] = rdv;
+            ids.put(rdv, id);
+            ArrayList<String> motsRdv = motsRdv(rdv);
+            int nbDistincts = 0;
+            for (int i = 0; i < motsRdv.size(); i++) {
+                Occurrences occurrences = mots.get(motsRdv.get(i));
+                if (occurrences == null) {
+                    occurrences = new Occurrences(4);
+                    mots.put(motsRdv.get(i), occurrences);
+                }
+                if (occurrences.ajoute(id)) {
+                    motsRdv.set(nbDistincts++, motsRdv.get(i));
+                }
+            }
+            motsParId[id] = nbDistincts == 0
+                            ? AUCUN_MOT
+                            : motsRdv.subList(0, nbDistincts)
+                                     .toArray(new String[nbDistincts]);
+        }
+    }
+
+    /**
+     * Retire de l'index le {@code RendezVous} gal  celui donn. Les mots
+     * retirs sont ceux retenus lors de son ajout, mme si le rendez-vous a
+     * entre-temps un autre libell ou une autre description. Son numro est
+     * libr pour le prochain ajout.
+     *
+     * @param rdv Rendez-vous  retirer.
+     * @return {@code true} si un rendez-vous a t retir.
+     */
+    public boolean retire(RendezVous rdv) {
+        Integer id = ids.remove(rdv);
+        if (id != null) {
+            String[] motsRdv = motsParId[id];
+            for (int i = 0; i < motsRdv.length; i++) {
+                Occurrences occurrences = mots.get(motsRdv[i]);
+                if (occurrences != null) {
+                    occurrences.retire(id);
+                    if (occurrences.nb == 0) {
+                        mots.remove(motsRdv[i]);
+                    }
+                }
+            }
+            parId[id] = null;
+            motsParId[id] = null;
+            if (nbLibres == libres.length) {
+                libres = Arrays.copyOf(libres, 2 * nbLibres);
+            }
+            libres[nbLibres++] = id;
+        }
+        return id != null;
+    }
+
+    /**
+     * Recherche les {@code RendezVous} contenant tous les mots d'une
+     * recherche. Un mot termin par {@code *} dsigne tous les mots
+     * commenant par lui. Les mots trop courts pour tre indexs sont
+     * ignors, sauf s'ils dsignent un prfixe.
+     *
+     * @param recherche Mots recherchs, spars par des espaces.
+     * @return Les rendez-vous contenant tous les mots, dans l'ordre
+     *         chronologique ; aucun si la recherche ne contient aucun mot.
+     */
+    public RendezVous[] cherche(String recherche) {
+        ArrayList<int[]> listes = new ArrayList<int[]>();
+        String[] morceaux = recherche.trim().split("\\s+");
+        for (int i = 0; i < morceaux.length; i++) {
+            boolean prefixe = morceaux[i].endsWith(String.valueOf(PREFIXE));
+            ArrayList<String> motsMorceau = new ArrayList<String>();
+            decoupe(morceaux[i], prefixe ? 1 : LONGUEUR_MIN, motsMorceau);
+            for (int j = 0; j < motsMorceau.size(); j++) {
+                listes.add(prefixe && j == motsMorceau.size() - 1
+                           ? occurrencesPrefixe(motsMorceau.get(j))
+                           : occurrences(motsMorceau.get(j)));
+            }
+        }
+
+        int[] resultat = intersection(listes);
+        RendezVous[] aRetourner = new RendezVous[resultat.length];
+        for (int i = 0; i < resultat.length; i++) {
+            aRetourner[i] = parId[resultat[i]];
+        }
+        Arrays.sort(aRetourner, RendezVous.ORDRE_CHRONOLOGIQUE);
+        return aRetourner;
+    }
+
+    /**
+     * Enregistre l'index dans un fichier. Les rendez-vous y sont dsigns
+     * par leur position dans la liste chronologique donne, qui doit
+     * contenir exactement les rendez-vous indexs.
+     *
+     * @param fichier  Fichier o enregistrer l'index. Son contenu prcdent
+     *                 est cras.
+     * @param listeRdv Rendez-vous indexs, dans l'ordre
+     *                 {@link RendezVous#ORDRE_CHRONOLOGIQUE}.
+     * @throws IOException est gnr si le fichier ne peut pas tre crit ou
+     *                     si les rendez-vous donns ne sont pas ceux de
+     *                     l'index.
+     * @see ListeRendezVous#versTableau()
+     */
+    public void sauve(Fichier fichier, RendezVous[] listeRdv)
+            throws IOException {
+        if (listeRdv.length != ids.size()) {
+            throw new IOException("Les rendez-vous ne sont pas ceux de "
+                                  + "l'index.");
+        }
+        int[] positions = new int[prochainId];
+        for (int id = 0; id < prochainId; id++) {
+            if (parId[id] != null) {
+                positions[id] = Arrays.binarySearch(listeRdv, parId[id],
+                        RendezVous.ORDRE_CHRONOLOGIQUE);
+                if (positions[id] < 0) {
+                    throw new IOException("Les rendez-vous ne sont pas ceux "
+                                          + "de l'index.");
+                }
+            }
+        }
+
+        DataOutputStream sortie = new DataOutputStream(
+                new BufferedOutputStream(
+                        new FileOutputStream(fichier.getFichierSysteme())));
+        try {
+            sortie.writeInt(SIGNATURE);
+            sortie.writeByte(VERSION);
+            sortie.writeInt(listeRdv.length);
+            sortie.writeLong(empreinte(listeRdv));
+            sortie.writeInt(mots.size());
+            int[] tampon = new int[16];
+            for (Map.Entry<String, Occurrences> mot : mots.entrySet()) {
+                byte[] octets = mot.getKey().getBytes(UTF8);
+                if (octets.length > TAILLE_MOT_MAX) {
+                    throw new IOException("Mot trop long pour l'index : "
+                                          + octets.length + " octets.");
+                }
+                sortie.writeShort(octets.length);
+                sortie.write(octets);
+
+                Occurrences occurrences = mot.getValue();
+                if (tampon.length < occurrences.nb) {
+                    tampon = new int[occurrences.nb];
+                }
+                for (int i = 0; i < occurrences.nb; i++) {
+                    tampon[i] = positions[occurrences.ids[i]];
+                }
+                Arrays.sort(tampon, 0, occurrences.nb);
+                sortie.writeInt(occurrences.nb);
+                for (int i = 0; i < occurrences.nb; i++) {
+                    sortie.writeInt(tampon[i]);
+                }
+            }
+        } finally {
+            sortie.close();
+        }
+    }
+
+    /**
+     * Charge un index enregistr par {@link #sauve(Fichier, RendezVous[])}.
+     * L'index n'est accept que s'il a t enregistr pour les rendez-vous
+     * donns : mme nombre et mme empreinte.
+     *
+     * @param fichier  Fichier de l'index.
+     * @param listeRdv Rendez-vous de l'agenda, dans l'ordre
+     *                 {@link RendezVous#ORDRE_CHRONOLOGIQUE}.
+     * @return L'index charg.
+     * @throws java.io.FileNotFoundException est gnr si le fichier
+     *                                       n'existe pas.
+     * @throws IOException est gnr si le fichier ne peut pas tre lu,
+     *                     n'est pas un fichier d'index, est tronqu ou ne
+     *                     correspond pas aux rendez-vous donns.
+     */
+    public static IndexTexte charge(Fichier fichier, RendezVous[] listeRdv)
+            throws IOException {
+        ByteBuffer octets = fichier.projette();
+        IndexTexte index = new IndexTexte();
+        try {
+            if (   octets.getInt() != SIGNATURE || octets.get() != VERSION
+                || octets.getInt() != listeRdv.length
+                || octets.getLong() != empreinte(listeRdv)) {
+                throw new IOException(fichier + " n'est pas l'index des "
+                                      + "rendez-vous chargs.");
+            }
+            index.parId = Arrays.copyOf(listeRdv,
+                                        Math.max(16, listeRdv.length));
+            index.motsParId = new String[index.parId.length][];
+            index.prochainId = listeRdv.length;
+            for (int id = 0; id < listeRdv.length; id++) {
+                index.ids.put(listeRdv[id], id);
+            }
+
+            // Nombre de mots retenus pour chaque rendez-vous
+            int[] nbMotsParId = new int[listeRdv.length];
+            int nbMots = octets.getInt();
+            byte[] tampon = new byte[64];
+            for (int i = 0; i < nbMots; i++) {
+                int taille = octets.getShort() & TAILLE_MOT_MAX;
+                if (tampon.length < taille) {
+                    tampon = new byte[taille];
+                }
+                octets.get(tampon, 0, taille);
+                String mot = new String(tampon, 0, taille, UTF8);
+
+                int nb = octets.getInt();
+                if (nb < 0 || nb > listeRdv.length) {
+                    throw new IOException(fichier + " est corrompu.");
+                }
+                Occurrences occurrences = new Occurrences(nb);
+                for (int j = 0; j < nb; j++) {
+                    int id = octets.getInt();
+                    if (id < 0 || id >= listeRdv.length) {
+                        throw new IOException(fichier + " est corrompu.");
+                    }
+                    if (occurrences.ajoute(id)) {
+                        index.retiensMot(id, nbMotsParId[id]++, mot);
+                    }
+                }
+                index.mots.put(mot, occurrences);
+            }
+            for (int id = 0; id < listeRdv.length; id++) {
+                index.motsParId[id] = nbMotsParId[id] == 0
+                        ? AUCUN_MOT
+                        : Arrays.copyOf(index.motsParId[id],
+                                        nbMotsParId[id]);
+            }
+        } catch (BufferUnderflowException finEx) {
+            throw new IOException(fichier + " est tronqu.");
+        }
+        return index;
+    }
+
+    /**
+     * Retient un mot d'un {@code RendezVous} lors du chargement de l'index,
+     *  la suite de ceux dj retenus.
+     *
+     * @param id       Numro du rendez-vous.
+     * @param position Nombre de mots dj retenus pour ce rendez-vous.
+     * @param mot      Mot  retenir.
+     */
+    private void retiensMot(int id, int position, String mot) {
+        if (motsParId[id] == null) {
+            motsParId[id] = new String[4];
+        } else if (position == motsParId[id].length) {
+            motsParId[id] = Arrays.copyOf(motsParId[id], 2 * position);
+        }
+        motsParId[id][position] = mot;
+    }
+
+    /**
+     * Calcule l'empreinte CRC32C des horaires, libells et descriptions
+     * d'une liste de rendez-vous.
+     *
+     * @param listeRdv Rendez-vous, dans l'ordre chronologique.
+     * @return Empreinte de la liste.
+     */
+    private static long empreinte(RendezVous[] listeRdv) {
+        CRC32C controle = new CRC32C();
+        ByteBuffer horaires = ByteBuffer.allocate(8);
+        for (int i = 0; i < listeRdv.length; i++) {
+            horaires.clear();
+            horaires.putInt(listeRdv[i].getDebut())
+                    .putInt(listeRdv[i].getFin());
+            controle.update(horaires.array(), 0, 8);
+            if (listeRdv[i].getLibelle() != null) {
+                controle.update(listeRdv[i].getLibelle().getBytes(UTF8));
+            }
+            controle.update(0);
+            if (listeRdv[i].getDescription() != null) {
+                controle.update(listeRdv[i].getDescription().getBytes(UTF8));
+            }
+            controle.update(0);
+        }
+        return controle.getValue();
+    }
+
+    /**
+     * Retourne les mots indexs d'un {@code RendezVous} : ceux de son
+     * libell puis ceux de sa description.
+     *
+     * @param rdv Rendez-vous.
+     * @return Mots du rendez-vous, ventuellement rpts.
+     */
+    private static ArrayList<String> motsRdv(RendezVous rdv) {
+        ArrayList<String> motsRdv = new ArrayList<String>();
+        if (rdv.getLibelle() != null) {
+            decoupe(rdv.getLibelle(), LONGUEUR_MIN, motsRdv);
+        }
+        if (rdv.getDescription() != null) {
+            decoupe(rdv.getDescription(), LONGUEUR_MIN, motsRdv);
+        }
+        return motsRdv;
+    }
+
+    /**
+     * Dcoupe un texte en mots : suites de lettres et de chiffres, mises en
+     * minuscules et prives de leurs accents.
+     *
+     * @param texte        Texte  dcouper.
+     * @param longueurMin  Longueur minimale des mots retenus.
+     * @param destination  Liste  laquelle ajouter les mots.
+     */
+    private static void decoupe(String texte, int longueurMin,
+                                ArrayList<String> destination) {
+        String decompose = Normalizer.normalize(texte, Normalizer.Form.NFD);
+        StringBuilder mot = new StringBuilder();
+        for (int i = 0; i <= decompose.length(); i++) {
+            char c = i < decompose.length() ? decompose.charAt(i) : ' ';
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                // Accent spar de sa lettre par la dcomposition
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                mot.append(Character.toLowerCase(c));
+            } else {
+                if (mot.length() >= longueurMin) {
+                    destination.add(mot.toString());
+                }
+                mot.setLength(0);
+            }
+        }
+    }
+
+    /**
+     * Retourne les numros des rendez-vous contenant un mot.
+     *
+     * @param mot Mot recherch.
+     * @return Numros croissants des rendez-vous.
+     */
+    private int[] occurrences(String mot) {
+        Occurrences occurrences = mots.get(mot);
+        return occurrences == null ? new int[0]
+                                   : Arrays.copyOf(occurrences.ids,
+                                                   occurrences.nb);
+    }
+
+    /**
+     * Retourne les numros des rendez-vous contenant un mot commenant par
+     * un prfixe.
+     *
+     * @param prefixe Prfixe recherch.
+     * @return Numros croissants et distincts des rendez-vous.
+     */
+    private int[] occurrencesPrefixe(String prefixe) {
+        int[] ids = new int[16];
+        int nb = 0;
+        for (Occurrences occurrences
+                : mots.subMap(prefixe, prefixe + Character.MAX_VALUE)
+                      .values()) {
+            if (nb + occurrences.nb > ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(2 * ids.length,
+                                                  nb + occurrences.nb));
+            }
+            System.arraycopy(occurrences.ids, 0, ids, nb, occurrences.nb);
+            nb += occurrences.nb;
+        }
+        Arrays.sort(ids, 0, nb);
+        int nbDistincts = 0;
+        for (int i = 0; i < nb; i++) {
+            if (nbDistincts == 0 || ids[nbDistincts - 1] != ids[i]) {
+                ids[nbDistincts++] = ids[i];
+            }
+        }
+        return Arrays.copyOf(ids, nbDistincts);
+    }
+
+    /**
+     * Retourne les numros communs  plusieurs listes croissantes. La plus
+     * courte est parcourue, et chacun de ses numros cherch par dichotomie
+     * dans les autres.
+     *
+     * @param listes Listes de numros croissants.
+     * @return Numros prsents dans toutes les listes ; aucun s'il n'y a
+     *         aucune liste.
+     */
+    private static int[] intersection(ArrayList<int[]> listes) {
+        int[] resultat = new int[0];
+        if (!listes.isEmpty()) {
+            int plusCourte = 0;
+            for (int i = 1; i < listes.size(); i++) {
+                if (listes.get(i).length < listes.get(plusCourte).length) {
+                    plusCourte = i;
+                }
+            }
+            resultat = listes.get(plusCourte).clone();
+            int nb = resultat.length;
+            for (int i = 0; i < listes.size() && nb > 0; i++) {
+                if (i != plusCourte) {
+                    int[] liste = listes.get(i);
+                    int nbCommuns = 0;
+                    for (int j = 0; j < nb; j++) {
+                        if (Arrays.binarySearch(liste, resultat[j]) >= 0) {
+                            resultat[nbCommuns++] = resultat[j];
+                        }
+                    }
+                    nb = nbCommuns;
+                }
+            }
+            resultat = Arrays.copyOf(resultat, nb);
+        }
+        return resultat;
+    }
+}
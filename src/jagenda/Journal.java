@@ -0,0 +1,333 @@
+/*
+ * Fichier :	Journal.java
+ * Package :	jagenda
+ * Projet jAgenda - Info 1 2011-2012
+ *
+ */
+package jagenda;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+
+import jagenda.util.Fichier;
+
+/**
+ * Classe {@code Journal} reprsente le journal des modifications apportes
+ * aux rendez-vous de l'agenda depuis la dernire sauvegarde complte.<br>
+ * Chaque ajout, modification ou suppression est inscrit  la fin du journal
+ * au moment o il a lieu : une modification cote l'criture d'une seule
+ * ligne, quel que soit le nombre de rendez-vous de l'agenda, et n'est pas
+ * perdue si le programme s'arrte brutalement.<br>
+ * Au chargement, le journal est rejou sur les rendez-vous de la dernire
+ * sauvegarde complte. Un point de contrle consiste  crire une nouvelle
+ * sauvegarde complte puis  vider le journal.<br><br>
+ * Chaque ligne du journal dbute par le type de l'opration, suivi du
+ * rendez-vous concern au format du fichier de sauvegarde :
+ * <ul><li>{@code +} : ajout du rendez-vous,</li>
+ *     <li>{@code -} : suppression du rendez-vous,</li>
+ *     <li>{@code ~} : modification du rendez-vous ; la ligne suivante, de
+ *         type {@code =}, donne le rendez-vous modifi.</li></ul>
+ * <i>Exemple : +10/01/2012::13h30::14h30::One:: Professionnel::Description
+ * </i><br><br>
+ * Rejouer plusieurs fois le mme journal donne le mme rsultat : une
+ * interruption entre la sauvegarde complte et le vidage du journal est donc
+ * sans consquence.<br>
+ * Une criture interrompue laisse en fin de journal une ligne sans fin de
+ * ligne, ou une modification sans sa seconde ligne. Cette fin tronque est
+ * ignore au rejeu, puis retire du fichier avant qu'il soit rouvert en
+ * criture : les oprations suivantes ne s'y mlent pas.
+ *
+ * @author  Jason BOURLARD
+ * @author  David PELISSIER
+ * @version 0.3
+ * @see ListeRendezVous#ajoute(RendezVous)
+ * @see ListeRendezVous#retire(RendezVous)
+ */
+public class Journal {
+
+    /** Type d'une ligne du journal : ajout d'un rendez-vous. */
+    public static final char AJOUT = '+';
+
+    /** Type d'une ligne du journal : suppression d'un rendez-vous. */
+    public static final char SUPPRESSION = '-';
+
+    /** Type d'une ligne du journal : modification d'un rendez-vous. */
+    public static final char MODIFICATION = '~';
+
+    /**
+     * Type d'une ligne du journal : rendez-vous remplaant celui de la ligne
+     * de modification qui la prcde.
+     */
+    public static final char REMPLACEMENT = '=';
+
+    /** Sparateur de lignes, inscrit entre les deux lignes d'une modification.*/
+    private static final String FIN_LIGNE =
+            System.getProperty("line.separator");
+
+    /** Fichier contenant le journal. */
+    private final Fichier fichier;
+
+    /** Dictionnaire des natures de l'agenda. */
+    private final DictionnaireNatures natures;
+
+    /**
+     * Niveau de durabilit des oprations inscrites.
+     * @see jagenda.util.Fichier#synchronise(int)
+     */
+    private final int durabilite;
+
+    /** {@code true} si le journal est ouvert en criture. */
+    private boolean ouvert;
+
+    /** Nombre d'oprations inscrites dans le journal. */
+    private int nbOperations;
+
+    /** Nombre de lignes errones rencontres lors du dernier rejeu. */
+    private int nbErreur;
+
+    /** Taille du fichier lors du dernier rejeu, en octets. */
+    private int tailleLue;
+
+    /**
+     * Taille, en octets, du dbut du fichier form d'oprations compltes
+     * lors du dernier rejeu ; le reste est une fin tronque.
+     */
+    private int tailleIntacte;
+
+    /**
+     * Constructeur paramtrable prenant en argument le {@code Fichier}
+     * contenant le journal, le dictionnaire des natures de l'agenda et le
+     * niveau de durabilit de ses sauvegardes.
+     *
+     * @param fichier    Fichier du journal.
+     * @param natures    Dictionnaire des natures de l'agenda.
+     * @param durabilite Niveau de durabilit des oprations inscrites.
+     */
+    public Journal(Fichier fichier, DictionnaireNatures natures,
+                   int durabilite) {
+        this.fichier = fichier;
+        this.natures = natures;
+        this.durabilite = durabilite;
+        this.ouvert = false;
+        this.nbOperations = 0;
+        this.nbErreur = 0;
+        this.tailleLue = 0;
+        this.tailleIntacte = 0;
+    }
+
+    /**
+     * Accesseur pour le champ {@code nbOperations}.
+     *
+     * @return Nombre d'oprations inscrites dans le journal depuis qu'il a t
+     *         vid.
+     */
+    public int getNbOperations() {
+        return nbOperations;
+    }
+
+    /**
+     * Accesseur pour le champ {@code nbErreur}.
+     *
+     * @return Nombre de lignes errones rencontres lors du dernier rejeu.
+     */
+    public int getNbErreur() {
+        return nbErreur;
+    }
+
+    /**
+     * Ouvre le journal en criture. Les oprations seront inscrites  la
+     * suite de celles qu'il contient dj, une fois retire la fin tronque
+     * trouve par le dernier rejeu.
+     *
+     * @throws IOException est gnr si le journal ne peut pas tre ouvert
+     *                     ou sa fin tronque retire.
+     */
+    public void ouvre() throws IOException {
+        if (this.tailleIntacte < this.tailleLue) {
+            RandomAccessFile acces = new RandomAccessFile(
+                    this.fichier.getFichierSysteme(), "rw");
+            try {
+                acces.setLength(this.tailleIntacte);
+            } finally {
+                acces.close();
+            }
+            this.tailleLue = this.tailleIntacte;
+        }
+        this.fichier.initEcriture(true);
+        this.ouvert = true;
+    }
+
+    /**
+     * Ferme le journal en criture.
+     */
+    public void ferme() {
+        this.fichier.fermeEcriture();
+        this.ouvert = false;
+    }
+
+    /**
+     * Inscrit l'ajout d'un rendez-vous dans le journal.
+     *
+     * @param rdv Le rendez-vous ajout.
+     * @throws IOException est gnr si l'ajout n'a pas pu tre inscrit.
+     */
+    public void ajout(RendezVous rdv) throws IOException {
+        inscris(AJOUT + Agenda.ligneRdv(rdv, natures));
+    }
+
+    /**
+     * Inscrit la suppression d'un rendez-vous dans le journal.
+     *
+     * @param rdv Le rendez-vous supprim.
+     * @throws IOException est gnr si la suppression n'a pas pu tre
+     *                     inscrite.
+     */
+    public void suppression(RendezVous rdv) throws IOException {
+        inscris(SUPPRESSION + Agenda.ligneRdv(rdv, natures));
+    }
+
+    /**
+     * Inscrit la modification d'un rendez-vous dans le journal.<br>
+     * Les deux lignes de la modification sont crites en une seule fois.
+     *
+     * @param ancien  Le rendez-vous avant modification.
+     * @param nouveau Le rendez-vous aprs modification.
+     * @throws IOException est gnr si la modification n'a pas pu tre
+     *                     inscrite.
+     */
+    public void modification(RendezVous ancien, RendezVous nouveau)
+            throws IOException {
+        inscris(MODIFICATION + Agenda.ligneRdv(ancien, natures) + FIN_LIGNE
+                + REMPLACEMENT + Agenda.ligneRdv(nouveau, natures));
+    }
+
+    /**
+     * Inscrit une opration  la fin du journal, vrifie qu'elle a bien
+     * t crite, puis la synchronise avec le disque suivant le niveau de
+     * durabilit du journal : une opration n'est compte que si elle est
+     * dans le fichier, et survit alors  un arrt brutal du systme comme
+     * une sauvegarde complte.
+     *
+     * @param lignes Ligne ou lignes de l'opration.
+     * @throws IOException est gnr si l'opration n'a pas pu tre crite
+     *                     ou synchronise.
+     * @see jagenda.util.Fichier#commit()
+     * @see jagenda.util.Fichier#synchronise(int)
+     */
+    private void inscris(String lignes) throws IOException {
+        this.fichier.ecrire(lignes);
+        this.fichier.commit();
+        this.fichier.synchronise(this.durabilite);
+        this.nbOperations++;
+    }
+
+    /**
+     * Rejoue les oprations inscrites dans le journal sur une
+     * {@code ListeRendezVous}, modifie sur place.<br>
+     * Si le journal n'existe pas, la liste reste inchange. Une ligne
+     * illisible est ignore et compte comme errone. Une modification dont
+     * la seconde ligne est absente (criture interrompue) est ignore et
+     * compte comme errone, mme si une autre opration la suit. Une
+     * modification qui donnerait  un rendez-vous les horaires d'un autre
+     * est ignore.<br>
+     * Une dernire ligne sans fin de ligne est une criture interrompue :
+     * elle n'est pas rejoue, mme si elle semble complte, et est compte
+     * comme errone.
+     *
+     * @param listeRdv Les rendez-vous issus de la dernire sauvegarde
+     *                 complte.
+     * @throws IOException est gnr si le journal existe mais ne peut pas
+     *                     tre lu.
+     */
+    public void rejoue(ListeRendezVous listeRdv) throws IOException {
+        AnalyseurRdv analyseur = new AnalyseurRdv(natures);
+        RendezVous ancien = null;   // Rendez-vous en cours de modification
+        byte[] octets;
+
+        this.nbOperations = 0;
+        this.nbErreur = 0;
+        try {
+            ByteBuffer contenu = this.fichier.projette();
+            octets = new byte[contenu.remaining()];
+            contenu.get(octets);
+        } catch (FileNotFoundException fileEx) {
+            // Aucun journal : rien  rejouer.
+            octets = new byte[0];
+        }
+        this.tailleLue = octets.length;
+        this.tailleIntacte = 0;
+
+        int debut = 0;
+        while (debut < octets.length) {
+            int finLigne = debut;
+            while (finLigne < octets.length && octets[finLigne] != '\n') {
+                finLigne++;
+            }
+            if (finLigne == octets.length) {
+                // Fin de ligne absente : criture interrompue
+                this.nbErreur++;
+                break;
+            }
+            int fin = finLigne > debut && octets[finLigne - 1] == '\r'
+                      ? finLigne - 1 : finLigne;
+            RendezVous rdv = fin > debut ? analyseur.analyse(octets,
+                                                             debut + 1, fin)
+                                         : null;
+            char type = rdv == null ? 0 : (char) octets[debut];
+            if (ancien != null && type != REMPLACEMENT) {
+                // Modification interrompue avant sa seconde ligne
+                this.nbErreur++;
+                ancien = null;
+            }
+            if (type == MODIFICATION) {
+                ancien = rdv;
+            } else if (type == REMPLACEMENT && ancien != null) {
+                // Comme Agenda#modifieRdv, une modification vers les
+                // horaires d'un autre rendez-vous est refuse
+                if (rdv.equals(ancien) || !listeRdv.contient(rdv)) {
+                    listeRdv.retire(ancien);
+                    listeRdv.ajoute(rdv);
+                }
+                ancien = null;
+                this.nbOperations++;
+            } else if (type == AJOUT) {
+                listeRdv.ajoute(rdv);
+                this.nbOperations++;
+            } else if (type == SUPPRESSION) {
+                listeRdv.retire(rdv);
+                this.nbOperations++;
+            } else {
+                this.nbErreur++;
+            }
+            debut = finLigne + 1;
+            if (ancien == null) {
+                this.tailleIntacte = debut;
+            }
+        }
+        if (ancien != null) {
+            this.nbErreur++;
+        }
+    }
+
+    /**
+     * Vide le journal.  n'appeler qu'une fois la sauvegarde complte des
+     * rendez-vous effectue (point de contrle).
+     *
+     * @throws IOException est gnr si le journal ne peut pas tre vid.
+     */
+    public void vide() throws IOException {
+        boolean etaitOuvert = this.ouvert;
+        ferme();
+        this.fichier.initEcriture(false);
+        this.fichier.fermeEcriture();
+        this.nbOperations = 0;
+        this.nbErreur = 0;
+        this.tailleLue = 0;
+        this.tailleIntacte = 0;
+        if (etaitOuvert) {
+            ouvre();
+        }
+    }
+}
@@ -0,0 +1,333 @@
+/*
+ * Fichier :	ListeRendezVous.java
+ * Package :	jagenda
+ * Projet jAgenda - Info 1 2011-2012
+ *
+ */
+package jagenda;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Classe {@code ListeRendezVous} reprsente les rendez-vous d'un agenda,
+ * rangs dans l'ordre {@link RendezVous#ORDRE_CHRONOLOGIQUE}.<br>
+ * Les rendez-vous sont conservs dans un tableau plus grand que ncessaire,
+ * dont la capacit double lorsqu'il est plein : un ajout ne recopie pas tout
+ * le tableau, seulement les rendez-vous qui suivent sa position. La position
+ * d'un rendez-vous est trouve par recherche dichotomique sur son horaire de
+ * dbut puis de fin, en O(log n).<br><br>
+ * Comme avec {@link Agenda#insertRdv(RendezVous[], RendezVous)}, un
+ * rendez-vous gal  un rendez-vous dj prsent (mmes horaires) n'est pas
+ * ajout.<br><br>
+ * Les rendez-vous commenant dans une priode sont contigus dans le
+ * tableau : les deux bornes de la priode sont trouves par dichotomie, et
+ * les rendez-vous parcourus sur place, sans copie.<br>
+ * Une {@code ListeRendezVous} n'est pas synchronise.
+ *
+ * @author  Jason BOURLARD
+ * @author  David PELISSIER
+ * @version 0.3
+ * @see jagenda.util.Config#getNbMaximumRdv()
+ */
+public class ListeRendezVous {
+
+    /** Capacit initiale par dfaut. */
+    public static final int CAPACITE_DEFAUT = 16;
+
+    /** Rendez-vous tris, suivis de cases libres. */
+    private RendezVous[] rdv;
+
+    /** Nombre de rendez-vous de la liste. */
+    private int nbRdv;
+
+    /** Nombre d'ajouts et de retraits, pour dtecter les parcours prims.*/
+    private int nbModifications;
+
+    /**
+     * Nombre de rendez-vous carts  la construction de la liste, de mmes
+     * horaires qu'un rendez-vous conserv.
+     */
+    private int nbDoublons;
+
+    /**
+     * Constructeur par dfaut : la liste est vide et de capacit
+     * {@code CAPACITE_DEFAUT}.
+     */
+    public ListeRendezVous() {
+        this(CAPACITE_DEFAUT);
+    }
+
+    /**
+     * Constructeur paramtrable prenant en argument la capacit initiale de
+     * la liste, par exemple le nombre maximum de rendez-vous de la
+     * configuration. La liste est agrandie au-del si ncessaire.
+     *
+     * @param capacite Nombre de rendez-vous prvus.
+     */
+    public ListeRendezVous(int capacite) {
+        this.rdv = new RendezVous[Math.max(1, capacite)];
+        this.nbRdv = 0;
+    }
+
+    /**
+     * Constructeur paramtrable prenant en argument les {@code RendezVous}
+     * de la liste, par exemple ceux lus dans le fichier de sauvegarde, et sa
+     * capacit initiale. Les rendez-vous sont tris s'ils ne le sont pas
+     * dj ; comme avec {@link #ajoute(RendezVous)}, un seul rendez-vous est
+     * conserv parmi plusieurs rendez-vous gaux. Les rendez-vous carts
+     * sont compts par {@link #getNbDoublons()}.
+     *
+     * @param listeRdv Rendez-vous de la liste, dans un ordre quelconque.
+     * @param capacite Nombre de rendez-vous prvus.
+     */
+    public ListeRendezVous(RendezVous[] listeRdv, int capacite) {
+        this.rdv = Arrays.copyOf(listeRdv, Math.max(Math.max(1, capacite),
+                                                    listeRdv.length));
+        Arrays.sort(this.rdv, 0, listeRdv.length,
+                    RendezVous.ORDRE_CHRONOLOGIQUE);
+        this.nbRdv = 0;
+        for (int i = 0; i < listeRdv.length; i++) {
+            if (nbRdv == 0 || !this.rdv[nbRdv - 1].equals(this.rdv[i])) {
+                this.rdv[nbRdv++] = this.rdv[i];
+            }
+        }
+        this.nbDoublons = listeRdv.length - nbRdv;
+        Arrays.fill(this.rdv, nbRdv, listeRdv.length, null);
+    }
+
+    /**
+     * Accesseur pour le champ {@code nbRdv}.
+     *
+     * @return Nombre de rendez-vous de la liste.
+     */
+    public int getNbRdv() {
+        return nbRdv;
+    }
+
+    /**
+     * Accesseur pour le champ {@code nbDoublons}.
+     *
+     * @return Nombre de rendez-vous carts  la construction de la liste,
+     *         de mmes horaires qu'un rendez-vous conserv.
+     */
+    public int getNbDoublons() {
+        return nbDoublons;
+    }
+
+    /**
+     * Retourne la capacit de la liste.
+     *
+     * @return Nombre de rendez-vous que peut contenir la liste sans tre
+     *         agrandie.
+     */
+    public int getCapacite() {
+        return rdv.length;
+    }
+
+    /**
+     * Retourne le {@code RendezVous} situ  une position de la liste.
+     *
+     * @param indice Position du rendez-vous, de 0  {@code getNbRdv() - 1}.
+     * @return Le rendez-vous  cette position.
+     * @throws IndexOutOfBoundsException est gnr si l'indice est en dehors
+     *                                   de la liste.
+     */
+    public RendezVous get(int indice) {
+        if (indice < 0 || indice >= nbRdv) {
+            throw new IndexOutOfBoundsException("Indice : " + indice
+                                                + ", taille : " + nbRdv);
+        }
+        return rdv[indice];
+    }
+
+    /**
+     * Recherche par dichotomie la position d'un {@code RendezVous} gal 
+     * celui donn, c'est--dire de mmes horaires.
+     *
+     * @param aChercher Rendez-vous  chercher.
+     * @return Position du rendez-vous s'il est prsent ; sinon
+     *         {@code -(position d'insertion) - 1}.
+     */
+    public int indice(RendezVous aChercher) {
+        return Arrays.binarySearch(rdv, 0, nbRdv, aChercher,
+                                   RendezVous.ORDRE_CHRONOLOGIQUE);
+    }
+
+    /**
+     * Recherche par dichotomie le premier {@code RendezVous} commenant 
+     * partir d'une minute poque donne.
+     *
+     * @param minuteEpoque Minute poque recherche.
+     * @return Position du premier rendez-vous dont le dbut est suprieur ou
+     *         gal  {@code minuteEpoque}, {@code getNbRdv()} s'il n'y en a
+     *         aucun.
+     */
+    public int premierIndice(int minuteEpoque) {
+        int bas = 0;
+        int haut = nbRdv;
+        while (bas < haut) {
+            int milieu = (bas + haut) >>> 1;
+            if (rdv[milieu].getDebut() < minuteEpoque) {
+                bas = milieu + 1;
+            } else {
+                haut = milieu;
+            }
+        }
+        return bas;
+    }
+
+    /**
+     * Retourne le nombre de {@code RendezVous} commenant dans la priode
+     * {@code [debut, fin[}, en O(log n).
+     *
+     * @param debut Minute poque du dbut de la priode.
+     * @param fin   Minute poque de la fin de la priode.
+     * @return Nombre de rendez-vous dont le dbut est compris dans la
+     *         priode ; 0 si la priode est vide.
+     */
+    public int nbRdvEntre(int debut, int fin) {
+        return Math.max(0, premierIndice(fin) - premierIndice(debut));
+    }
+
+    /**
+     * Parcourt les {@code RendezVous} commenant dans la priode
+     * {@code [debut, fin[}, dans l'ordre chronologique. Les rendez-vous ne
+     * sont pas copis : l'itrateur lit directement la liste.
+     *
+     * @param debut Minute poque du dbut de la priode.
+     * @param fin   Minute poque de la fin de la priode.
+     * @return Itrateur sur les rendez-vous de la priode, en lecture
+     *         seule. Sa mthode {@code next()} gnre une
+     *         {@code ConcurrentModificationException} si la liste a t
+     *         modifie depuis sa cration.
+     */
+    public Iterator<RendezVous> parcours(int debut, int fin) {
+        int premier = premierIndice(debut);
+        return new ParcoursPeriode(premier, Math.max(premier,
+                                                     premierIndice(fin)));
+    }
+
+    /**
+     * Retourne les {@code k} premiers {@code RendezVous} commenant  partir
+     * d'une minute poque donne, en O(log n + k) : le premier est trouv
+     * par dichotomie, les suivants le suivent dans la liste.
+     *
+     * @param minuteEpoque Minute poque  partir de laquelle chercher.
+     * @param k            Nombre maximum de rendez-vous retourns.
+     * @return Au plus {@code k} rendez-vous, dans l'ordre chronologique.
+     */
+    public RendezVous[] prochains(int minuteEpoque, int k) {
+        int premier = premierIndice(minuteEpoque);
+        return Arrays.copyOfRange(rdv, premier,
+                                  premier + Math.max(0, Math.min(k, nbRdv
+                                                                 - premier)));
+    }
+
+    /**
+     * Indique si la liste contient un {@code RendezVous} gal  celui donn.
+     *
+     * @param aChercher Rendez-vous  chercher.
+     * @return {@code true} si un rendez-vous de mmes horaires est prsent.
+     */
+    public boolean contient(RendezVous aChercher) {
+        return indice(aChercher) >= 0;
+    }
+
+    /**
+     * Ajoute un {@code RendezVous}  sa place dans la liste, s'il n'y figure
+     * pas dj. La capacit de la liste est double si elle est atteinte.
+     *
+     * @param aAjouter Rendez-vous  ajouter.
+     * @return {@code true} si le rendez-vous a t ajout.
+     */
+    public boolean ajoute(RendezVous aAjouter) {
+        int indice = indice(aAjouter);
+        boolean ajoute = indice < 0;
+        if (ajoute) {
+            indice = -indice - 1;
+            if (nbRdv == rdv.length) {
+                rdv = Arrays.copyOf(rdv, 2 * rdv.length);
+            }
+            System.arraycopy(rdv, indice, rdv, indice + 1, nbRdv - indice);
+            rdv[indice] = aAjouter;
+            nbRdv++;
+            nbModifications++;
+        }
+        return ajoute;
+    }
+
+    /**
+     * Retire de la liste un {@code RendezVous} gal  celui donn.
+     *
+     * @param aRetirer Rendez-vous  retirer.
+     * @return {@code true} si un rendez-vous a t retir.
+     */
+    public boolean retire(RendezVous aRetirer) {
+        int indice = indice(aRetirer);
+        boolean retire = indice >= 0;
+        if (retire) {
+            nbRdv--;
+            System.arraycopy(rdv, indice + 1, rdv, indice, nbRdv - indice);
+            rdv[nbRdv] = null;
+            nbModifications++;
+        }
+        return retire;
+    }
+
+    /**
+     * Retourne les {@code RendezVous} de la liste dans un tableau  leur
+     * taille, par exemple pour les sauvegarder.
+     *
+     * @return Copie des rendez-vous de la liste, dans l'ordre chronologique.
+     */
+    public RendezVous[] versTableau() {
+        return Arrays.copyOf(rdv, nbRdv);
+    }
+
+    /**
+     * Itrateur sur les {@code RendezVous} situs entre deux positions de la
+     * liste.
+     */
+    private final class ParcoursPeriode implements Iterator<RendezVous> {
+
+        /** Position du prochain rendez-vous retourn. */
+        private int suivant;
+
+        /** Position suivant le dernier rendez-vous retourn. */
+        private final int fin;
+
+        /** Nombre de modifications de la liste  la cration du parcours. */
+        private final int nbModificationsAttendu;
+
+        /**
+         * Constructeur d'un parcours des positions {@code [debut, fin[}.
+         *
+         * @param debut Position du premier rendez-vous.
+         * @param fin   Position suivant le dernier rendez-vous.
+         */
+        private ParcoursPeriode(int debut, int fin) {
+            this.suivant = debut;
+            this.fin = fin;
+            this.nbModificationsAttendu = nbModifications;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.suivant < this.fin;
+        }
+
+        @Override
+        public RendezVous next() {
+            if (nbModifications != this.nbModificationsAttendu) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return rdv[this.suivant++];
+        }
+    }
+}
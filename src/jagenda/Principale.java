@@ -12,20 +12,22 @@ package jagenda;
 public class Principale {
     
     /**
-     * Dclaration d'un objet de type Jagenda contenant le jagenda  utiliser
+     * Dclaration d'un objet de type Agenda contenant l'agenda  utiliser
+     * par le programme. Les classes de l'agenda ne s'en servent pas : la
+     * configuration leur est transmise par un {@code Contexte}.
      */
-    public static Jagenda jagenda;
+    public static Agenda agenda;
     
     /**
      * Lancement du programme jagenda.
-     * On instance dans un premier temps un objet de type Jagenda. Celui-ci
+     * On instance dans un premier temps un objet de type Agenda. Celui-ci
      * se place dans un tat par dfaut en chargeant sa configuration, sa liste
      * de rendez-vous ainsi qu'un objet de type Saisie permettant la saisie
      * de donnes sur l'entre/sortie standard.
      * @param args non utilis
      */
     public static void main(String[] args) {
-        jagenda = new Jagenda();
-        jagenda.lance();
+        agenda = new Agenda();
+        agenda.lance();
     }
 }
@@ -6,7 +6,7 @@
  */
 package jagenda;
 
-import java.util.regex.Matcher;
+import java.util.Comparator;
 
 /**
  * Classe {@code RendezVous} reprsente un rendez-vous possible dans l'agenda.
@@ -19,7 +19,12 @@ import java.util.regex.Matcher;
  *     <li>Nature</li>
  *     <li>Description</li>
  * </ul>
- * 
+ * Les horaires de dbut et de fin sont conservs sous forme de minutes
+ * poque (voir {@link Calendrier#minuteEpoque(int, int, int, int, int)}) :
+ * un {@code RendezVous} n'occupe que deux entiers pour ses horaires, et les
+ * comparaisons de rendez-vous (tri, conflits) sont de simples comparaisons
+ * d'entiers. Les {@code Horaire} ne sont crs qu' la saisie et 
+ * l'affichage.
  * 
  * @author  Jason BOURLARD
  * @author  David PELISSIER
@@ -27,6 +32,21 @@ import java.util.regex.Matcher;
  */
 public class RendezVous implements Comparable<RendezVous> {
 
+    /**
+     * Ordre chronologique total des rendez-vous : par horaire de dbut, puis
+     * par horaire de fin.<br>
+     * Contrairement  {@code compareTo(RendezVous)}, cet ordre reste dfini
+     * entre des rendez-vous en conflit ; il permet donc de trier n'importe
+     * quel tableau de {@code RendezVous}.
+     */
+    public static final Comparator<RendezVous> ORDRE_CHRONOLOGIQUE =
+        new Comparator<RendezVous>() {
+            public int compare(RendezVous rdv1, RendezVous rdv2) {
+                int ordre = Integer.compare(rdv1.debut, rdv2.debut);
+                return ordre != 0 ? ordre : Integer.compare(rdv1.fin, rdv2.fin);
+            }
+        };
+
     /**
      * Libell concis du rendez-vous, limit  8 caractres.<br>
      * Apparaitra lors d'un affichage abrg.
@@ -40,59 +60,71 @@ public class RendezVous implements Comparable<RendezVous> {
     private String description;
 
     /**
-     * Prcision sur la nature du rendez-vous (professionnel ou personnel).
+     * Prcision sur la nature du rendez-vous (professionnel ou personnel),
+     * sous la forme de son code, sur un octet, dans le dictionnaire des
+     * natures de l'agenda.
+     * @see DictionnaireNatures#code(String)
      */
-    private String nature;
+    private byte nature;
 
     /**
-     * Date et horaire de dbut du rendez-vous (en jj/mm/aaaa h:min).
+     * Date et horaire de dbut du rendez-vous, en minute poque.
      */
-    private Horaire horaireDebut;
+    private int debut;
 
     /**
-     * Date et horaire de fin du rendez-vous (en jj/mm/aaaa h:min)..
+     * Date et horaire de fin du rendez-vous, en minute poque.
      */
-    private Horaire horaireFin;
+    private int fin;
 
     /**
      * Constructeur par dfaut.<br>
      * Initialise les membres de classe de faon  ne pas avoir un objet
      * incohrent quelque soit son tat.
+     * 
+     * @param contexte Contexte de l'agenda, donnant l'horaire par dfaut.
      */
-    private RendezVous() {
+    private RendezVous(Contexte contexte) {
         this.libelle = "Par dfaut";
-        this.nature ="Divers";
-        this.horaireDebut = new Horaire();
-        this.horaireFin = new Horaire();
+        this.nature = DictionnaireNatures.DIVERS;
+        this.debut = Calendrier.minuteEpoque(contexte.getAnneeDebut(), 1, 1,
+                                             0, 0);
+        this.fin = this.debut;
     }
 
     /**
-     * Constructeur paramtrable prenant en argument une ligne de donnes au
-     * format {@code STRUCTURE_DONNEES}.
+     * Constructeur paramtrable prenant en argument les champs, dj lus et
+     * vrifis, d'une ligne du fichier de sauvegarde.<br>
+     * Les horaires de dbut et de fin sont donns en minutes poque,
+     * calcules par l'analyseur sans passer par leur reprsentation textuelle
+     * ni par un {@code Calendar}.
      * 
-     * @param donnees Ligne de donnes  lire.
+     * @param libelle       Libell du rendez-vous.
+     * @param nature        Code de la nature du rendez-vous dans le
+     *                      dictionnaire des natures de l'agenda.
+     * @param description   Description du rendez-vous.
+     * @param debut         Minute poque de l'horaire de dbut.
+     * @param fin           Minute poque de l'horaire de fin.
+     * @see jagenda.AnalyseurRdv
      */
-    public RendezVous(Matcher donnees) {
-        this.libelle     = donnees.group(10);
-        this.nature      = donnees.group(11);
-        this.description = donnees.group(12);
-        this.horaireDebut = new Horaire(
-                // Date
-                donnees.group(1) +"/"+ donnees.group(2)+"/"+ donnees.group(3),
-                // Heure de dbut
-                donnees.group(4) +"h"+ donnees.group(6));
-        this.horaireFin = new Horaire(
-                // Date
-                donnees.group(1) +"/"+ donnees.group(2)+"/"+ donnees.group(3),
-                // Heure de dbut
-                donnees.group(7) +"h"+ donnees.group(9));
+    RendezVous(String libelle, int nature, String description,
+               int debut, int fin) {
+        this.libelle     = libelle;
+        this.nature      = (byte) nature;
+        this.description = description;
+        this.debut       = debut;
+        this.fin         = fin;
     }
 
     /**
      * Constructeur paramtrable prenant en argument le {@code libelle}, la
      * {@code description}, la {@code nature}, la {@code date}, les 
      * {@code heureDebut} et {@code heureFin}  affecter au rendez-vous cr.
+     * <br>La date n'est analyse qu'une fois, pour les deux horaires, et
+     * convertie directement en jour poque. Si la date ou l'une des heures
+     * est invalide, l'horaire concern reste  sa valeur par dfaut.
      * 
+     * @param contexte      Contexte de l'agenda, donnant le format de la date.
      * @param libelle       Libell du rendez-vous  initialiser.
      * @param description   Description du rendez-vous  initialiser.
      * @param nature        Nature du rendez-vous  initialiser.
@@ -100,14 +132,24 @@ public class RendezVous implements Comparable<RendezVous> {
      * @param heureDebut    Heure de dbut du rendez-vous  initialiser. 
      * @param heureFin      Heure de fin du rendez-vous  initialiser.
      */
-    public RendezVous(String libelle, String description, int nature,
-            String date, String heureDebut, String heureFin) {
-        this();
+    public RendezVous(Contexte contexte, String libelle, String description,
+            int nature, String date, String heureDebut, String heureFin) {
+        this(contexte);
         this.libelle = libelle;
         this.description = description;
         this.setNature(nature);
-        this.horaireDebut = new Horaire(date, heureDebut);
-        this.horaireFin = new Horaire(date, heureFin);
+        int jourEpoque = Horaire.jourEpoque(contexte, date);
+        if (jourEpoque != Horaire.DATE_INVALIDE) {
+            int minuteJour  = jourEpoque * Calendrier.MINUTES_PAR_JOUR;
+            int minuteDebut = Horaire.minuteJour(heureDebut);
+            int minuteFin   = Horaire.minuteJour(heureFin);
+            if (minuteDebut != -1) {
+                this.debut = minuteJour + minuteDebut;
+            }
+            if (minuteFin != -1) {
+                this.fin = minuteJour + minuteFin;
+            }
+        }
     }
 
     /**
@@ -129,32 +171,71 @@ public class RendezVous implements Comparable<RendezVous> {
     }
 
     /**
-     * Accesseur pour le champ {@code nature}.
+     * Retourne le nom de la nature du rendez-vous.
+     * 
+     * @param natures Dictionnaire des natures de l'agenda du rendez-vous.
+     * @return 	Nature du rendez-vous renseign, normalise.
+     * @see DictionnaireNatures#nom(int)
+     */
+    public String getNature(DictionnaireNatures natures) {
+        return natures.nom(getCodeNature());
+    }
+
+    /**
+     * Accesseur pour le champ {@code nature}. Les codes des natures du menu
+     * de choix sont leurs numros dans ce menu.
      * 
-     * @return 	Nature du rendez-vous renseign.
+     * @return  1 si la nature est "Personnel"<br>
+     *          2 si la nature est "Professionnel"<br>
+     *          0 si la nature est "Divers"<br>
+     *          le code de la nature dans le dictionnaire de l'agenda pour
+     *          toute autre nature
+     * @see #setNature(int)
      */
-    public String getNature() {
-        return nature;
+    public int getCodeNature() {
+        return nature & 0xFF;
     }
 
     /**
-     * Accesseur pour le champ {@code horaireDebut}.
+     * Accesseur pour le champ {@code debut}.
+     * 
+     * @return 	Minute poque de l'horaire de dbut du rendez-vous.
+     */
+    public int getDebut() {
+        return debut;
+    }
+
+    /**
+     * Accesseur pour le champ {@code fin}.
+     * 
+     * @return 	Minute poque de l'horaire de fin du rendez-vous.
+     */
+    public int getFin() {
+        return fin;
+    }
+
+    /**
+     * Retourne l'horaire de dbut du rendez-vous.<br>
+     * Un nouvel {@code Horaire} est cr  chaque appel :  rserver 
+     * l'affichage, les comparaisons se faisant sur {@link #getDebut()}.
      * 
      * @return 	Horaire de dbut du rendez-vous renseign
      * 			(comprend la date et l'heure de ce dernier).
      */
     public Horaire getHoraireDebut() {
-        return horaireDebut;
+        return Horaire.depuisMinuteEpoque(debut);
     }
 
     /**
-     * Accesseur pour le champ {@code horaireFin}.
+     * Retourne l'horaire de fin du rendez-vous.<br>
+     * Un nouvel {@code Horaire} est cr  chaque appel :  rserver 
+     * l'affichage, les comparaisons se faisant sur {@link #getFin()}.
      * 
      * @return 	Horaire de fin du rendez-vous renseign
      * 			(comprend la date et l'heure de ce dernier).
      */
     public Horaire getHoraireFin() {
-        return horaireFin;
+        return Horaire.depuisMinuteEpoque(fin);
     }
 
     /**
@@ -184,10 +265,21 @@ public class RendezVous implements Comparable<RendezVous> {
         // Nature du rendez-vous organis via un menu de choix :
         // 1 = Personnel
         // 2 = Professionnel
-        if (nature == 1)
-            this.nature = "Personnel";
-        else if (nature == 2)
-            this.nature = "Professionnel";
+        if (   nature == DictionnaireNatures.PERSONNEL
+            || nature == DictionnaireNatures.PROFESSIONNEL)
+            this.nature = (byte) nature;
+    }
+    
+    /**
+     * Mutateur pour le champ {@code nature},  partir de son nom. La nature
+     * est code par le dictionnaire des natures de l'agenda.
+     * 
+     * @param nature  Nouvelle nature pour le rendez-vous renseign.
+     * @param natures Dictionnaire des natures de l'agenda.
+     * @see DictionnaireNatures#code(String)
+     */
+    public void setNature(String nature, DictionnaireNatures natures) {
+        this.nature = (byte) natures.code(nature);
     }
     
     /**
@@ -286,37 +378,38 @@ public class RendezVous implements Comparable<RendezVous> {
      *                  13h00.
      *              </li>
      * </ul>
-     * @see jagenda.Horaire#compareTo(java.util.Calendar)
+     * @see #getDebut()
+     * @see #getFin()
      */
     public int compareTo(RendezVous aComparer) {
         int aRetourner;
         /* Premier cas, ce RendezVous a lieu avant celui  comparer. */
-        if(this.horaireFin.compareTo(aComparer.horaireDebut) <= 0) {
+        if(this.fin <= aComparer.debut) {
             aRetourner = -3;
         /* Second cas, ce RendezVous a lieu aprs celui  comparer. */
-        } else if(this.horaireDebut.compareTo(aComparer.horaireFin) >= 0) {
+        } else if(this.debut >= aComparer.fin) {
             aRetourner = 3;
         /* 
          * Troisime cas, l'horaire de dbut de ce RendezVous a lieu avant ou en
          * mme temps que l'horaire de dbut de celui  comparer .
          */
-        } else if(this.horaireDebut.compareTo(aComparer.horaireDebut) <= 0 ) {
+        } else if(this.debut <= aComparer.debut) {
             /* 
              * Premier cas, l'horaire de dbut de ce RendezVous est le mme que
              * l'horaire de dbut du RendezVous  comparer.
              */
-            if(this.horaireDebut.equals(aComparer.horaireDebut)) {
+            if(this.debut == aComparer.debut) {
                 /*
                  * Premier cas, l'horaire de fin de ce RendezVous est le mme
                  * que l'horaire de fin  comparer.
                  */
-                if(this.horaireFin.equals(aComparer.horaireFin)) {
+                if(this.fin == aComparer.fin) {
                     aRetourner = 0;
                 /*
                  * Second cas, l'horaire de fin de ce RendezVous est aprs
                  * l'horaire de fin  comparer.
                  */
-                } else if (this.horaireFin.compareTo(aComparer.horaireFin) > 0){
+                } else if (this.fin > aComparer.fin){
                     aRetourner = 2;
                 /*
                  * Dernier cas, l'horaire de fin de ce RendezVous est avant
@@ -329,7 +422,7 @@ public class RendezVous implements Comparable<RendezVous> {
              * Second cas, l'horaire de fin de ce RendezVous a lieu aprs ou en
              * mme temps que l'horaire de fin  comparer.
              */
-            } else if (this.horaireFin.compareTo(aComparer.horaireFin) >= 0) {
+            } else if (this.fin >= aComparer.fin) {
                 aRetourner = 2;
             /* 
              * Dernier cas, l'horaire de fin de ce RendezVous a lieu avant
@@ -347,7 +440,7 @@ public class RendezVous implements Comparable<RendezVous> {
              * Premier cas, l'horaire de fin de ce RendezVous a lieu aprs que
              * l'horaire de fin  comparer.
              */
-            if (this.horaireFin.compareTo(aComparer.horaireFin) > 0) {
+            if (this.fin > aComparer.fin) {
                 aRetourner = 1;
             /* 
              * Dernier cas, l'horaire de fin de ce RendezVous a lieu avant ou en
@@ -368,10 +461,8 @@ public class RendezVous implements Comparable<RendezVous> {
     public int hashCode() {
         final int prime = 31;
         int result = 1;
-        result = prime * result
-                + ((horaireDebut == null) ? 0 : horaireDebut.hashCode());
-        result = prime * result
-                + ((horaireFin == null) ? 0 : horaireFin.hashCode());
+        result = prime * result + debut;
+        result = prime * result + fin;
         return result;
     }
 
@@ -389,8 +480,7 @@ public class RendezVous implements Comparable<RendezVous> {
             return resultat;
         } else {
             RendezVous other = (RendezVous) obj;
-            if (horaireDebut.equals(other.horaireDebut) 
-                    && horaireFin.equals(other.horaireFin)) {
+            if (debut == other.debut && fin == other.fin) {
                 resultat = true;
             }
         }
@@ -398,7 +488,7 @@ public class RendezVous implements Comparable<RendezVous> {
     }
     
     public String toString() {
-        return this.libelle + this.horaireDebut + this.horaireFin;
+        return this.libelle + getHoraireDebut() + getHoraireFin();
     }
     
 
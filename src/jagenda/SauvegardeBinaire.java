@@ -0,0 +1,299 @@
+/*
+ * Fichier :	SauvegardeBinaire.java
+ * Package :	jagenda
+ * Projet jAgenda - Info 1 2011-2012
+ *
+ */
+package jagenda;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import jagenda.util.Fichier;
+
+/**
+ * Classe {@code SauvegardeBinaire} permet d'enregistrer et de charger des
+ * {@code RendezVous} dans un fichier au format binaire, plus compact que le
+ * format texte et lu sans aucune analyse de texte.<br><br>
+ * Le fichier dbute par un en-tte :
+ * <ul><li>{@code int} : signature {@code SIGNATURE} ("JAGB"),</li>
+ *     <li>{@code byte} : version du format,</li>
+ *     <li>{@code int} : nombre de rendez-vous enregistrs,</li>
+ *     <li>{@code short} non sign : nombre de natures diffrentes,</li>
+ *     <li>pour chacune, {@code short} non sign suivi d'autant d'octets :
+ *         nom de la nature encod en UTF-8.</li></ul>
+ * Chaque rendez-vous est ensuite enregistr de la faon suivante :
+ * <ul><li>{@code int} : minute poque de l'horaire de dbut,</li>
+ *     <li>{@code int} : minute poque de l'horaire de fin,</li>
+ *     <li>{@code short} non sign : position de sa nature dans la table des
+ *         natures de l'en-tte,</li>
+ *     <li>{@code short} non sign suivi d'autant d'octets : libell encod en
+ *         UTF-8,</li>
+ *     <li>{@code short} non sign suivi d'autant d'octets : description
+ *         encode en UTF-8.</li></ul>
+ * Les entiers sont crits octet de poids fort en tte, comme le fait
+ * {@code java.io.DataOutputStream}.<br>
+ * La table des natures de l'en-tte ne contient que les natures des
+ * rendez-vous enregistrs. Au chargement, chacune est code une seule fois
+ * par le dictionnaire des natures de l'agenda ; chaque rendez-vous reoit
+ * ensuite le code correspondant  sa position, sans nouvelle recherche.
+ *
+ * @author  Jason BOURLARD
+ * @author  David PELISSIER
+ * @version 0.3
+ * @see Calendrier#minuteEpoque(int, int, int, int, int)
+ * @see DictionnaireNatures
+ */
+public class SauvegardeBinaire {
+
+    /** Signature dbutant tout fichier de sauvegarde binaire : "JAGB". */
+    public static final int SIGNATURE = 0x4A414742;
+
+    /** Version du format binaire. */
+    private static final byte VERSION = 1;
+
+    /**
+     * Taille minimale d'un rendez-vous enregistr, en octets : deux horaires,
+     * une nature et deux chanes vides.
+     */
+    private static final int TAILLE_MIN_RDV = 4 + 4 + 2 + 2 + 2;
+
+    /** Nombre maximum de natures diffrentes d'un fichier. */
+    private static final int NB_MAX_NATURES = 0xFFFF;
+
+    /** Taille maximale, en octets, d'un libell ou d'une description. */
+    private static final int TAILLE_CHAINE_MAX = 0xFFFF;
+
+    /** Encodage des libells et descriptions. */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /** Fichier de sauvegarde binaire. */
+    private final Fichier fichier;
+
+    /** Dictionnaire des natures de l'agenda. */
+    private final DictionnaireNatures natures;
+
+    /** Nombre d'enregistrements errons rencontrs au chargement. */
+    private int nbErreur;
+
+    /**
+     * Constructeur paramtrable prenant en argument le {@code Fichier} de
+     * sauvegarde binaire  lire ou  crire, et le dictionnaire des natures
+     * de l'agenda.
+     *
+     * @param fichier Fichier de sauvegarde binaire.
+     * @param natures Dictionnaire des natures de l'agenda.
+     */
+    public SauvegardeBinaire(Fichier fichier, DictionnaireNatures natures) {
+        this.fichier = fichier;
+        this.natures = natures;
+        this.nbErreur = 0;
+    }
+
+    /**
+     * Accesseur pour le champ {@code nbErreur}.
+     *
+     * @return Nombre d'enregistrements errons rencontrs lors du dernier
+     *         chargement.
+     */
+    public int getNbErreur() {
+        return nbErreur;
+    }
+
+    /**
+     * Enregistre un tableau de {@code RendezVous} dans le fichier de
+     * sauvegarde binaire. Le contenu prcdent du fichier est cras.
+     *
+     * @param listeRdv Le tableau de {@code RendezVous}  sauvegarder.
+     * @throws IOException est gnr si le fichier ne peut pas tre crit,
+     *                     ou si un libell ou une description est trop long.
+     */
+    public void sauve(RendezVous[] listeRdv) throws IOException {
+        // Table des natures, par code, dans l'ordre de leur premire
+        // apparition : positions[code] vaut -1 tant que la nature est absente
+        int[] positions = new int[DictionnaireNatures.NB_MAX_NATURES];
+        int[] codes = new int[DictionnaireNatures.NB_MAX_NATURES];
+        int nbNatures = 0;
+        Arrays.fill(positions, -1);
+        for (int i = 0; i < listeRdv.length; i++) {
+            int code = listeRdv[i].getCodeNature();
+            if (positions[code] < 0) {
+                codes[nbNatures] = code;
+                positions[code] = nbNatures++;
+            }
+        }
+
+        DataOutputStream sortie = new DataOutputStream(
+                new BufferedOutputStream(
+                        new FileOutputStream(fichier.getFichierSysteme())));
+        try {
+            sortie.writeInt(SIGNATURE);
+            sortie.writeByte(VERSION);
+            sortie.writeInt(listeRdv.length);
+            sortie.writeShort(nbNatures);
+            for (int i = 0; i < nbNatures; i++) {
+                ecrisChaine(sortie, natures.nom(codes[i]));
+            }
+            for (int i = 0; i < listeRdv.length; i++) {
+                sortie.writeInt(listeRdv[i].getDebut());
+                sortie.writeInt(listeRdv[i].getFin());
+                sortie.writeShort(positions[listeRdv[i].getCodeNature()]);
+                ecrisChaine(sortie, listeRdv[i].getLibelle());
+                ecrisChaine(sortie, listeRdv[i].getDescription());
+            }
+        } finally {
+            sortie.close();
+        }
+    }
+
+    /**
+     * Charge l'ensemble des {@code RendezVous} enregistrs dans le fichier de
+     * sauvegarde binaire.<br>
+     * Le tableau est allou une seule fois, d'aprs le nombre de rendez-vous
+     * indiqu dans l'en-tte, born par le nombre de rendez-vous que peut
+     * contenir la taille du fichier : un en-tte corrompu n'entrane pas
+     * une allocation dmesure. Un enregistrement dont les horaires ou la
+     * nature sont incohrents, ou manquant en fin de fichier, est compt
+     * comme erron.
+     *
+     * @return Tableau des {@code RendezVous} lus.
+     * @throws FileNotFoundException est gnr si le fichier n'existe pas.
+     * @throws IOException           est gnr si le fichier ne peut pas tre
+     *                               lu ou n'est pas un fichier de sauvegarde
+     *                               binaire.
+     */
+    public RendezVous[] charge() throws IOException {
+        ByteBuffer octets = this.fichier.projette();
+        RendezVous[] listeRdv;
+        int nbRdv = 0;
+        int nbAttendu;
+        int[] codes = null;
+        byte[] tampon = new byte[256];
+
+        try {
+            nbAttendu = -1;
+            if (octets.getInt() == SIGNATURE && octets.get() == VERSION) {
+                nbAttendu = octets.getInt();
+                codes = new int[octets.getShort() & NB_MAX_NATURES];
+                for (int i = 0; i < codes.length; i++) {
+                    codes[i] = natures.code(lisChaine(octets, tampon));
+                }
+            }
+        } catch (BufferUnderflowException finEx) {
+            nbAttendu = -1;
+        }
+        if (nbAttendu < 0) {
+            throw new IOException(fichier + " n'est pas un fichier de "
+                                  + "sauvegarde binaire.");
+        }
+
+        this.nbErreur = 0;
+        // Chaque rendez-vous enregistr occupe au moins TAILLE_MIN_RDV octets
+        listeRdv = new RendezVous[Math.min(nbAttendu,
+                                           octets.remaining()
+                                           / TAILLE_MIN_RDV)];
+        try {
+            for (int i = 0; i < nbAttendu; i++) {
+                int debut = octets.getInt();
+                int fin = octets.getInt();
+                int nature = octets.getShort() & NB_MAX_NATURES;
+                String libelle = lisChaine(octets, tampon);
+                String description = lisChaine(octets, tampon);
+                if (debut > fin || nature >= codes.length) {
+                    this.nbErreur++;
+                } else {
+                    listeRdv[nbRdv++] = new RendezVous(libelle,
+                                                       codes[nature],
+                                                       description,
+                                                       debut, fin);
+                }
+            }
+        } catch (BufferUnderflowException finEx) {
+            // Le fichier est tronqu : les rendez-vous manquants sont perdus.
+            this.nbErreur = nbAttendu - nbRdv;
+        }
+
+        if (nbRdv < listeRdv.length) {
+            listeRdv = Arrays.copyOf(listeRdv, nbRdv);
+        }
+        return listeRdv;
+    }
+
+    /**
+     * Convertit un fichier de sauvegarde au format texte en fichier de
+     * sauvegarde au format binaire.
+     *
+     * @param texte   Fichier de sauvegarde au format texte  lire.
+     * @param binaire Fichier de sauvegarde au format binaire  crire.
+     * @return Nombre de lignes errones du fichier texte, non converties.
+     * @throws IOException est gnr si l'un des fichiers ne peut pas tre lu
+     *                     ou crit.
+     */
+    public static int convertitVersBinaire(Fichier texte, Fichier binaire)
+            throws IOException {
+        DictionnaireNatures natures = new DictionnaireNatures();
+        ChargeurRdv chargeur = new ChargeurRdv(texte, natures);
+        new SauvegardeBinaire(binaire, natures).sauve(chargeur.charge());
+        return chargeur.getNbErreur();
+    }
+
+    /**
+     * Convertit un fichier de sauvegarde au format binaire en fichier de
+     * sauvegarde au format texte.
+     *
+     * @param binaire Fichier de sauvegarde au format binaire  lire.
+     * @param texte   Fichier de sauvegarde au format texte  crire.
+     * @return Nombre d'enregistrements errons du fichier binaire, non
+     *         convertis.
+     * @throws IOException est gnr si l'un des fichiers ne peut pas tre lu
+     *                     ou crit.
+     */
+    public static int convertitVersTexte(Fichier binaire, Fichier texte)
+            throws IOException {
+        DictionnaireNatures natures = new DictionnaireNatures();
+        SauvegardeBinaire sauvegarde = new SauvegardeBinaire(binaire, natures);
+        Agenda.ecrisRdv(sauvegarde.charge(), natures, texte);
+        return sauvegarde.getNbErreur();
+    }
+
+    /**
+     * crit une chane encode en UTF-8, prcde de sa taille en octets.
+     *
+     * @param sortie Flux de sortie binaire.
+     * @param chaine Chane  crire ({@code null} est crit comme une chane
+     *               vide).
+     * @throws IOException est gnr si la chane encode dpasse
+     *                     {@code TAILLE_CHAINE_MAX} octets.
+     */
+    private static void ecrisChaine(DataOutputStream sortie, String chaine)
+            throws IOException {
+        byte[] octets = chaine == null ? new byte[0] : chaine.getBytes(UTF8);
+        if (octets.length > TAILLE_CHAINE_MAX) {
+            throw new IOException("Chane trop longue pour la sauvegarde "
+                                  + "binaire : " + octets.length + " octets.");
+        }
+        sortie.writeShort(octets.length);
+        sortie.write(octets);
+    }
+
+    /**
+     * Lit une chane encode en UTF-8, prcde de sa taille en octets.
+     *
+     * @param octets Tampon positionn sur la taille de la chane.
+     * @param tampon Tableau de travail, utilis s'il est assez grand.
+     * @return Chane lue.
+     */
+    private static String lisChaine(ByteBuffer octets, byte[] tampon) {
+        int taille = octets.getShort() & TAILLE_CHAINE_MAX;
+        byte[] destination = taille <= tampon.length ? tampon
+                                                     : new byte[taille];
+        octets.get(destination, 0, taille);
+        return new String(destination, 0, taille, UTF8);
+    }
+}
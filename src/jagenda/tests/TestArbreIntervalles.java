@@ -0,0 +1,139 @@
+/*
+ * Fichier :	TestArbreIntervalles.java
+ * Package :	jagenda.tests
+ * Projet jAgenda - Info 1 2011-2012
+ *
+ */
+package jagenda.tests;
+
+import jagenda.ArbreIntervalles;
+import jagenda.Contexte;
+import jagenda.RendezVous;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+
+/**
+ * Classe {@code TestArbreIntervalles} compare les conflits retourns par un
+ * {@code ArbreIntervalles}  ceux trouvs en parcourant tous les
+ * rendez-vous, au fil d'ajouts et de retraits alatoires.
+ *
+ * @author  Jason BOURLARD
+ * @author  David PELISSIER
+ * @version 0.3
+ */
+public class TestArbreIntervalles {
+
+    /** Nombre d'oprations alatoires effectues. */
+    private static final int NB_OPERATIONS = 20000;
+
+    /** Nombre de recherches de conflits compares aprs chaque opration. */
+    private static final int NB_RECHERCHES = 4;
+
+    /**
+     * Programme de test : affiche le nombre de recherches dont le rsultat
+     * diffre du parcours complet.
+     *
+     * @param args Non utiliss.
+     */
+    public static void main(String[] args) {
+        Contexte contexte = new Contexte(2012, 2012, 1);
+        Random hasard = new Random(2012);
+        ArbreIntervalles arbre = new ArbreIntervalles();
+        ArrayList<RendezVous> tous = new ArrayList<RendezVous>();
+        int nbRecherches = 0;
+        int nbEchecs = 0;
+
+        for (int i = 0; i < NB_OPERATIONS; i++) {
+            if (tous.isEmpty() || hasard.nextInt(3) != 0) {
+                RendezVous rdv = rdvAleatoire(contexte, hasard);
+                arbre.ajoute(rdv);
+                tous.add(rdv);
+            } else {
+                RendezVous rdv = tous.remove(hasard.nextInt(tous.size()));
+                if (!arbre.retire(rdv)) {
+                    System.out.println("Retrait impossible : " + rdv);
+                    nbEchecs++;
+                }
+            }
+            if (arbre.getNbRdv() != tous.size()) {
+                System.out.println("Nombre de rendez-vous : "
+                                   + arbre.getNbRdv() + " au lieu de "
+                                   + tous.size());
+                nbEchecs++;
+            }
+            for (int j = 0; j < NB_RECHERCHES; j++) {
+                RendezVous horaire = rdvAleatoire(contexte, hasard);
+                RendezVous[] obtenus = arbre.conflits(horaire.getDebut(),
+                                                      horaire.getFin());
+                ArrayList<RendezVous> attendus = conflits(tous,
+                        horaire.getDebut(), horaire.getFin());
+                nbRecherches++;
+                if (!memesHoraires(obtenus, attendus)) {
+                    System.out.println("Conflits de " + horaire + " : "
+                                       + obtenus.length + " au lieu de "
+                                       + attendus.size());
+                    nbEchecs++;
+                }
+            }
+        }
+        System.out.println(nbRecherches + " recherches, " + nbEchecs
+                           + " chec(s).");
+    }
+
+    /**
+     * Cre un {@code RendezVous} d'une  trois heures, commenant  une
+     * heure alatoire d'un des premiers jours de janvier 2012.
+     *
+     * @param contexte Contexte de l'agenda.
+     * @param hasard   Gnrateur alatoire.
+     * @return Rendez-vous alatoire.
+     */
+    private static RendezVous rdvAleatoire(Contexte contexte, Random hasard) {
+        int debut = hasard.nextInt(20 * 60);
+        int fin = debut + 1 + hasard.nextInt(3 * 60);
+        return new RendezVous(contexte, "Test", "Test", 1,
+                              (1 + hasard.nextInt(5)) + "/01/2012",
+                              (debut / 60) + "h" + (debut % 60),
+                              (fin / 60) + "h" + (fin % 60));
+    }
+
+    /**
+     * Cherche les conflits avec un horaire en parcourant tous les
+     * {@code RendezVous}.
+     *
+     * @param tous  Rendez-vous indexs.
+     * @param debut Minute poque du dbut de l'horaire.
+     * @param fin   Minute poque de la fin de l'horaire.
+     * @return Les rendez-vous en conflit, dans l'ordre chronologique.
+     */
+    private static ArrayList<RendezVous> conflits(ArrayList<RendezVous> tous,
+                                                  int debut, int fin) {
+        ArrayList<RendezVous> conflits = new ArrayList<RendezVous>();
+        for (RendezVous rdv : tous) {
+            if (rdv.getDebut() < fin && rdv.getFin() > debut) {
+                conflits.add(rdv);
+            }
+        }
+        Collections.sort(conflits, RendezVous.ORDRE_CHRONOLOGIQUE);
+        return conflits;
+    }
+
+    /**
+     * Vrifie que deux suites de {@code RendezVous} ont les mmes horaires,
+     * dans le mme ordre.
+     *
+     * @param obtenus  Rendez-vous retourns par l'arbre.
+     * @param attendus Rendez-vous attendus.
+     * @return {@code true} si les horaires sont identiques.
+     */
+    private static boolean memesHoraires(RendezVous[] obtenus,
+                                         ArrayList<RendezVous> attendus) {
+        boolean identiques = obtenus.length == attendus.size();
+        for (int i = 0; identiques && i < obtenus.length; i++) {
+            identiques = obtenus[i].equals(attendus.get(i));
+        }
+        return identiques;
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Fichier :	TestCalendrier.java
+ * Package :	jagenda.tests
+ * Projet jAgenda - Info 1 2011-2012
+ *
+ */
+package jagenda.tests;
+
+import jagenda.Calendrier;
+import jagenda.Horaire;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.IsoFields;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Classe {@code TestCalendrier} compare les calculs de {@code Calendrier} 
+ * ceux de {@code java.time} pour chaque jour d'une priode dbordant de
+ * part et d'autre de la priode gre par l'agenda, afin de tester les
+ * tables prcalcules comme le calcul direct.<br>
+ * Les semaines ISO 8601 sont vrifies pour chaque jour, notamment ceux de
+ * dbut et de fin d'anne qui appartiennent  l'anne ISO voisine.
+ *
+ * @author  Jason BOURLARD
+ * @author  David PELISSIER
+ * @version 0.3
+ */
+public class TestCalendrier {
+
+    /** Premire anne teste. */
+    private static final int AN_DEBUT = Horaire.AN_MIN - 50;
+
+    /** Dernire anne teste. */
+    private static final int AN_FIN = Horaire.AN_MAX + 50;
+
+    /** Nombre de diffrences constates. */
+    private static int nbEchecs = 0;
+
+    /**
+     * Programme de test : affiche chaque diffrence constate, puis leur
+     * nombre.
+     *
+     * @param args Non utiliss.
+     */
+    public static void main(String[] args) {
+        int nbJours = 0;
+        for (LocalDate date = LocalDate.of(AN_DEBUT, 1, 1);
+             date.getYear() <= AN_FIN; date = date.plusDays(1)) {
+            testeJourEpoque(date);
+            testeSemaineIso(date);
+            nbJours++;
+        }
+        for (int annee = AN_DEBUT; annee <= AN_FIN; annee++) {
+            for (int mois = 1; mois <= 12; mois++) {
+                testeMois(annee, mois);
+            }
+            testeAnneeIso(annee);
+        }
+        System.out.println(nbJours + " jours tests, " + nbEchecs
+                           + " chec(s).");
+    }
+
+    /**
+     * Compare le jour poque, la date et le jour de la semaine d'un jour.
+     *
+     * @param date Jour  tester.
+     */
+    private static void testeJourEpoque(LocalDate date) {
+        int jourEpoque = Calendrier.jourEpoque(date.getYear(),
+                                               date.getMonthValue(),
+                                               date.getDayOfMonth());
+        int aaaammjj = date.getYear() * 10000 + date.getMonthValue() * 100
+                       + date.getDayOfMonth();
+        verifie(date + " jourEpoque", jourEpoque, (int) date.toEpochDay());
+        verifie(date + " date", Calendrier.date((int) date.toEpochDay()),
+                aaaammjj);
+        verifie(date + " jourSemaine",
+                Calendrier.jourSemaine((int) date.toEpochDay()),
+                date.getDayOfWeek().getValue());
+        verifie(date + " minuteEpoque",
+                Calendrier.minuteEpoque(date.getYear(), date.getMonthValue(),
+                                        date.getDayOfMonth(), 23, 59),
+                (int) date.toEpochDay() * Calendrier.MINUTES_PAR_JOUR
+                + 23 * 60 + 59);
+    }
+
+    /**
+     * Compare l'anne et la semaine ISO d'un jour, puis le jour poque
+     * retrouv  partir d'elles.
+     *
+     * @param date Jour  tester.
+     */
+    private static void testeSemaineIso(LocalDate date) {
+        int jourEpoque = (int) date.toEpochDay();
+        int anneeIso = date.get(IsoFields.WEEK_BASED_YEAR);
+        int semaineIso = date.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR);
+        int jourSemaine = date.getDayOfWeek().getValue();
+        verifie(date + " anneeIso", Calendrier.anneeIso(jourEpoque),
+                anneeIso);
+        verifie(date + " semaineIso", Calendrier.semaineIso(jourEpoque),
+                semaineIso);
+        verifie(date + " jourEpoqueSemaine",
+                Calendrier.jourEpoqueSemaine(anneeIso, semaineIso,
+                                             jourSemaine), jourEpoque);
+    }
+
+    /**
+     * Compare le nombre de semaines ISO d'une anne et la validit des
+     * semaines qui l'entourent.
+     *
+     * @param annee Anne ISO  tester.
+     */
+    private static void testeAnneeIso(int annee) {
+        // Le 28 dcembre appartient toujours  la dernire semaine ISO.
+        int nbSemaines = LocalDate.of(annee, 12, 28)
+                                  .get(IsoFields.WEEK_OF_WEEK_BASED_YEAR);
+        boolean anneeGeree = Horaire.AN_MIN <= annee
+                             && annee <= Horaire.AN_MAX;
+        verifie(annee + " nbSemainesIso", Calendrier.nbSemainesIso(annee),
+                nbSemaines);
+        verifie(annee + " lundiSemaine1", Calendrier.lundiSemaine1(annee),
+                (int) LocalDate.of(annee, 1, 4)
+                               .with(TemporalAdjusters.previousOrSame(
+                                         DayOfWeek.MONDAY))
+                               .toEpochDay());
+        verifie("semaine " + nbSemaines + " " + annee + " valide",
+                Calendrier.estSemaineValide(annee, nbSemaines,
+                                            Calendrier.DIMANCHE), anneeGeree);
+        verifie("semaine " + (nbSemaines + 1) + " " + annee + " valide",
+                Calendrier.estSemaineValide(annee, nbSemaines + 1,
+                                            Calendrier.LUNDI), false);
+        verifie("semaine 0 " + annee + " valide",
+                Calendrier.estSemaineValide(annee, 0, Calendrier.LUNDI),
+                false);
+    }
+
+    /**
+     * Compare la longueur d'un mois et la validit des jours qui l'entourent.
+     * Seules les dates de la priode gre par l'agenda sont valides.
+     *
+     * @param annee Anne du mois.
+     * @param mois  Mois, de 1  12.
+     */
+    private static void testeMois(int annee, int mois) {
+        int nbJours = LocalDate.of(annee, mois, 1).lengthOfMonth();
+        boolean anneeGeree = Horaire.AN_MIN <= annee
+                             && annee <= Horaire.AN_MAX;
+        verifie(mois + "/" + annee + " nbJoursMois",
+                Calendrier.nbJoursMois(annee, mois), nbJours);
+        verifie(nbJours + "/" + mois + "/" + annee + " valide",
+                Calendrier.estDateValide(annee, mois, nbJours), anneeGeree);
+        verifie((nbJours + 1) + "/" + mois + "/" + annee + " valide",
+                Calendrier.estDateValide(annee, mois, nbJours + 1), false);
+        verifie("0/" + mois + "/" + annee + " valide",
+                Calendrier.estDateValide(annee, mois, 0), false);
+        verifie("1/" + (mois + 12) + "/" + annee + " valide",
+                Calendrier.estDateValide(annee, mois + 12, 1), false);
+    }
+
+    /**
+     * Affiche une diffrence entre une valeur obtenue et la valeur attendue.
+     *
+     * @param test    Description de la valeur teste.
+     * @param obtenu  Valeur calcule par {@code Calendrier}.
+     * @param attendu Valeur calcule par {@code java.time}.
+     */
+    private static void verifie(String test, Object obtenu, Object attendu) {
+        if (!obtenu.equals(attendu)) {
+            System.out.println(test + " : " + obtenu + " au lieu de "
+                               + attendu);
+            nbEchecs++;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Fichier :	TestChercheurCreneaux.java
+ * Package :	jagenda.tests
+ * Projet jAgenda - Info 1 2011-2012
+ *
+ */
+package jagenda.tests;
+
+import jagenda.ArbreIntervalles;
+import jagenda.Calendrier;
+import jagenda.ChercheurCreneaux;
+import jagenda.Contexte;
+import jagenda.ListeRendezVous;
+import jagenda.RendezVous;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Classe {@code TestChercheurCreneaux} compare les crneaux libres trouvs
+ * par un {@code ChercheurCreneaux}  ceux obtenus en marquant, minute par
+ * minute, les horaires occups d'agendas alatoires.<br>
+ * Les rendez-vous peuvent se chevaucher, durer zro minute ou dborder sur
+ * le lendemain, et les priodes de recherche commencer au milieu d'un
+ * rendez-vous.
+ *
+ * @author  Jason BOURLARD
+ * @author  David PELISSIER
+ * @version 0.3
+ */
+public class TestChercheurCreneaux {
+
+    /** Nombre d'agendas alatoires tests. */
+    private static final int NB_AGENDAS = 300;
+
+    /** Nombre de recherches effectues dans chaque agenda. */
+    private static final int NB_RECHERCHES = 50;
+
+    /** Nombre de jours couverts par les rendez-vous,  partir du 1er. */
+    private static final int NB_JOURS = 10;
+
+    /**
+     * Programme de test : affiche chaque diffrence constate, puis leur
+     * nombre.
+     *
+     * @param args Non utiliss.
+     */
+    public static void main(String[] args) {
+        Contexte contexte = new Contexte(2012, 2012, 1);
+        Random hasard = new Random(2012);
+        int premierJour = Calendrier.minuteEpoque(2012, 1, 1, 0, 0);
+        int nbRecherches = 0;
+        int nbEchecs = 0;
+
+        for (int a = 0; a < NB_AGENDAS; a++) {
+            ListeRendezVous listeRdv = new ListeRendezVous();
+            int nbRdv = hasard.nextInt(40);
+            for (int i = 0; i < nbRdv; i++) {
+                listeRdv.ajoute(rdvAleatoire(contexte, hasard));
+            }
+            ArbreIntervalles intervalles =
+                new ArbreIntervalles(listeRdv.versTableau());
+            ChercheurCreneaux chercheur = new ChercheurCreneaux(listeRdv,
+                                                                intervalles);
+            for (int r = 0; r < NB_RECHERCHES; r++) {
+                int ouverture = 0;
+                int fermeture = Calendrier.MINUTES_PAR_JOUR;
+                if (hasard.nextBoolean()) {
+                    ouverture = hasard.nextInt(12 * 60);
+                    fermeture = ouverture + 1
+                                + hasard.nextInt(Calendrier.MINUTES_PAR_JOUR
+                                                 - ouverture);
+                }
+                chercheur.setHoraires(ouverture, fermeture);
+                int debut = premierJour
+                            + hasard.nextInt((NB_JOURS + 1)
+                                             * Calendrier.MINUTES_PAR_JOUR);
+                int fin = debut + hasard.nextInt(3
+                                                 * Calendrier.MINUTES_PAR_JOUR);
+                int duree = hasard.nextInt(4 * 60);
+
+                int[] obtenus = chercheur.cherche(debut, fin, duree);
+                int[] attendus = creneauxLibres(listeRdv, debut, fin, duree,
+                                                ouverture, fermeture);
+                nbRecherches++;
+                if (!Arrays.equals(obtenus, attendus)) {
+                    System.out.println("[" + debut + ", " + fin + "[ dure "
+                                       + duree + " plage " + ouverture + "-"
+                                       + fermeture + " : "
+                                       + Arrays.toString(obtenus)
+                                       + " au lieu de "
+                                       + Arrays.toString(attendus));
+                    nbEchecs++;
+                }
+            }
+        }
+        System.out.println(nbRecherches + " recherches, " + nbEchecs
+                           + " chec(s).");
+    }
+
+    /**
+     * Cre un {@code RendezVous} alatoire de zro minute  une douzaine
+     * d'heures. Une heure de fin au-del de 23h59 le fait dborder sur le
+     * lendemain.
+     *
+     * @param contexte Contexte de l'agenda.
+     * @param hasard   Gnrateur alatoire.
+     * @return Rendez-vous alatoire.
+     */
+    private static RendezVous rdvAleatoire(Contexte contexte, Random hasard) {
+        int debut = hasard.nextInt(Calendrier.MINUTES_PAR_JOUR);
+        int fin = debut + (hasard.nextInt(10) == 0 ? 0
+                                                   : hasard.nextInt(12 * 60));
+        return new RendezVous(contexte, "Test", "Test", 1,
+                              (1 + hasard.nextInt(NB_JOURS)) + "/01/2012",
+                              (debut / 60) + "h" + (debut % 60),
+                              (fin / 60) + "h" + (fin % 60));
+    }
+
+    /**
+     * Cherche les crneaux libres en marquant chaque minute de la priode
+     * occupe par un rendez-vous ou hors de la plage de la journe, puis en
+     * retenant les suites de minutes libres assez longues.
+     *
+     * @param listeRdv  Rendez-vous de l'agenda.
+     * @param debut     Minute poque du dbut de la priode.
+     * @param fin       Minute poque de la fin de la priode.
+     * @param duree     Dure minimale d'un crneau, en minutes.
+     * @param ouverture Dbut de la plage, en minutes depuis minuit.
+     * @param fermeture Fin de la plage, en minutes depuis minuit.
+     * @return Crneaux libres sous la forme
+     *         {@code {debut0, fin0, debut1, fin1, ...}}.
+     */
+    private static int[] creneauxLibres(ListeRendezVous listeRdv, int debut,
+                                        int fin, int duree, int ouverture,
+                                        int fermeture) {
+        boolean[] occupe = new boolean[fin - debut];
+        for (int m = debut; m < fin; m++) {
+            int minuteJour = m - Calendrier.jourDeMinute(m)
+                                 * Calendrier.MINUTES_PAR_JOUR;
+            occupe[m - debut] = minuteJour < ouverture
+                                || minuteJour >= fermeture;
+        }
+        for (int i = 0; i < listeRdv.getNbRdv(); i++) {
+            RendezVous rdv = listeRdv.get(i);
+            for (int m = Math.max(debut, rdv.getDebut());
+                 m < Math.min(fin, rdv.getFin()); m++) {
+                occupe[m - debut] = true;
+            }
+        }
+        int[] creneaux = new int[occupe.length + 1];
+        int nb = 0;
+        int m = 0;
+        while (m < occupe.length) {
+            if (occupe[m]) {
+                m++;
+            } else {
+                int libre = m;
+                while (m < occupe.length && !occupe[m]) {
+                    m++;
+                }
+                if (m - libre >= Math.max(1, duree)) {
+                    creneaux[nb++] = debut + libre;
+                    creneaux[nb++] = debut + m;
+                }
+            }
+        }
+        return Arrays.copyOf(creneaux, nb);
+    }
+}
@@ -27,13 +27,13 @@ public class TestHoraire {
         agenda = new Agenda();
         
         // TODO Auto-generated method stub
-        Horaire dateTest1 = new Horaire();
+        Horaire dateTest1 = new Horaire(agenda.getContexte());
         System.out.println(dateTest1.hashCode());
         
-        Horaire dateTest2 = new Horaire("19/05/2012","23h50");
+        Horaire dateTest2 = new Horaire(agenda.getContexte(), "19/05/2012","23h50");
         System.out.println(dateTest2.hashCode());
         
-        Horaire dateTest3 = new Horaire("19/05/2012","23h50");
+        Horaire dateTest3 = new Horaire(agenda.getContexte(), "19/05/2012","23h50");
         System.out.println(dateTest3.hashCode());
         
         System.out.println(dateTest3.equals(dateTest2));
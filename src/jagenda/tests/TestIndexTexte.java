@@ -0,0 +1,246 @@
+/*
+ * Fichier :	TestIndexTexte.java
+ * Package :	jagenda.tests
+ * Projet jAgenda - Info 1 2011-2012
+ *
+ */
+package jagenda.tests;
+
+import jagenda.Contexte;
+import jagenda.IndexTexte;
+import jagenda.ListeRendezVous;
+import jagenda.RendezVous;
+import jagenda.util.Fichier;
+
+import java.io.IOException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+
+/**
+ * Classe {@code TestIndexTexte} compare les recherches d'un
+ * {@code IndexTexte}  celles effectues en examinant chaque rendez-vous,
+ * au fil d'ajouts, de retraits et de modifications du libell ou de la
+ * description des rendez-vous indexs.<br>
+ * L'index est ensuite enregistr puis recharg : l'index charg doit donner
+ * les mmes rsultats, continuer  suivre les modifications, et tre refus
+ * pour des rendez-vous qui ne sont plus ceux indexs.
+ *
+ * @author  Jason BOURLARD
+ * @author  David PELISSIER
+ * @version 0.3
+ */
+public class TestIndexTexte {
+
+    /** Mots composant les libells et descriptions alatoires. */
+    private static final String[] VOCABULAIRE = { "Runion", "budget",
+        "quipe", "Budgtaire", "caf", "Cafe", "projet", "x", "mdecin",
+        "dentiste", "RU" };
+
+    /** Recherches compares. */
+    private static final String[] RECHERCHES = { "budget", "reunion budg*",
+        "caf*", "cafe equipe", "reu*", "medecin", "BUDGET* projet", "x",
+        "runion" };
+
+    /** Nombre d'oprations alatoires effectues. */
+    private static final int NB_OPERATIONS = 20000;
+
+    /** Nombre de diffrences constates. */
+    private static int nbEchecs = 0;
+
+    /**
+     * Programme de test : affiche chaque diffrence constate, puis leur
+     * nombre.
+     *
+     * @param args Non utiliss.
+     * @throws IOException est gnr si l'index ne peut pas tre enregistr
+     *                     dans le dossier temporaire.
+     */
+    public static void main(String[] args) throws IOException {
+        Contexte contexte = new Contexte(2012, 2012, 1);
+        Random hasard = new Random(2012);
+        ListeRendezVous listeRdv = new ListeRendezVous();
+        IndexTexte index = new IndexTexte();
+
+        for (int i = 0; i < NB_OPERATIONS; i++) {
+            int operation = hasard.nextInt(6);
+            if (operation < 2) {
+                RendezVous rdv = rdvAleatoire(contexte, hasard);
+                if (listeRdv.ajoute(rdv)) {
+                    index.ajoute(rdv);
+                }
+            } else if (operation < 4 && listeRdv.getNbRdv() > 0) {
+                RendezVous rdv = listeRdv.get(
+                        hasard.nextInt(listeRdv.getNbRdv()));
+                if (operation == 2) {
+                    listeRdv.retire(rdv);
+                    verifie("retrait de " + rdv, index.retire(rdv));
+                } else {
+                    // Modification sur place, puis mise  jour de l'index
+                    rdv.setLibelle(texteAleatoire(hasard));
+                    rdv.setDescription(texteAleatoire(hasard));
+                    verifie("retrait de " + rdv, index.retire(rdv));
+                    index.ajoute(rdv);
+                }
+            } else {
+                compare("", index, listeRdv,
+                        RECHERCHES[hasard.nextInt(RECHERCHES.length)]);
+            }
+        }
+        verifie("nombre de rendez-vous",
+                index.getNbRdv() == listeRdv.getNbRdv());
+
+        Fichier fichier = new Fichier(System.getProperty("java.io.tmpdir"),
+                                      "jagenda-test.idx");
+        try {
+            RendezVous[] tableau = listeRdv.versTableau();
+            index.sauve(fichier, tableau);
+            IndexTexte charge = IndexTexte.charge(fichier, tableau);
+            for (int i = 0; i < RECHERCHES.length; i++) {
+                compare("charg, ", charge, listeRdv, RECHERCHES[i]);
+            }
+            for (int i = 0; i < tableau.length; i += 2) {
+                tableau[i].setLibelle(texteAleatoire(hasard));
+                verifie("retrait de " + tableau[i], charge.retire(tableau[i]));
+                charge.ajoute(tableau[i]);
+            }
+            for (int i = 0; i < RECHERCHES.length; i++) {
+                compare("charg puis modifi, ", charge, listeRdv,
+                        RECHERCHES[i]);
+            }
+            try {
+                IndexTexte.charge(fichier, tableau);
+                verifie("index prim refus", tableau.length == 0);
+            } catch (IOException ioEx) {
+                // Index enregistr pour d'autres libells : refus
+            }
+        } finally {
+            fichier.getFichierSysteme().delete();
+        }
+        System.out.println(listeRdv.getNbRdv() + " rendez-vous indexs, "
+                           + nbEchecs + " chec(s).");
+    }
+
+    /**
+     * Compare le rsultat d'une recherche dans l'index  celui obtenu en
+     * examinant chaque rendez-vous.
+     *
+     * @param etape     tape du test, affiche en cas de diffrence.
+     * @param index     Index  tester.
+     * @param listeRdv  Rendez-vous indexs.
+     * @param recherche Mots recherchs.
+     */
+    private static void compare(String etape, IndexTexte index,
+                                ListeRendezVous listeRdv, String recherche) {
+        ArrayList<RendezVous> attendus = new ArrayList<RendezVous>();
+        for (int i = 0; i < listeRdv.getNbRdv(); i++) {
+            if (contient(listeRdv.get(i), recherche)) {
+                attendus.add(listeRdv.get(i));
+            }
+        }
+        RendezVous[] obtenus = index.cherche(recherche);
+        if (!Arrays.asList(obtenus).equals(attendus)) {
+            System.out.println(etape + "\"" + recherche + "\" : "
+                               + obtenus.length + " au lieu de "
+                               + attendus.size());
+            nbEchecs++;
+        }
+    }
+
+    /**
+     * Vrifie, sans index, qu'un rendez-vous contient tous les mots d'une
+     * recherche. Les mots de moins de deux lettres ne sont pas indexs et
+     * sont donc ignors, sauf s'ils dsignent un prfixe.
+     *
+     * @param rdv       Rendez-vous examin.
+     * @param recherche Mots recherchs.
+     * @return {@code true} si le rendez-vous contient au moins un mot
+     *         recherch, et tous.
+     */
+    private static boolean contient(RendezVous rdv, String recherche) {
+        HashSet<String> motsRdv = new HashSet<String>(Arrays.asList(
+                simplifie(rdv.getLibelle() + " " + rdv.getDescription())
+                        .split("[^\\p{L}\\p{N}]+")));
+        boolean contient = true;
+        boolean unMot = false;
+        String[] morceaux = recherche.trim().split("\\s+");
+        for (int i = 0; i < morceaux.length && contient; i++) {
+            boolean prefixe = morceaux[i].endsWith("*");
+            String mot = simplifie(prefixe ? morceaux[i].substring(0,
+                                                 morceaux[i].length() - 1)
+                                           : morceaux[i]);
+            if (mot.length() >= (prefixe ? 1 : 2)) {
+                unMot = true;
+                boolean trouve = false;
+                for (String motRdv : motsRdv) {
+                    trouve |= motRdv.length() >= 2
+                              && (prefixe ? motRdv.startsWith(mot)
+                                          : motRdv.equals(mot));
+                }
+                contient = trouve;
+            }
+        }
+        return contient && unMot;
+    }
+
+    /**
+     * Met un texte en minuscules et le prive de ses accents.
+     *
+     * @param texte Texte  simplifier.
+     * @return Texte simplifi.
+     */
+    private static String simplifie(String texte) {
+        return Normalizer.normalize(texte, Normalizer.Form.NFD)
+                         .replaceAll("\\p{Mn}", "").toLowerCase();
+    }
+
+    /**
+     * Cre un {@code RendezVous} d'une demi-heure, de libell et de
+     * description alatoires, commenant  une heure alatoire d'un des
+     * premiers jours de janvier 2012.
+     *
+     * @param contexte Contexte de l'agenda.
+     * @param hasard   Gnrateur alatoire.
+     * @return Rendez-vous alatoire.
+     */
+    private static RendezVous rdvAleatoire(Contexte contexte, Random hasard) {
+        int debut = hasard.nextInt(23 * 60);
+        int fin = debut + 30;
+        return new RendezVous(contexte, texteAleatoire(hasard),
+                              texteAleatoire(hasard), 1,
+                              (1 + hasard.nextInt(5)) + "/01/2012",
+                              (debut / 60) + "h" + (debut % 60),
+                              (fin / 60) + "h" + (fin % 60));
+    }
+
+    /**
+     * Cre un texte de zro  trois mots du vocabulaire.
+     *
+     * @param hasard Gnrateur alatoire.
+     * @return Texte alatoire.
+     */
+    private static String texteAleatoire(Random hasard) {
+        StringBuilder texte = new StringBuilder();
+        int nbMots = hasard.nextInt(4);
+        for (int i = 0; i < nbMots; i++) {
+            texte.append(VOCABULAIRE[hasard.nextInt(VOCABULAIRE.length)])
+                 .append(hasard.nextBoolean() ? " " : ", ");
+        }
+        return texte.toString();
+    }
+
+    /**
+     * Affiche une vrification qui a chou.
+     *
+     * @param test   Description de la vrification.
+     * @param reussi Rsultat de la vrification.
+     */
+    private static void verifie(String test, boolean reussi) {
+        if (!reussi) {
+            System.out.println("chec : " + test);
+            nbEchecs++;
+        }
+    }
+}
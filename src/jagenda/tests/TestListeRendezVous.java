@@ -0,0 +1,219 @@
+/*
+ * Fichier :	TestListeRendezVous.java
+ * Package :	jagenda.tests
+ * Projet jAgenda - Info 1 2011-2012
+ *
+ */
+package jagenda.tests;
+
+import jagenda.Agenda;
+import jagenda.Calendrier;
+import jagenda.Contexte;
+import jagenda.Horaire;
+import jagenda.ListeRendezVous;
+import jagenda.RendezVous;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Random;
+
+/**
+ * Classe {@code TestListeRendezVous} compare les recherches par priode
+ * d'une {@code ListeRendezVous}  celles effectues en examinant chaque
+ * rendez-vous, au fil d'ajouts et de retraits alatoires. Les {@code k}
+ * prochains rendez-vous sont compars de mme, qu'ils soient lus dans la
+ * liste trie ou extraits d'un parcours dans le dsordre.<br>
+ * Elle vrifie aussi qu'un parcours signale une modification de la liste
+ * survenue depuis sa cration.
+ *
+ * @author  Jason BOURLARD
+ * @author  David PELISSIER
+ * @version 0.3
+ */
+public class TestListeRendezVous {
+
+    /** Nombre d'oprations alatoires effectues. */
+    private static final int NB_OPERATIONS = 20000;
+
+    /** Nombre d'oprations entre deux recherches des prochains. */
+    private static final int PERIODE_PROCHAINS = 10;
+
+    /** Nombre de jours couverts par les rendez-vous,  partir du 1er. */
+    private static final int NB_JOURS = 10;
+
+    /** Nombre de diffrences constates. */
+    private static int nbEchecs = 0;
+
+    /**
+     * Programme de test : affiche chaque diffrence constate, puis leur
+     * nombre.
+     *
+     * @param args Non utiliss.
+     */
+    public static void main(String[] args) {
+        Contexte contexte = new Contexte(2012, 2012, 1);
+        Random hasard = new Random(2012);
+        ListeRendezVous listeRdv = new ListeRendezVous();
+        ArrayList<RendezVous> tous = new ArrayList<RendezVous>();
+        int premiereMinute = Calendrier.minuteEpoque(2012, 1, 1, 0, 0);
+
+        for (int i = 0; i < NB_OPERATIONS; i++) {
+            if (tous.isEmpty() || hasard.nextInt(3) != 0) {
+                RendezVous rdv = rdvAleatoire(contexte, hasard);
+                if (listeRdv.ajoute(rdv)) {
+                    tous.add(rdv);
+                }
+            } else {
+                RendezVous rdv = tous.remove(hasard.nextInt(tous.size()));
+                verifie("retrait de " + rdv, listeRdv.retire(rdv));
+            }
+            // Priode pouvant dborder de celle des rendez-vous
+            int debut = premiereMinute - Calendrier.MINUTES_PAR_JOUR
+                        + hasard.nextInt((NB_JOURS + 2)
+                                         * Calendrier.MINUTES_PAR_JOUR);
+            int fin = debut + hasard.nextInt(2 * Calendrier.MINUTES_PAR_JOUR);
+            testePeriode(listeRdv, tous, debut, fin);
+            if (i % PERIODE_PROCHAINS == 0) {
+                testeProchains(listeRdv, tous, debut,
+                               hasard.nextInt(10) == 0 ? Integer.MAX_VALUE
+                                                       : hasard.nextInt(20));
+            }
+        }
+        verifie("nombre de rendez-vous", listeRdv.getNbRdv() == tous.size());
+        testeModification(listeRdv, contexte, hasard);
+
+        System.out.println(listeRdv.getNbRdv() + " rendez-vous, " + nbEchecs
+                           + " chec(s).");
+    }
+
+    /**
+     * Compare le nombre et le parcours des {@code RendezVous} commenant
+     * dans une priode  ceux trouvs en examinant chaque rendez-vous.
+     *
+     * @param listeRdv Liste  tester.
+     * @param tous     Rendez-vous de la liste, dans un ordre quelconque.
+     * @param debut    Minute poque du dbut de la priode.
+     * @param fin      Minute poque de la fin de la priode.
+     */
+    private static void testePeriode(ListeRendezVous listeRdv,
+                                     ArrayList<RendezVous> tous, int debut,
+                                     int fin) {
+        int nbAttendu = 0;
+        for (RendezVous rdv : tous) {
+            if (debut <= rdv.getDebut() && rdv.getDebut() < fin) {
+                nbAttendu++;
+            }
+        }
+        verifie("nbRdvEntre(" + debut + ", " + fin + ")",
+                listeRdv.nbRdvEntre(debut, fin) == nbAttendu);
+
+        int nbParcourus = 0;
+        RendezVous precedent = null;
+        Iterator<RendezVous> parcours = listeRdv.parcours(debut, fin);
+        while (parcours.hasNext()) {
+            RendezVous rdv = parcours.next();
+            if (   rdv.getDebut() < debut || rdv.getDebut() >= fin
+                || (precedent != null
+                    && RendezVous.ORDRE_CHRONOLOGIQUE
+                                 .compare(precedent, rdv) >= 0)) {
+                verifie("parcours(" + debut + ", " + fin + ") : " + rdv,
+                        false);
+            }
+            precedent = rdv;
+            nbParcourus++;
+        }
+        verifie("parcours(" + debut + ", " + fin + ") : " + nbParcourus
+                + " au lieu de " + nbAttendu, nbParcourus == nbAttendu);
+    }
+
+    /**
+     * Compare les {@code k} prochains {@code RendezVous}  partir d'une
+     * minute poque, lus dans la liste puis extraits des rendez-vous
+     * mlangs,  ceux obtenus en triant tous les rendez-vous.
+     *
+     * @param listeRdv Liste  tester.
+     * @param tous     Rendez-vous de la liste, dans un ordre quelconque.
+     * @param apres    Minute poque  partir de laquelle chercher.
+     * @param k        Nombre maximum de rendez-vous cherchs.
+     */
+    private static void testeProchains(ListeRendezVous listeRdv,
+                                       ArrayList<RendezVous> tous, int apres,
+                                       int k) {
+        ArrayList<RendezVous> tries = new ArrayList<RendezVous>(tous);
+        Collections.sort(tries, RendezVous.ORDRE_CHRONOLOGIQUE);
+        ArrayList<RendezVous> attendus = new ArrayList<RendezVous>();
+        for (int i = 0; i < tries.size() && attendus.size() < k; i++) {
+            if (tries.get(i).getDebut() >= apres) {
+                attendus.add(tries.get(i));
+            }
+        }
+        verifie("prochains(" + apres + ", " + k + ")",
+                Arrays.asList(listeRdv.prochains(apres, k))
+                      .equals(attendus));
+
+        ArrayList<RendezVous> melanges = new ArrayList<RendezVous>(tous);
+        Collections.shuffle(melanges, new Random(apres));
+        verifie("prochainsRdv(parcours, " + apres + ", " + k + ")",
+                Arrays.asList(Agenda.prochainsRdv(melanges.iterator(),
+                                      Horaire.depuisMinuteEpoque(apres), k))
+                      .equals(attendus));
+    }
+
+    /**
+     * Vrifie qu'un parcours commenc avant une modification de la liste
+     * gnre une {@code ConcurrentModificationException}.
+     *
+     * @param listeRdv Liste  tester, non vide.
+     * @param contexte Contexte de l'agenda.
+     * @param hasard   Gnrateur alatoire.
+     */
+    private static void testeModification(ListeRendezVous listeRdv,
+                                          Contexte contexte, Random hasard) {
+        Iterator<RendezVous> parcours = listeRdv.parcours(Integer.MIN_VALUE,
+                                                          Integer.MAX_VALUE);
+        parcours.next();
+        RendezVous rdv = rdvAleatoire(contexte, hasard);
+        while (!listeRdv.ajoute(rdv)) {
+            rdv = rdvAleatoire(contexte, hasard);
+        }
+        try {
+            parcours.next();
+            verifie("parcours aprs modification", false);
+        } catch (ConcurrentModificationException cmEx) {
+            // Modification signale
+        }
+    }
+
+    /**
+     * Cre un {@code RendezVous} de zro  trois heures, commenant  une
+     * heure alatoire d'un des premiers jours de janvier 2012.
+     *
+     * @param contexte Contexte de l'agenda.
+     * @param hasard   Gnrateur alatoire.
+     * @return Rendez-vous alatoire.
+     */
+    private static RendezVous rdvAleatoire(Contexte contexte, Random hasard) {
+        int debut = hasard.nextInt(20 * 60);
+        int fin = debut + hasard.nextInt(3 * 60);
+        return new RendezVous(contexte, "Test", "Test", 1,
+                              (1 + hasard.nextInt(NB_JOURS)) + "/01/2012",
+                              (debut / 60) + "h" + (debut % 60),
+                              (fin / 60) + "h" + (fin % 60));
+    }
+
+    /**
+     * Affiche une vrification qui a chou.
+     *
+     * @param test   Description de la vrification.
+     * @param reussi Rsultat de la vrification.
+     */
+    private static void verifie(String test, boolean reussi) {
+        if (!reussi) {
+            System.out.println("chec : " + test);
+            nbEchecs++;
+        }
+    }
+}
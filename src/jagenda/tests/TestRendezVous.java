@@ -6,6 +6,8 @@
  */
 package jagenda.tests;
 
+import jagenda.Contexte;
+import jagenda.DictionnaireNatures;
 import jagenda.Horaire;
 import jagenda.RendezVous;
 
@@ -19,6 +21,13 @@ import jagenda.RendezVous;
  */
 public class TestRendezVous {
 
+    /** Contexte des rendez-vous de test : annes 2012  2013, jj/mm/aaaa. */
+    private static final Contexte CONTEXTE = new Contexte(2012, 2013, 1);
+
+    /** Dictionnaire des natures des rendez-vous de test. */
+    private static final DictionnaireNatures NATURES =
+            new DictionnaireNatures();
+
     /**
      * Batterie de tests pour la classe {@code RendezVous}.
      * @param args    Non utilis
@@ -43,7 +52,7 @@ public class TestRendezVous {
         RendezVous[] testsRdv = new RendezVous[testsLibelle.length];
         
         for (int i=0; i < testsLibelle.length; i++) {
-            testsRdv[i] = new RendezVous(testsLibelle[i], testsDescription[i],
+            testsRdv[i] = new RendezVous(CONTEXTE, testsLibelle[i], testsDescription[i],
                     testsNature[i], testsDate[i], testsHeureDebut[i],
                     testsHeureFin[i]);
         }
@@ -51,7 +60,7 @@ public class TestRendezVous {
         for (int i=0; i < testsRdv.length; i++) {
             System.out.println("Libell : \t" + testsRdv[i].getLibelle());
             System.out.println("Description : \t" + testsRdv[i].getDescription());
-            System.out.println("Nature : \t"+ testsRdv[i].getNature());
+            System.out.println("Nature : \t"+ testsRdv[i].getNature(NATURES));
             System.out.println("Horaire dbut : " +
                     testsRdv[i].getHoraireDebut());
             System.out.println("Horaire fin : \t" +
@@ -74,7 +83,7 @@ public class TestRendezVous {
                 System.out.println("*****************************************************************************************");
                 System.out.println("Libelle : \t\t"+ liste[i].getLibelle());
                 System.out.println("Description : \t\t"+ liste[i].getDescription());
-                System.out.println("Nature : \t\t"+ liste[i].getNature());
+                System.out.println("Nature : \t\t"+ liste[i].getNature(NATURES));
                 System.out.println("Horaire de dbut : \t"+ liste[i].getHoraireDebut());
                 System.out.println("Horaire de fin : \t"+ liste[i].getHoraireFin());
             }
@@ -88,7 +97,7 @@ public class TestRendezVous {
      */
     public static void main(String[] args) {
         RendezVous[] liste = RendezVous.listeRendezVous();
-        RendezVous aComparer = new RendezVous("AComparer", "Rencontre conflit",
+        RendezVous aComparer = new RendezVous(CONTEXTE, "AComparer", "Rencontre conflit",
                                               1,"10/01/2012", "14h29", "14h32");
         RendezVous[] conflit = RendezVous.conflitRDV(liste, aComparer);
         
@@ -115,12 +124,12 @@ public class TestRendezVous {
      */
     public static void compareToRDV() {
         RendezVous[] table = {
-                new RendezVous("One", "One", 1,"10/01/2012", "12h00", "13h00"),
-                new RendezVous("Two", "Two", 2,"10/01/2012", "13h00", "14h00"),
-                new RendezVous("Thr", "Thr", 3,"10/01/2012", "12h30", "13h30"),
-                new RendezVous("Fou", "Fou", 4,"10/01/2012", "12h00", "13h30"),
-                new RendezVous("Fiv", "Fiv", 5,"10/01/2012", "12h00", "14h30"),
-                new RendezVous("Six", "Six", 6,"10/01/2012", "12h00", "13h00")
+                new RendezVous(CONTEXTE, "One", "One", 1,"10/01/2012", "12h00", "13h00"),
+                new RendezVous(CONTEXTE, "Two", "Two", 2,"10/01/2012", "13h00", "14h00"),
+                new RendezVous(CONTEXTE, "Thr", "Thr", 3,"10/01/2012", "12h30", "13h30"),
+                new RendezVous(CONTEXTE, "Fou", "Fou", 4,"10/01/2012", "12h00", "13h30"),
+                new RendezVous(CONTEXTE, "Fiv", "Fiv", 5,"10/01/2012", "12h00", "14h30"),
+                new RendezVous(CONTEXTE, "Six", "Six", 6,"10/01/2012", "12h00", "13h00")
                 };
         
         for(int i = 0; i < table.length; i++) {
@@ -147,7 +156,7 @@ public class TestRendezVous {
         System.out.println("*****************************************************************************************");
         System.out.println("Libelle : \t\t"+ medecin.getDescription());
         System.out.println("Description : \t\t"+ medecin.getLibelle());
-        System.out.println("Nature : \t\t"+ medecin.getNature());
+        System.out.println("Nature : \t\t"+ medecin.getNature(NATURES));
         System.out.println("Horaire de dbut : \t"+ RendezVous.affichHoraire(medecin.getHoraireDebut()));
         System.out.println("Horaire de fin : \t"+ RendezVous.affichHoraire(medecin.getHoraireFin()));
                 
@@ -157,13 +166,13 @@ public class TestRendezVous {
         
         medecin.setLibelle("Mdecin");
         medecin.setDescription("Consultation chez le Dr BIDULE afin de me faire prescrire un arrt de travail.");
-        medecin.setNature("Personnel");
+        medecin.setNature("Personnel", NATURES);
         medecin.setHoraireDebut("24/05/2011", "14:10");            // Format jj/mm/aaaa hh:mm
         medecin.setHoraireFin("mERCredi", 17, 2012);            // Format jour, semaine, annee
         
         System.out.println("Libelle : \t\t"+ medecin.getDescription());
         System.out.println("Description : \t\t"+ medecin.getLibelle());
-        System.out.println("Nature : \t\t"+ medecin.getNature());
+        System.out.println("Nature : \t\t"+ medecin.getNature(NATURES));
         System.out.println("Horaire de dbut : \t"+ RendezVous.affichHoraire(medecin.getHoraireDebut()));
         System.out.println("Horaire de fin : \t"+ RendezVous.affichHoraire(medecin.getHoraireFin()));
         
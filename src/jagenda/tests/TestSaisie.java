@@ -26,7 +26,7 @@ public class TestSaisie {
      */
     public static void main(String[] args) {
          agenda = new Agenda();
-         String date = agenda.saisie.lireDate();
+         String date = agenda.saisie.lireDate(agenda.getContexte());
          String heureDebut = agenda.saisie.lireHeure("dbut");
          String heureFin = agenda.saisie.lireHeure("fin");
      }
@@ -48,6 +48,18 @@ import java.util.regex.Pattern;
  *         Par dfaut, <code>consoleHauteur=100</code>.
  * </li></ul>
  * <br>
+ * <ul><li><code>durabilite</code> :<br>
+ *         Niveau de durabilit des sauvegardes des rendez-vous,  savoir,
+ *         soit <code>0</code> (aucune synchronisation avec le disque, le plus
+ *         rapide), soit <code>1</code> (les donnes sont forces sur le disque
+ *         avant de remplacer l'ancienne sauvegarde), soit <code>2</code> (les
+ *         donnes et les mtadonnes du fichier et de son dossier sont forces
+ *         sur le disque, le plus sr).<br>
+ *         Quel que soit le niveau, une sauvegarde interrompue laisse intacte
+ *         la sauvegarde prcdente.<br><br>
+ *         Par dfaut, <code>durabilite=1</code>.
+ * </li></ul>
+ * <br>
  * <ul><li><code>formatDate</code> :<br>
  *         Format dsir pour la saisie de dates,  savoir, soit 
  *         "<i>{@code jj/mm/aaaa}</i>", soit "<i>{@code jour_semaine} semaine 
@@ -60,6 +72,14 @@ import java.util.regex.Pattern;
  *         (format "<i>{@code jj/mm/aaaa}</i>").
  * </li></ul>
  * <br>
+ * <ul><li><code>formatSauvegarde</code> :<br>
+ *         Format du fichier de sauvegarde des rendez-vous,  savoir, soit
+ *         le format texte ({@code jj/mm/aaaa::hh:mm::HH:MM::...}), lisible et
+ *         modifiable  la main, soit un format binaire plus compact et plus
+ *         rapide  charger.<br><br>
+ *         Par dfaut, <code>formatSauvegarde=0</code> (format texte).
+ * </li></ul>
+ * <br>
  * <ul><li><code>nbMaximumRdv</code> :<br>
  *         Nombre maximum de rendez-vous pouvant tre grs par le logiciel 
  *         jAgenda.<br><br>
@@ -87,6 +107,12 @@ public class Config {
     /** Nom du fichier de configuration du logiciel. */
     private final static String FICHIER_CONFIG = "jagenda.config";
    
+    /** 
+     * Taille, en caractres, du tampon d'criture du fichier de configuration,
+     * suffisante pour l'crire en une seule fois.
+     */
+    private final static int TAILLE_TAMPON_CONFIG = 1024;
+
     /** Commentaire mis en dbut du fichier de configuration */
     private final static String COMMENTAIRES_CONFIG = 
         "# ATTENTION, la modification manuelle des donnes contenues dans \n" +
@@ -116,6 +142,16 @@ public class Config {
      * Par dfaut, <code>anneeFin=2012</code>.
      */
     private int anneeFin;
+
+    /**
+     * Chemin du dossier contenant les fichiers de sauvegarde de l'agenda :
+     * rendez-vous, journal des modifications et index des mots.<br>
+     * Chaque agenda d'un mme programme peut ainsi avoir ses propres
+     * fichiers. Ce paramtre n'est pas inscrit dans le fichier de
+     * configuration, qui se trouve lui-mme dans le dossier par dfaut.<br>
+     * Par dfaut, <code>cheminSauvegarde=data</code>.
+     */
+    private String cheminSauvegarde;
     
     /**
      * Si elle est active, cette option permet l'affichage du rsum de la
@@ -137,6 +173,15 @@ public class Config {
      * Par dfaut, <code>consoleLargeur=100</code>.
      */
     private int consoleLargeur;
+
+    /**
+     * Niveau de durabilit des sauvegardes des rendez-vous,  savoir, soit
+     * aucune synchronisation avec le disque, soit la synchronisation des
+     * donnes, soit la synchronisation des donnes et des mtadonnes.<br>
+     * Par dfaut, <code>durabilite=1</code> (donnes).
+     * @see Fichier#DURABILITE_DONNEES
+     */
+    private int durabilite;
     
     /**
      * Format dsir pour la saisie de dates,  savoir, soit 
@@ -151,6 +196,14 @@ public class Config {
      */
     private int formatDate;
     
+    /**
+     * Format du fichier de sauvegarde des rendez-vous,  savoir, soit le
+     * format texte, lisible et modifiable  la main, soit un format binaire
+     * plus compact et plus rapide  charger.<br><br>
+     * Par dfaut, <code>formatSauvegarde=0</code> (format texte).
+     */
+    private int formatSauvegarde;
+    
     /**
      * Nombre maximum de rendez-vous pouvant tre grs par le logiciel 
      * jAgenda.<br><br>
@@ -173,20 +226,26 @@ public class Config {
      * Par defaut :
      * <ul><li><code>anneeDebut=2012</code></li>
      *     <li><code>anneeFin=2012</code></li>
+     *     <li><code>cheminSauvegarde=data</code></li>
      *     <li><code>confirmRdv=1</code> (active)</li>
      *     <li><code>consoleHauteur=25</code></li>
      *     <li><code>consoleLargeur=100</code></li>
+     *     <li><code>durabilite=1</code> (donnes)</li>
      *     <li><code>formatDate=1</code> (format "<i>{@code jj/mm/aaaa}</i>")</li>
+     *     <li><code>formatSauvegarde=0</code> (format texte)</li>
      *     <li><code>nbMaximumRdv=50</code></li>
      *     <li><code>typeSauvegarde=0</code></li></ul>
      */
     public Config() {
         this.anneeDebut     = 2012;
         this.anneeFin       = 2012;
+        this.cheminSauvegarde = CHEMIN_CONFIG;
         this.confirmRdv     = 1;
         this.consoleLargeur = 100;
         this.consoleHauteur = 25;
+        this.durabilite     = Fichier.DURABILITE_DONNEES;
         this.formatDate     = 0;
+        this.formatSauvegarde = 0;
         this.nbMaximumRdv   = 50;
         this.typeSauvegarde = 0;
     }; 
@@ -208,6 +267,15 @@ public class Config {
     public int getAnneeFin() {
         return anneeFin;
     }
+
+    /**
+     * Accesseur pour le champ <code>cheminSauvegarde</code>.
+     * @return Chemin du dossier des fichiers de sauvegarde de l'agenda.
+     * @see #cheminSauvegarde
+     */
+    public String getCheminSauvegarde() {
+        return cheminSauvegarde;
+    }
     
     /**
      * Accesseur pour le champ <code>confirmRdv</code>.
@@ -237,6 +305,19 @@ public class Config {
         return consoleLargeur;
     }
 
+    /**
+     * Accesseur pour le champ <code>durabilite</code>.
+     * @return Niveau de durabilit des sauvegardes,  savoir,<br>
+     *         soit <code>0</code> pour aucune synchronisation,<br>
+     *         soit <code>1</code> pour la synchronisation des donnes,<br>
+     *         soit <code>2</code> pour la synchronisation des donnes et des
+     *         mtadonnes.
+     * @see #durabilite
+     */
+    public int getDurabilite() {
+        return durabilite;
+    }
+
     /**
      * Accesseur pour le champ <code>formatDate</code>.
      * @return Format dsir pour la saisie de dates,  savoir,<br>
@@ -249,6 +330,17 @@ public class Config {
     }
 
 
+    /**
+     * Accesseur pour le champ <code>formatSauvegarde</code>.
+     * @return Format du fichier de sauvegarde des rendez-vous,  savoir,<br>
+     *         soit <code>0</code> pour le format texte,<br>
+     *         soit <code>1</code> pour le format binaire.
+     * @see #formatSauvegarde
+     */
+    public int getFormatSauvegarde() {
+        return formatSauvegarde;
+    }
+
     /**
      * Accesseur pour le champ <code>nbMaximumRdv</code>.
      * @return Nombre maximum de rendez-vous pouvant tre grs par le logiciel 
@@ -296,6 +388,21 @@ public class Config {
         }
     }
 
+    /**
+     * Mutateur pour le champ <code>cheminSauvegarde</code>.<br>
+     * Valeurs possibles : tout chemin de dossier accept par
+     * <code>Fichier</code>, dsignant un dossier existant.
+     * @param cheminSauvegarde Chemin du dossier des fichiers de sauvegarde
+     *                         de l'agenda.
+     * @see Fichier#estCheminValide(String)
+     */
+    public void setCheminSauvegarde(String cheminSauvegarde) {
+        if (   cheminSauvegarde != null && !cheminSauvegarde.isEmpty()
+            && Fichier.estCheminValide(cheminSauvegarde)) {
+            this.cheminSauvegarde = cheminSauvegarde;
+        }
+    }
+
     /**
      * Mutateur pour le champ <code>confirmRdv</code>.<br>
      * Valeurs possibles : 0 (dsactive) ou 1 (active).
@@ -324,6 +431,20 @@ public class Config {
         this.consoleLargeur = consoleLargeur;
     }
 
+    /**
+     * Mutateur pour le champ <code>durabilite</code>.<br>
+     * Valeurs possibles : 0 (aucune), 1 (donnes) ou 2 (donnes et
+     * mtadonnes).
+     * @param durabilite Niveau de durabilit des sauvegardes.
+     */
+    public void setDurabilite(int durabilite) {
+        if (   durabilite == Fichier.DURABILITE_AUCUNE
+            || durabilite == Fichier.DURABILITE_DONNEES
+            || durabilite == Fichier.DURABILITE_METADONNEES) {
+            this.durabilite = durabilite;
+        }
+    }
+
     /**
      * Mutateur pour le champ <code>formatDate</code>.<br>
      * Valeurs possibles : 0 (dsactive) ou 1 (active).
@@ -335,6 +456,17 @@ public class Config {
         }
     }
 
+    /**
+     * Mutateur pour le champ <code>formatSauvegarde</code>.<br>
+     * Valeurs possibles : 0 (format texte) ou 1 (format binaire).
+     * @param formatSauvegarde Format du fichier de sauvegarde des rendez-vous.
+     */
+    public void setFormatSauvegarde(int formatSauvegarde) {
+        if (formatSauvegarde == 0 || formatSauvegarde == 1) {
+            this.formatSauvegarde = formatSauvegarde;
+        }
+    }
+
     /**
      * Mutateur pour le champ <code>nbMaximumRdv</code>.<br>
      * La valeur entre doit tre suprieure au nombre de rendez-vous existants.
@@ -399,8 +531,12 @@ public class Config {
                         setConsoleHauteur(valeur);
                     } else if (parametre.equals("consoleLargeur")) {
                         setConsoleLargeur(valeur);                
+                    } else if (parametre.equals("durabilite")) {
+                        setDurabilite(valeur);
                     } else if (parametre.equals("formatDate")) {
                         setFormatDate(valeur);
+                    } else if (parametre.equals("formatSauvegarde")) {
+                        setFormatSauvegarde(valeur);
                     } else if (parametre.equals("nbMaximumRdv")) {
                         setNbMaximumRdv(valeur);
                     } else if (parametre.equals("typeSauvegarde")) {
@@ -436,8 +572,9 @@ public class Config {
         try {
             Fichier fichierConfig = new Fichier(CHEMIN_CONFIG, FICHIER_CONFIG);
 
-            // Initialisation du flux de sorties dit d'criture
-            fichierConfig.initEcriture(false);
+            // Initialisation du flux de sorties dit d'criture, par lot : le
+            // fichier est crit en une seule fois lors du commit.
+            fichierConfig.initEcriture(false, TAILLE_TAMPON_CONFIG);
 
             fichierConfig.ecrire(COMMENTAIRES_CONFIG);
             fichierConfig.ecrire("anneeDebut=" + anneeDebut);
@@ -445,9 +582,12 @@ public class Config {
             fichierConfig.ecrire("confirmRdv=" + confirmRdv);
             fichierConfig.ecrire("consoleHauteur=" + consoleHauteur);
             fichierConfig.ecrire("consoleLargeur=" + consoleLargeur);
+            fichierConfig.ecrire("durabilite=" + durabilite);
             fichierConfig.ecrire("formatDate=" + formatDate);
+            fichierConfig.ecrire("formatSauvegarde=" + formatSauvegarde);
             fichierConfig.ecrire("nbMaximumRdv=" + nbMaximumRdv);
             fichierConfig.ecrire("typeSauvegarde=" + typeSauvegarde);
+            fichierConfig.commit();
 
             // Fermeture du flux de sorties dit d'criture
             fichierConfig.fermeEcriture();
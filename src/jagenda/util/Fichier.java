@@ -9,12 +9,27 @@ package jagenda.util;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.regex.Pattern;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.Checksum;
 
 /**
  * Classe {@code Fichier} contient les mthodes utiles  la gestion de fichiers 
@@ -49,6 +64,51 @@ import java.util.regex.Pattern;
  */
 public class Fichier {
 
+    /**
+     * Encodage des {@code Fichiers} lus et crits : ISO-8859-1 (Latin-1).<br>
+     * Un caractre occupe exactement un octet, ce qui permet de parcourir
+     * directement les octets d'un {@code Fichier} projet en mmoire.
+     * 
+     * @see #projette()
+     */
+    public static final Charset ENCODAGE = Charset.forName("ISO-8859-1");
+
+    /**
+     * Niveau de durabilit : aucune synchronisation avec le disque. Les
+     * donnes restent dans le cache du systme d'exploitation.
+     * 
+     * @see #synchronise(int)
+     */
+    public static final int DURABILITE_AUCUNE = 0;
+
+    /**
+     * Niveau de durabilit : les donnes du {@code Fichier} sont forces sur 
+     * le disque.
+     * 
+     * @see #synchronise(int)
+     */
+    public static final int DURABILITE_DONNEES = 1;
+
+    /**
+     * Niveau de durabilit : les donnes et les mtadonnes du 
+     * {@code Fichier} (taille, date de modification...), ainsi que celles de
+     * son dossier aprs un renommage, sont forces sur le disque.
+     * 
+     * @see #synchronise(int)
+     * @see #remplace(Fichier, int)
+     */
+    public static final int DURABILITE_METADONNEES = 2;
+
+    /** Fin de ligne crite aprs chaque {@code message}, encode. */
+    private static final byte[] FIN_LIGNE =
+        System.getProperty("line.separator").getBytes(ENCODAGE);
+
+    /**
+     * Taille, en octets, des blocs dplacs lors de la modification d'une
+     * ligne au milieu du {@code Fichier}.
+     */
+    private static final int TAILLE_BLOC = 64 * 1024;
+
     /**
      * Expressions interdites pour un nom de fichier et/ou de
      * dossier.
@@ -91,6 +151,43 @@ public class Fichier {
 
     /** Flux d'entres : Lecture. */
     private BufferedReader lecture = null;
+
+    /**
+     * Index des lignes du {@code Fichier} : position, en octets, du dbut de
+     * chaque ligne, suivie de la taille du {@code Fichier}.<br>
+     * La ligne {@code i} occupe donc les octets compris entre 
+     * {@code debutLignes[i]} (inclus) et {@code debutLignes[i+1]} (exclu), fin
+     * de ligne comprise.<br>
+     * L'index est construit lors de la premire modification d'une ligne ou 
+     * du premier appel  {@code nbLigne()}, puis tenu  jour par les
+     * critures effectues par ce {@code Fichier}. Il vaut {@code null} tant
+     * qu'il n'a pas t construit.
+     * 
+     * @see #indexeLignes()
+     */
+    private long[] debutLignes = null;
+
+    /** Nombre de lignes recenses dans l'index {@code debutLignes}. */
+    private int nbLignes = 0;
+
+    /**
+     * {@code true} si le {@code flux de sorties} dit {@code Ecriture} est en 
+     * mode d'criture par lot : les lignes ne sont inscrites dans le 
+     * {@code Fichier} qu' l'appel de {@code commit()}, ou lorsque le tampon
+     * est plein.
+     * 
+     * @see #initEcriture(boolean, int)
+     */
+    private boolean parLot = false;
+
+    /**
+     * {@code true} si une erreur d'criture a eu lieu depuis le dernier appel
+     *  {@code commit()}.
+     */
+    private boolean erreurEcriture = false;
+
+    /** Tableau de travail rutilis par {@code ecrire(StringBuilder)}. */
+    private char[] tamponLigne = new char[0];
     
     /**
      * Cration d'un nouvel objet reprsentant un {@code Fichier}.<br>
@@ -207,15 +304,185 @@ public class Fichier {
      * @see    #creationDossiers(String)
      */
     public void initEcriture(boolean sansEcraser) throws IOException {
-        if (this.CHEMIN.equals("/")) {
-            this.ecriture = new BufferedWriter(
-                    new FileWriter(this.CHEMIN + this.NOM, sansEcraser));
-        } else if (!this.CHEMIN.equals("")) {
-            this.ecriture = new BufferedWriter(
-                    new FileWriter(this.CHEMIN + '/' + this.NOM, sansEcraser));
-        } else {
-            this.ecriture = new BufferedWriter(
-                    new FileWriter(this.NOM, sansEcraser));
+        this.ecriture = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(getFichierSysteme(), sansEcraser),
+                ENCODAGE));
+        this.parLot = false;
+        this.erreurEcriture = false;
+        reinitialiseIndex(sansEcraser);
+    }
+
+    /**
+     * Initialise le {@code flux de sorties} dit {@code Ecriture} en mode 
+     * d'criture par lot.<br>
+     * Contrairement  {@code initEcriture(boolean)}, chaque ligne crite n'est
+     * pas immdiatement inscrite dans le {@code Fichier} : les lignes sont 
+     * accumules dans un tampon de {@code tailleTampon} caractres, puis
+     * inscrites en une seule criture lorsque le tampon est plein ou lors de
+     * l'appel  {@code commit()}. Enregistrer un grand nombre de lignes ne
+     * cote ainsi qu'un petit nombre d'appels au systme.
+     * 
+     * @param  sansEcraser  {@code true} si on dsire crire en fin de
+     *                      {@code Fichier}
+     * @param  tailleTampon Taille du tampon d'criture, en caractres.
+     * @throws IOException  est gnr si le {@code chemin} du {@code Fichier}
+     *                      est anormal ou bien si les droits d'criture sont 
+     *                      insufisants.
+     * @see    #commit()
+     */
+    public void initEcriture(boolean sansEcraser, int tailleTampon)
+            throws IOException {
+        initEcriture(sansEcraser, tailleTampon, null);
+    }
+
+    /**
+     * Initialise le {@code flux de sorties} dit {@code Ecriture} en mode 
+     * d'criture par lot, en calculant au passage une somme de contrle des
+     * octets inscrits dans le {@code Fichier}.<br>
+     * Aprs un appel  {@code commit()}, {@code controle} porte sur tous les
+     * octets crits depuis sa dernire rinitialisation : il suffit donc de 
+     * le rinitialiser aprs un {@code commit()} pour ne contrler qu'une
+     * partie du {@code Fichier}.
+     * 
+     * @param  sansEcraser  {@code true} si on dsire crire en fin de
+     *                      {@code Fichier}
+     * @param  tailleTampon Taille du tampon d'criture, en caractres.
+     * @param  controle     Somme de contrle  mettre  jour, ou {@code null}.
+     * @throws IOException  est gnr si le {@code chemin} du {@code Fichier}
+     *                      est anormal ou bien si les droits d'criture sont 
+     *                      insufisants.
+     * @see    #initEcriture(boolean, int)
+     */
+    public void initEcriture(boolean sansEcraser, int tailleTampon,
+                             Checksum controle) throws IOException {
+        OutputStream sortie = new FileOutputStream(getFichierSysteme(),
+                                                   sansEcraser);
+        if (controle != null) {
+            sortie = new CheckedOutputStream(sortie, controle);
+        }
+        this.ecriture = new BufferedWriter(new OutputStreamWriter(sortie,
+                ENCODAGE), tailleTampon);
+        this.parLot = true;
+        this.erreurEcriture = false;
+        reinitialiseIndex(sansEcraser);
+    }
+
+    /**
+     * Inscrit dans le {@code Fichier} toutes les lignes crites en attente 
+     * dans le tampon du {@code flux de sorties} dit {@code Ecriture}.
+     * 
+     * @throws IOException est gnr si une ligne n'a pas pu tre crite 
+     *                     depuis le dernier appel  {@code commit()}.
+     * @see    #initEcriture(boolean, int)
+     */
+    public void commit() throws IOException {
+        if (this.ecriture != null) {
+            try {
+                this.ecriture.flush();
+            } catch (IOException ioEx) {
+                this.erreurEcriture = true;
+            }
+        }
+        if (this.erreurEcriture) {
+            this.erreurEcriture = false;
+            this.debutLignes = null;
+            throw new IOException("Erreur lors de l'criture dans " + this
+                                  + ".");
+        }
+    }
+
+    /**
+     * Met  jour l'index des lignes  l'ouverture du {@code flux de sorties}.
+     * 
+     * @param sansEcraser {@code false} si le {@code Fichier} vient d'tre 
+     *                    vid.
+     */
+    private void reinitialiseIndex(boolean sansEcraser) {
+        if (!sansEcraser) {
+            // Le Fichier vient d'tre vid : l'index est vide lui aussi.
+            this.debutLignes = new long[] {0};
+            this.nbLignes = 0;
+        }
+    }
+
+    
+    /**
+     * Force l'criture sur le disque du contenu du {@code Fichier}, suivant
+     * le niveau de durabilit demand.<br>
+     * Les lignes en attente dans le tampon du {@code flux de sorties} sont
+     * d'abord inscrites dans le {@code Fichier}.
+     * 
+     * @param  durabilite  {@code DURABILITE_AUCUNE}, 
+     *                     {@code DURABILITE_DONNEES} ou 
+     *                     {@code DURABILITE_METADONNEES}.
+     * @throws IOException est gnr si le {@code Fichier} ne peut pas tre 
+     *                     crit.
+     * @see    java.nio.channels.FileChannel#force(boolean)
+     */
+    public void synchronise(int durabilite) throws IOException {
+        if (this.ecriture != null) {
+            this.ecriture.flush();
+        }
+        if (durabilite != DURABILITE_AUCUNE) {
+            RandomAccessFile acces = new RandomAccessFile(getFichierSysteme(),
+                                                          "rw");
+            try {
+                acces.getChannel().force(durabilite == DURABILITE_METADONNEES);
+            } finally {
+                acces.close();
+            }
+        }
+    }
+
+    /**
+     * Remplace le {@code Fichier} {@code cible} par ce {@code Fichier}, de
+     * faon atomique :  tout instant, {@code cible} dsigne soit son ancien
+     * contenu, soit le contenu complet de ce {@code Fichier}, jamais un 
+     * mlange des deux.<br>
+     * Ce {@code Fichier} est d'abord synchronis suivant le niveau de
+     * durabilit demand, puis renomm en {@code cible}. Au niveau 
+     * {@code DURABILITE_METADONNEES}, le dossier de {@code cible} est
+     * lui aussi synchronis, afin que le renommage survive  un arrt brutal
+     * du systme.<br>
+     * Les flux de ce {@code Fichier} doivent tre ferms.
+     * 
+     * @param  cible       {@code Fichier}  remplacer.
+     * @param  durabilite  {@code DURABILITE_AUCUNE}, 
+     *                     {@code DURABILITE_DONNEES} ou 
+     *                     {@code DURABILITE_METADONNEES}.
+     * @throws IOException est gnr si le {@code Fichier} ne peut pas tre
+     *                     synchronis ou renomm.
+     * @see    #synchronise(int)
+     */
+    public void remplace(Fichier cible, int durabilite) throws IOException {
+        synchronise(durabilite);
+        Path source = getFichierSysteme().toPath();
+        Path destination = cible.getFichierSysteme().toPath();
+        try {
+            Files.move(source, destination, StandardCopyOption.ATOMIC_MOVE,
+                       StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException atomEx) {
+            // Systme de fichiers sans renommage atomique.
+            Files.move(source, destination,
+                       StandardCopyOption.REPLACE_EXISTING);
+        }
+        this.debutLignes = null;
+        cible.debutLignes = null;
+
+        if (durabilite == DURABILITE_METADONNEES) {
+            Path dossier = destination.toAbsolutePath().getParent();
+            try {
+                FileChannel canal = FileChannel.open(dossier,
+                                                     StandardOpenOption.READ);
+                try {
+                    canal.force(true);
+                } finally {
+                    canal.close();
+                }
+            } catch (IOException ioEx) {
+                // Certains systmes (Windows) ne permettent pas d'ouvrir un
+                // dossier : le renommage y est dj journalis.
+            }
         }
     }
 
@@ -228,14 +495,39 @@ public class Fichier {
      *         {@code Fichier} est anormal.
      */
     public void initLecture() throws FileNotFoundException {
-        if (this.CHEMIN.equals("/")) {
-            this.lecture = new BufferedReader(new FileReader(this.CHEMIN 
-                    + this.NOM));
-        } else if (!this.CHEMIN.equals("")) {
-            this.lecture = new BufferedReader(new FileReader(this.CHEMIN + '/' 
-                                                           + this.NOM));
-        } else {
-            this.lecture = new BufferedReader(new FileReader(this.NOM));
+        this.lecture = new BufferedReader(new InputStreamReader(
+                new FileInputStream(getFichierSysteme()), ENCODAGE));
+    }
+
+    
+    /**
+     * Projette l'intgralit du {@code Fichier} en mmoire, en lecture seule.
+     * <br>
+     * Le contenu n'est pas copi : le systme d'exploitation charge les pages
+     * du {@code Fichier}  la demande, ce qui permet de parcourir de gros
+     * fichiers octet par octet sans passer par le {@code flux d'entres} dit
+     * {@code Lecture}.<br>
+     * Les octets sont ceux du {@code Fichier}, encods en {@link #ENCODAGE}.
+     * 
+     * @return Tampon en lecture seule couvrant tout le {@code Fichier}.
+     * @throws FileNotFoundException est gnr si le {@code Fichier} n'existe
+     *                               pas.
+     * @throws IOException           est gnr si le {@code Fichier} ne peut
+     *                               pas tre projet (taille suprieure  2 Go,
+     *                               droits d'accs insuffisants...).
+     */
+    public MappedByteBuffer projette() throws IOException {
+        RandomAccessFile acces = new RandomAccessFile(getFichierSysteme(), "r");
+        try {
+            FileChannel canal = acces.getChannel();
+            if (canal.size() > Integer.MAX_VALUE) {
+                throw new IOException(this + " est trop volumineux pour tre "
+                        + "projet en mmoire.");
+            }
+            // La projection reste valide aprs la fermeture du canal.
+            return canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+        } finally {
+            acces.close();
         }
     }
 
@@ -260,6 +552,25 @@ public class Fichier {
     }
 
     
+    /**
+     * Retourne le {@code java.io.File} dsign par le {@code CHEMIN} et le
+     * {@code NOM} de ce {@code Fichier}.
+     * 
+     * @return {@code File} correspondant  ce {@code Fichier}.
+     */
+    public File getFichierSysteme() {
+        File fichier;
+        if (this.CHEMIN.equals("/")) {
+            fichier = new File(this.CHEMIN + this.NOM);
+        } else if (!this.CHEMIN.equals("")) {
+            fichier = new File(this.CHEMIN + '/' + this.NOM);
+        } else {
+            fichier = new File(this.NOM);
+        }
+        return fichier;
+    }
+
+    
     /**
      * Vrifie si la {@code chaine} ne comporte pas de caractres interdits, 
      * n'est pas nulle et comporte au moins 1 caractre.<br>
@@ -417,6 +728,7 @@ public class Fichier {
         } else {
             fichierASupprimer = new File(this.NOM);
         }
+        this.debutLignes = null;
     
         if(!fichierASupprimer.delete()) {
             System.err.println("Le fichier n'a pas pu tre supprim. " +
@@ -452,6 +764,7 @@ public class Fichier {
                 System.err.println("Erreur dans la fermeture du flux "
                         + "d'criture.");
             }
+            this.ecriture = null;
         }
     }
 
@@ -460,10 +773,15 @@ public class Fichier {
      * nouvelle ligne.<br>
      * Cette mthode fait appel au {@code flux de sorties} dit {@code Ecriture}.
      * <br><b>WARNING</b> Tout caractre '\r' ou '\n' risque de crer un retour 
-     *  la ligne.
+     *  la ligne.<br>
+     * Une erreur d'criture n'est pas signale par cette mthode, que
+     * l'criture se fasse par lot ou non : elle l'est par l'appel suivant 
+     * {@code commit()},  effectuer pour s'assurer que la ligne a bien t
+     * inscrite.
      * 
      * @param message  Message  crire dans le {@code Fichier}
      * @see   #ecriture
+     * @see   #commit()
      */
     public void ecrire(String message) {
         if(this.ecriture != null) {
@@ -471,10 +789,11 @@ public class Fichier {
             if(message != null) {
                 try {
                     this.ecriture.write(message);
-                    this.ecriture.newLine();
-                    this.ecriture.flush();
+                    termineLigne(message);
                 } 
                 catch(IOException ioEx) {
+                    this.erreurEcriture = true;
+                    this.debutLignes = null;
                 }
             }
         } else {
@@ -482,57 +801,112 @@ public class Fichier {
         }
     }
 
+    /**
+     * Ajout du contenu d'un {@code StringBuilder} dans le {@code Fichier} puis
+     * ajout d'une nouvelle ligne.<br>
+     * Les caractres sont copis dans un tableau de travail rutilis d'une
+     * ligne  l'autre : aucune chane de caractres intermdiaire n'est cre.
+     * Le {@code StringBuilder} peut donc lui aussi tre rutilis pour 
+     * prparer la ligne suivante.
+     * 
+     * @param ligne Contenu de la ligne  crire dans le {@code Fichier}.
+     * @see   #ecrire(String)
+     */
+    public void ecrire(StringBuilder ligne) {
+        if(this.ecriture != null) {
+            int longueur = ligne.length();
+            if (this.tamponLigne.length < longueur) {
+                this.tamponLigne = new char[Math.max(longueur,
+                                                     2*this.tamponLigne.length)];
+            }
+            ligne.getChars(0, longueur, this.tamponLigne, 0);
+            try {
+                this.ecriture.write(this.tamponLigne, 0, longueur);
+                termineLigne(ligne);
+            } catch(IOException ioEx) {
+                this.erreurEcriture = true;
+                this.debutLignes = null;
+            }
+        } else {
+            System.err.println("Le flux d'criture n'a pas t initialis.");
+        }
+    }
+
+    /**
+     * Termine la ligne qui vient d'tre crite sur le {@code flux de sorties}
+     * dit {@code Ecriture} et l'ajoute  l'index des lignes. Hors du mode 
+     * d'criture par lot, la ligne est immdiatement inscrite dans le 
+     * {@code Fichier}.
+     * 
+     * @param  ligne       Contenu de la ligne crite.
+     * @throws IOException est gnr si la ligne ne peut pas tre crite.
+     */
+    private void termineLigne(CharSequence ligne) throws IOException {
+        this.ecriture.newLine();
+        if (!this.parLot) {
+            this.ecriture.flush();
+        }
+        if (this.debutLignes != null) {
+            // Les lignes sont toujours ajoutes en fin de Fichier
+            ajouteIndex(this.nbLignes, tailleEncodee(ligne) + FIN_LIGNE.length);
+        }
+    }
+
+    /**
+     * Retourne le nombre d'octets d'une suite de caractres une fois encode
+     * en {@link #ENCODAGE}.<br>
+     * Chaque caractre occupe un octet, sauf une paire de caractres de
+     * substitution (caractre hors du plan multilingue de base), remplace par
+     * un seul octet {@code ?}.
+     * 
+     * @param  ligne Suite de caractres.
+     * @return Nombre d'octets de la suite encode.
+     */
+    private static int tailleEncodee(CharSequence ligne) {
+        int taille = ligne.length();
+        for (int i = 1; i < ligne.length(); i++) {
+            if (   Character.isLowSurrogate(ligne.charAt(i))
+                && Character.isHighSurrogate(ligne.charAt(i-1))) {
+                taille--;
+                i++;
+            }
+        }
+        return taille;
+    }
+
     /**
      * Ajout d'un {@code message} dans le fichier  la ligne {@code indice}.<br>
-     * Cette mthode fait appel au {@code flux de sorties} dit {@code Ecriture}.
-     * et  un {@code flux d'entres} dit {@code Lecture}.<br><br>
-     * Chaque ligne du {@code Fichier} est mis en mmoire, puis crite une
-     *  une dans le nouveau {@code Fichier} jusqu' atteindre l'{@code indice}.
-     * <br>
-     * Si l'{@code indice} n'est pas atteint et que toutes les lignes ont t
-     * rcrites. On place le {@code message}  la fin du {@code Fichier}.
-     * La premire ligne a pour indice 0.<br>
+     * Seuls les octets situs aprs la ligne {@code indice} sont dplacs, 
+     * d'aprs l'index des lignes : le reste du {@code Fichier} n'est ni relu,
+     * ni rcrit.<br>
+     * Si l'{@code indice} est suprieur ou gal au nombre de lignes du
+     * {@code Fichier}, on place le {@code message}  la fin du 
+     * {@code Fichier}. La premire ligne a pour indice 0.<br>
      * <br><b>WARNING</b> Tout caractre '\r' ou '\n' risque de crer un retour 
      *  la ligne.
      * 
      * @param message Message  crire dans le {@code Fichier}.
      * @param indice  {@code Indice} de la ligne o crire le {@code message}.
      * @see   #ecrire(String)
-     * @see   #lireLigne()
-     * @see   #lecture
-     * @see   #ecriture
+     * @see   #debutLignes
      */
     public void ecrire(String message, int indice) {
-        if(this.ecriture != null && this.lecture != null) {
-            // On garde en mmoire le contenu du fichier avant d'excuter la 
-            // suppression de la ligne.
-            String[] contenuAvant = new String[0];
-            String ligne;
-
-            for(int i = 0; (ligne = lireLigne()) != null; i++) {
-                contenuAvant=Arrays.copyOf(contenuAvant, contenuAvant.length+1);
-                contenuAvant[i] = ligne;
-            }
-
+        if (message != null && indice >= 0) {
             try {
-                // On remet  zro le fichier avant de commencer l'criture.
-                initEcriture(false);
-
-                /*
-                 * On remet toutes les lignes en mmoire dans le fichier et 
-                 * lorsque l'index vaut l'indice de la ligne correspondant au 
-                 * message crire, on crit le message.
-                 */
-                for(int i = 0; i < contenuAvant.length; i++) {
-                    if(indice == i) {
-                        ecrire(message);
-                    }
-                    ecrire(contenuAvant[i]);
+                indexeLignes();
+                byte[] ligne = ligne(message);
+                if (indice >= this.nbLignes) {
+                    indice = this.nbLignes;
+                    termineDerniereLigne();
                 }
+                long position = this.debutLignes[indice];
+                remplaceOctets(position, position, ligne);
+                ajouteIndex(indice, ligne.length);
             } catch (IOException ioEx) {
+                this.debutLignes = null;
+                System.err.println("Impossible d'crire dans " + this + ". "
+                        + ioEx.getMessage());
             }
-        } else {
-            System.err.println("Le flux d'criture n'a pas t initialis.");
         }
     }
 
@@ -581,13 +955,9 @@ public class Fichier {
 
     /**
      * Remplacement de la ligne {@code indice} du {@code Fichier}.<br>
-     * Cette mthode fait appel au {@code flux de sorties} dit {@code Ecriture}.
-     * et  un {@code flux d'entres} dit {@code Lecture}.<br><br>
-     * Chaque ligne du {@code Fichier} est mis en mmoire, puis crite une
-     *  une dans le nouveau {@code Fichier} jusqu' atteindre l'{@code indice}.
-     * <br>
-     * Si l'{@code indice} n'est pas atteint et que toutes les lignes ont t
-     * rcrites. On place le {@code message}  la fin du {@code Fichier}.
+     * Seuls les octets de la ligne {@code indice} sont rcrits ; les lignes
+     * suivantes ne sont dplaces que si la taille de la ligne change.<br>
+     * Si la ligne {@code indice} n'existe pas, rien ne se passe.
      * La premire ligne a pour indice 0.<br>
      * <br><b>WARNING</b> Tout caractre '\r' ou '\n' risque de crer un retour 
      *  la ligne.
@@ -595,43 +965,24 @@ public class Fichier {
      * @param message Message  crire  l'indice {@code indice}.
      * @param indice  Indice de la ligne  remplacer.
      * @see   #ecrire(String)
-     * @see   #lireLigne()
-     * @see   #lecture
-     * @see   #ecriture
+     * @see   #debutLignes
      */
     public void remplacerLigne(String message, int indice) {
-        if(this.ecriture != null && this.lecture != null) {
-            // On garde en mmoire le contenu du fichier avant d'excuter la 
-            // suppression de la ligne.
-            String[] contenuAvant = new String[0];
-            String ligne;
-
-            for(int i = 0; (ligne = lireLigne()) != null; i++) {
-                contenuAvant=Arrays.copyOf(contenuAvant, contenuAvant.length+1);
-                contenuAvant[i] = ligne;
-            }
-
+        if (message != null && indice >= 0) {
             try {
-                // On remet  zro le fichier avant de commencer l'criture.
-                initEcriture(false);
-
-                /*
-                 * On remet toutes les lignes en mmoire dans le fichier et 
-                 * lorsque l'index vaut l'indice de la ligne correspondant au 
-                 * message crire, on crit le message.
-                 */
-                for(int i = 0; i < contenuAvant.length; i++) {
-                    if(indice == i) {
-                        ecrire(message);
-                    } else {
-                        ecrire(contenuAvant[i]);
-                    }
-
+                indexeLignes();
+                if (indice < this.nbLignes) {
+                    byte[] ligne = ligne(message);
+                    long debut = this.debutLignes[indice];
+                    long fin = this.debutLignes[indice+1];
+                    remplaceOctets(debut, fin, ligne);
+                    decaleIndex(indice+1, ligne.length - (fin - debut));
                 }
             } catch (IOException ioEx) {
+                this.debutLignes = null;
+                System.err.println("Impossible de modifier " + this + ". "
+                        + ioEx.getMessage());
             }
-        } else {
-            System.err.println("Le flux d'criture n'a pas t initialis.");
         }
     }
 
@@ -639,93 +990,275 @@ public class Fichier {
     /**
      * Supprime une ligne du {@code Fichier}.<br>
      * La premire ligne du {@code Fichier} a pour indice 0.<br>
-     * Cette mthode fait appel au {@code flux de sorties} dit {@code Ecriture}.
-     * et  un {@code flux d'entres} dit {@code Lecture}.<br><br>
-     * On stocke dans la mmoire toutes les lignes contenues dans le 
-     * {@code Fichier} sosu forme de tableau. Ensuite, on rinitialise le 
-     * {@code Fichier}  zro et on rinsre toutes les lignes une par une.<br>
-     * Si on atteint la ligne {@code indice}, on l'ignore et on insre les 
-     * lignes suivantes.<br>
-     * Si la ligne {@code indice} n'est pas atteinte avant la fin des lignes 
-     * contenues dans le {@code Fichier}, rien ne se passe.
+     * Les octets de la ligne {@code indice} sont recouverts par ceux des 
+     * lignes suivantes, puis le {@code Fichier} est raccourci d'autant.<br>
+     * Si la ligne {@code indice} n'existe pas, rien ne se passe.
      * 
      * @param indice  Indice de de la ligne a supprimer.
-     * @see   #ecrire(String)
-     * @see   #lireLigne()
-     * @see   #lecture
-     * @see   #ecriture
+     * @see   #debutLignes
      */
     public void supprimerLigne(int indice) {
-        if(this.ecriture != null && this.lecture != null) {
-            /*
-             * On garde en mmoire le contenu du fichier
-             * avant d'executer la suppression de la ligne
-             */
-            String[] contenuAvant = new String[0];
-            String ligne;
-    
-            for(int i = 0; (ligne = lireLigne()) != null; i++) {
-                contenuAvant = Arrays.copyOf(contenuAvant,
-                        contenuAvant.length+1);
-                contenuAvant[i] = ligne;
-            }
-    
+        if (indice >= 0) {
             try {
-                // On remet  zro le fichier avant de commencer l'criture.
-                initEcriture(false);
-
-                /*
-                 * On remet toutes les lignes en mmoire dans le fichier et 
-                 * lorsque l'index vaut l'indice de la ligne correspondant au 
-                 * message  crire, on omet la ligne pour la supprimer.
-                 */
-                for(int i = 0; i < contenuAvant.length; i++) {
-                    if(i != indice) {
-                        ecrire(contenuAvant[i]);
-                    }
+                indexeLignes();
+                if (indice < this.nbLignes) {
+                    long debut = this.debutLignes[indice];
+                    long fin = this.debutLignes[indice+1];
+                    remplaceOctets(debut, fin, new byte[0]);
+                    retireIndex(indice, fin - debut);
                 }
             } catch (IOException ioEx) {
+                this.debutLignes = null;
+                System.err.println("Impossible de modifier " + this + ". "
+                        + ioEx.getMessage());
             }
-        } else {
-            System.err.println("Le flux d'criture n'a pas t initialis.");
         }
     }
 
     
     /**
      * Retourne le nombre de lignes que contient le {@code Fichier}.<br>
-     * Une ligne se termine par "\n" ou "\r".<br>
-     * Cette methode fait appel au {@code flux d'entres} dit {@code Lecture}.
-     * <br>Si une erreur survient, on renvoie -1.<br>
-     * Cette mthode gre toute seule la fermeture et l'ouverture du 
-     * {@code flux d'entres} dit {@code Lecture}.
+     * Une ligne se termine par "\n" (ou "\r\n").<br>
+     * Le nombre de lignes est lu dans l'index des lignes, construit en une 
+     * seule passe lors du premier appel puis tenu  jour par les critures : 
+     * les appels suivants ne relisent pas le {@code Fichier}.
+     * <br>Si une erreur survient, on renvoie -1.
      * 
      * @return Nombre de lignes.
-     * @see    #lecture
+     * @see    #debutLignes
      */
     public int nbLigne() {
-        int nbLigne = 0;
+        int nbLigne;
         try {
-            // On place l'ancien BufferedReader en mmoire
-            BufferedReader tampon = this.lecture;
-            
-            // On rinitialise le flux d'entre
-            initLecture();
+            indexeLignes();
+            nbLigne = this.nbLignes;
+        } catch (IOException ioEx) {
+            nbLigne = -1;
+        }
+        return nbLigne;
+    }
 
-            // On incrmente nbLigne tant que readLine() retourne un rsultat
-            while (this.lecture.readLine() != null) {
-                nbLigne++;
+    /**
+     * Construit l'index des lignes du {@code Fichier}, s'il n'existe pas 
+     * encore, en parcourant une seule fois ses octets projets en mmoire.<br>
+     * Un {@code Fichier} inexistant est considr comme vide.
+     * 
+     * @throws IOException est gnr si le {@code Fichier} ne peut pas tre 
+     *                     lu.
+     * @see    #projette()
+     */
+    private void indexeLignes() throws IOException {
+        if (this.debutLignes == null) {
+            long[] debuts = new long[16];
+            int nb = 0;
+            if (getFichierSysteme().exists()) {
+                ByteBuffer octets = projette();
+                int taille = octets.limit();
+                int debut = 0;          // Dbut de la ligne courante
+                while (debut < taille) {
+                    if (nb+1 == debuts.length) {
+                        debuts = Arrays.copyOf(debuts, 2*debuts.length);
+                    }
+                    debuts[nb++] = debut;
+                    while (debut < taille && octets.get(debut) != '\n') {
+                        debut++;
+                    }
+                    debut++;
+                }
+                debuts[nb] = taille;
             }
+            this.debutLignes = debuts;
+            this.nbLignes = nb;
+        }
+    }
 
-            // Toutes les lignes ont t lues. On peut fermer le flux d'entres.
-            fermeLecture();
+    /**
+     * Ajoute une ligne de {@code taille} octets  l'index,  l'indice 
+     * {@code indice}. Les lignes suivantes sont dcales d'autant.
+     * 
+     * @param indice Indice de la nouvelle ligne.
+     * @param taille Taille de la nouvelle ligne, fin de ligne comprise.
+     */
+    private void ajouteIndex(int indice, long taille) {
+        if (this.nbLignes+1 == this.debutLignes.length) {
+            this.debutLignes = Arrays.copyOf(this.debutLignes,
+                                             2*this.debutLignes.length);
+        }
+        System.arraycopy(this.debutLignes, indice, this.debutLignes, indice+1,
+                         this.nbLignes+1 - indice);
+        this.nbLignes++;
+        decaleIndex(indice+1, taille);
+    }
 
-            // On replace le BufferedReader mis en mmoire dans this.lecture
-            this.lecture = tampon;
-        } catch (IOException ioEx) {
-            nbLigne = -1;
+    /**
+     * Retire la ligne {@code indice}, de {@code taille} octets, de l'index. Les
+     * lignes suivantes sont dcales d'autant.
+     * 
+     * @param indice Indice de la ligne retire.
+     * @param taille Taille de la ligne retire, fin de ligne comprise.
+     */
+    private void retireIndex(int indice, long taille) {
+        System.arraycopy(this.debutLignes, indice+1, this.debutLignes, indice,
+                         this.nbLignes - indice);
+        this.nbLignes--;
+        decaleIndex(indice, -taille);
+    }
+
+    /**
+     * Dcale de {@code decalage} octets le dbut des lignes  partir de 
+     * l'indice {@code indice}, ainsi que la taille du {@code Fichier}.
+     * 
+     * @param indice   Indice de la premire ligne dcale.
+     * @param decalage Nombre d'octets du dcalage (ngatif vers le dbut du
+     *                 {@code Fichier}).
+     */
+    private void decaleIndex(int indice, long decalage) {
+        if (decalage != 0) {
+            for (int i = indice; i <= this.nbLignes; i++) {
+                this.debutLignes[i] += decalage;
+            }
+        }
+    }
+
+    /**
+     * Ajoute une fin de ligne  la dernire ligne du {@code Fichier} si elle
+     * en est dpourvue, afin de pouvoir crire une nouvelle ligne  sa suite.
+     * 
+     * @throws IOException est gnr si le {@code Fichier} ne peut pas tre 
+     *                     crit.
+     */
+    private void termineDerniereLigne() throws IOException {
+        long taille = this.debutLignes[this.nbLignes];
+        if (taille > 0) {
+            inscritLignesEnAttente();
+            RandomAccessFile acces = new RandomAccessFile(getFichierSysteme(),
+                                                          "rw");
+            try {
+                acces.seek(taille-1);
+                if (acces.read() != '\n') {
+                    acces.write(FIN_LIGNE);
+                    decaleIndex(this.nbLignes, FIN_LIGNE.length);
+                }
+            } finally {
+                acces.close();
+            }
+        }
+    }
+
+    /**
+     * En mode d'criture par lot, inscrit dans le {@code Fichier} les lignes
+     * en attente dans le tampon du {@code flux de sorties}. L'index des lignes
+     * les comptant dj, elles doivent l'tre avant toute modification 
+     * directe des octets du {@code Fichier}.
+     * 
+     * @throws IOException est gnr si les lignes ne peuvent pas tre 
+     *                     crites.
+     */
+    private void inscritLignesEnAttente() throws IOException {
+        if (this.ecriture != null && this.parLot) {
+            this.ecriture.flush();
+        }
+    }
+
+    /**
+     * Retourne les octets d'une ligne, fin de ligne comprise.
+     * 
+     * @param  message Contenu de la ligne.
+     * @return Octets de la ligne, encods en {@link #ENCODAGE}.
+     */
+    private static byte[] ligne(String message) {
+        byte[] contenu = message.getBytes(ENCODAGE);
+        byte[] ligne = Arrays.copyOf(contenu, contenu.length+FIN_LIGNE.length);
+        System.arraycopy(FIN_LIGNE, 0, ligne, contenu.length, FIN_LIGNE.length);
+        return ligne;
+    }
+
+    /**
+     * Remplace les octets compris entre {@code debut} (inclus) et {@code fin}
+     * (exclu) par {@code octets}.<br>
+     * Si la taille change, la fin du {@code Fichier} est dplace par blocs
+     * d'au plus {@code TAILLE_BLOC} octets, puis le {@code Fichier} est 
+     * raccourci si ncessaire. Le dbut du {@code Fichier} n'est pas lu.
+     * 
+     * @param  debut  Position du premier octet remplac.
+     * @param  fin    Position suivant le dernier octet remplac.
+     * @param  octets Nouveaux octets.
+     * @throws IOException est gnr si le {@code Fichier} ne peut pas tre 
+     *                     modifi.
+     */
+    private void remplaceOctets(long debut, long fin, byte[] octets)
+            throws IOException {
+        inscritLignesEnAttente();
+        RandomAccessFile acces = new RandomAccessFile(getFichierSysteme(), "rw");
+        try {
+            FileChannel canal = acces.getChannel();
+            long taille = canal.size();
+            long decalage = octets.length - (fin - debut);
+            if (decalage != 0) {
+                deplace(canal, fin, fin + decalage, taille - fin);
+            }
+            ByteBuffer tampon = ByteBuffer.wrap(octets);
+            for (long pos = debut; tampon.hasRemaining(); ) {
+                pos += canal.write(tampon, pos);
+            }
+            if (decalage < 0) {
+                canal.truncate(taille + decalage);
+            }
+        } finally {
+            acces.close();
+        }
+    }
+
+    /**
+     * Dplace {@code longueur} octets du {@code canal} de la position 
+     * {@code source}  la position {@code destination}, les deux zones
+     * pouvant se chevaucher.<br>
+     * Les blocs sont parcourus dans le sens qui vite d'craser des octets
+     * non encore dplacs. Lorsqu'un bloc ne chevauche pas sa destination, il
+     * est transfr directement par {@code FileChannel.transferTo}, sans
+     * passer par la mmoire de la JVM ; sinon il transite par un tampon.
+     * 
+     * @param  canal       Canal ouvert en lecture et en criture.
+     * @param  source      Position du premier octet  dplacer.
+     * @param  destination Nouvelle position du premier octet.
+     * @param  longueur    Nombre d'octets  dplacer.
+     * @throws IOException est gnr si le {@code canal} ne peut pas tre lu
+     *                     ou crit.
+     */
+    private static void deplace(FileChannel canal, long source,
+                                long destination, long longueur)
+            throws IOException {
+        long ecart = Math.abs(destination - source);
+        ByteBuffer tampon = null;
+        long reste = longueur;
+        while (reste > 0) {
+            long bloc = Math.min(reste, TAILLE_BLOC);
+            // Vers le dbut du Fichier, on dplace d'abord les premiers
+            // octets ; vers la fin, d'abord les derniers.
+            long decalageBloc = destination < source ? longueur - reste
+                                                     : reste - bloc;
+            long de = source + decalageBloc;
+            long vers = destination + decalageBloc;
+            if (bloc <= ecart) {
+                canal.position(vers);
+                for (long n = 0; n < bloc; ) {
+                    n += canal.transferTo(de + n, bloc - n, canal);
+                }
+            } else {
+                if (tampon == null) {
+                    tampon = ByteBuffer.allocate(TAILLE_BLOC);
+                }
+                tampon.clear().limit((int) bloc);
+                while (tampon.hasRemaining()) {
+                    canal.read(tampon, de + tampon.position());
+                }
+                tampon.flip();
+                while (tampon.hasRemaining()) {
+                    canal.write(tampon, vers + tampon.position());
+                }
+            }
+            reste -= bloc;
         }
-        return nbLigne;
     }
 
     /**
@@ -6,7 +6,9 @@
  */
 package jagenda.util;
 
+import jagenda.Contexte;
 import jagenda.Horaire;
+import jagenda.IndexJours;
 import jagenda.RendezVous;
 
 import java.util.InputMismatchException;
@@ -65,12 +67,14 @@ public class Saisie {
             System.out.println("5 - Lister les rendez-vous.");
             System.out.println("6 - Lister les crneaux disponibles.");            
             System.out.println("7 - Configurer le logiciel.");
+            System.out.println("8 - Rechercher un rendez-vous.");
+            System.out.println("9 - Lister les rendez-vous par nature.");
             System.out.println("0 - Quitter.");
             System.out.println(Saisie.SEPARATEUR);
             System.out.print("Saisissez le numro de la tche  effectuer : ");
             try {
                 tache = this.clavier.nextInt();
-                erreur = !(0 <= tache && tache <= 8);
+                erreur = !(0 <= tache && tache <= 9);
                 if (erreur) {
                     System.err.println(tache + " n'est pas une tche valide.");
                 }
@@ -212,6 +216,123 @@ public class Saisie {
     } 
 
 
+    /**
+     * Permet la lecture d'une priode de listage des rendez-vous, entre par
+     * l'utilisateur, sur l'entre standard.<br>
+     * Tant que la donne lue sur l'entre standard n'est pas une priode
+     * correcte, on demande  l'utilisateur d'effectuer une nouvelle saisie.<br>
+     * Pour que la priode soit juge correcte, elle doit respecter les 
+     * conditions suivantes :
+     * <ul><li>Comprise entre 1 et 3 ("Jour", "Semaine" ou "Mois")</li></ul>
+     * L'arrt de la saisie s'effectue lorsque l'utilisateur appuie sur 
+     * {@code ENTREE}.<br>
+     * 
+     * @return Numro de la priode saisi sur l'entre standard.
+     * @see jagenda.IndexJours#periode(int, int)
+     */
+    public int lirePeriode() {
+        // Contiendra la priode que l'utilisateur a saisie.
+        int periode = -1;
+        
+        // Si cette valeur vaut {@code true}, alors l'utilisateur a commit une 
+        // erreur de saisie.
+        boolean erreur = false;
+        do {
+            System.out.println("Veuillez saisir le numro de la priode  " +
+                               "lister : ");
+            System.out.println(IndexJours.JOUR + " - Jour");
+            System.out.println(IndexJours.SEMAINE + " - Semaine");
+            System.out.println(IndexJours.MOIS + " - Mois");
+            try {
+                periode = this.clavier.nextInt();
+                erreur = !(   IndexJours.JOUR <= periode
+                           && periode <= IndexJours.MOIS);
+                if (erreur) {
+                    System.err.println("La priode saisie n'existe pas.");
+                }
+            } catch (InputMismatchException inEx) {
+                erreur = true;
+                System.err.println("La priode saisie n'existe pas.");
+            } finally {
+                this.clavier.nextLine();    // On vide le tampon
+            }
+        } while (erreur);
+        return periode;        
+    } 
+
+
+    /**
+     * Permet la lecture d'une dure de rendez-vous en minutes, entre par
+     * l'utilisateur, sur l'entre standard.<br>
+     * Tant que la donne lue sur l'entre standard n'est pas une dure
+     * correcte, on demande  l'utilisateur d'effectuer une nouvelle saisie.<br>
+     * Pour que la dure soit juge correcte, elle doit respecter les 
+     * conditions suivantes :
+     * <ul><li>Comprise entre 1 et 1440 minutes (une journe)</li></ul>
+     * L'arrt de la saisie s'effectue lorsque l'utilisateur appuie sur 
+     * {@code ENTREE}.<br>
+     * 
+     * @return Dure saisie sur l'entre standard, en minutes.
+     */
+    public int lireDuree() {
+        // Contiendra la dure que l'utilisateur a saisie.
+        int duree = -1;
+        
+        // Si cette valeur vaut {@code true}, alors l'utilisateur a commit une 
+        // erreur de saisie.
+        boolean erreur = false;
+        do {
+            System.out.println("Veuillez saisir la dure de votre RDV, en " +
+                               "minutes : ");
+            try {
+                duree = this.clavier.nextInt();
+                erreur = !(1 <= duree && duree <= 24 * 60);
+                if (erreur) {
+                    System.err.println("La dure saisie est invalide.");
+                }
+            } catch (InputMismatchException inEx) {
+                erreur = true;
+                System.err.println("La dure saisie est invalide.");
+            } finally {
+                this.clavier.nextLine();    // On vide le tampon
+            }
+        } while (erreur);
+        return duree;        
+    } 
+
+
+    /**
+     * Permet la lecture des mots-cls d'une recherche de rendez-vous, entrs
+     * par l'utilisateur, sur l'entre standard.<br>
+     * Tant que la saisie ne contient aucun mot, on demande  l'utilisateur
+     * d'effectuer une nouvelle saisie. Un mot termin par {@code *} dsigne
+     * tous les mots commenant par lui.<br>
+     * L'arrt de la saisie s'effectue lorsque l'utilisateur appuie sur 
+     * {@code ENTREE}.<br>
+     * 
+     * @return Mots-cls saisis sur l'entre standard.
+     * @see jagenda.IndexTexte#cherche(String)
+     */
+    public String lireRecherche() {
+        // Contiendra les mots-cls que l'utilisateur a saisis.
+        String recherche;
+        
+        // Si cette valeur vaut {@code true}, alors l'utilisateur a commit une 
+        // erreur de saisie.
+        boolean erreur = false;
+        do {
+            System.out.println("Veuillez saisir les mots recherchs " +
+                               "(mot* pour un dbut de mot) : ");
+            recherche = this.clavier.nextLine();
+            erreur = recherche.trim().isEmpty();
+            if (erreur) {
+                System.err.println("La recherche saisie est vide.");
+            }
+        } while (erreur);
+        return recherche;        
+    } 
+
+
     /**
      * Permet la lecture d'une date de rendez-vous, entre par l'utilisateur, 
      * sur l'entre standard.<br>
@@ -226,9 +347,11 @@ public class Saisie {
      * L'arrt de la saisie s'effectue lorsque l'utilisateur appuie sur 
      * {@code ENTREE}.<br>
      * 
+     * @param contexte Contexte de l'agenda, donnant le format de la date et
+     *                 l'intervalle d'annes.
      * @return Date saisie sur l'entre standard.
      */
-    public String lireDate() {
+    public String lireDate(Contexte contexte) {
         // Contiendra la date que l'utilisateur a saisie.
         String date;
         
@@ -238,7 +361,7 @@ public class Saisie {
         do {
             System.out.println("Veuillez saisir la date de votre RDV : ");
             date = this.clavier.nextLine();
-            erreur = !(Horaire.estDateValide(date));
+            erreur = !(Horaire.estDateValide(contexte, date));
             System.out.println(erreur);
             if (erreur) {
                 System.err.println("Le date saisie est invalide.");